@@ -0,0 +1,123 @@
+package net.christopherknox.rc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.HistoryArchive;
+import net.christopherknox.rc.persistence.LogRecord;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+// Moves history older than a number of days out into an archive, on top of wherever the rest of it is kept. The
+// history handed out has the archived items first, read back from the archive as the list is gone through
+@Slf4j
+class ArchivedHistoryStrategy implements HistoryStrategy {
+
+    private final HistoryStrategy live;
+    private final Path directory;
+    private final int afterDays;
+    private final ObjectMapper mapper;
+    private HistoryArchive archive;
+    private LocalDate archivedOn;
+
+    ArchivedHistoryStrategy(final HistoryStrategy live, final Path directory, final int afterDays,
+        final ObjectMapper mapper) {
+        this.live = live;
+        this.directory = directory;
+        this.afterDays = afterDays;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean open(final Data loaded) throws IOException {
+        // Until the archive has been opened the live history is all there is
+        archive = null;
+        archivedOn = null;
+        final boolean moved = live.open(loaded);
+        archive = new HistoryArchive(directory, mapper);
+        return moved;
+    }
+
+    @Override
+    public List<Item> get() {
+        return archive != null ? archive.view(live.get()) : live.get();
+    }
+
+    @Override
+    public List<Item> getLoaded() {
+        return live.getLoaded();
+    }
+
+    @Override
+    public void set(final List<Item> history) {
+        live.set(HistoryArchive.live(history));
+    }
+
+    @Override
+    public void apply(final Data loaded, final LogRecord record) {
+        live.apply(loaded, record);
+    }
+
+    @Override
+    public List<Item> takeChanged() {
+        return live.takeChanged();
+    }
+
+    @Override
+    public void write(final List<Item> changed, final boolean sync) throws IOException {
+        if (archive != null) {
+            archive.save(sync);
+        }
+        live.write(changed, sync);
+    }
+
+    @Override
+    public boolean isInSaveFile() {
+        return live.isInSaveFile();
+    }
+
+    @Override
+    public void published() {
+        live.published();
+    }
+
+    @Override
+    public void applyDeferred() {
+        live.applyDeferred();
+    }
+
+    @Override
+    public void writeUnlogged() throws IOException {
+        // Replaying the log only reaches the live history, so anything removed from the archive is saved with it
+        if (archive != null) {
+            archive.save(false);
+        }
+    }
+
+    @Override
+    public boolean archive() throws IOException {
+        // Happens at most once a day, and history that hasn't been read in yet is left alone until it has been
+        final List<Item> current = live.getLoaded();
+        if (archive == null || LocalDate.now().equals(archivedOn) || current == null) {
+            return false;
+        }
+        archivedOn = LocalDate.now();
+        final List<Item> items = SnapshotList.edit(current);
+        final int archived = archive.archive(items, archivedOn.minusDays(afterDays));
+        if (archived == 0) {
+            return false;
+        }
+        log.info("Archived " + archived + " completed items");
+        live.set(items);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        live.close();
+    }
+}
@@ -2,8 +2,11 @@ package net.christopherknox.rc;
 
 import lombok.extern.slf4j.Slf4j;
 import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
 import net.christopherknox.rc.response.BaseResponse;
 import net.christopherknox.rc.response.CategoryListResponse;
+import net.christopherknox.rc.sampler.StoreSamplers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -17,18 +20,20 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CategoryManager {
 
-    private final DataHandler dataHandler;
+    private final DataStore dataStore;
+    private final StoreSamplers samplers;
 
     @Autowired
-    public CategoryManager(final DataHandler dataHandler) {
-        this.dataHandler = dataHandler;
+    public CategoryManager(final DataStore dataStore, final StoreSamplers samplers) {
+        this.dataStore = dataStore;
+        this.samplers = samplers;
     }
 
     public CategoryListResponse getCategories() {
         try {
             log.info("GetCategories called");
             return CategoryListResponse.builder()
-                .categories(dataHandler.getCategories())
+                .categories(dataStore.getCategories())
                 .build();
         } catch (Exception e) {
             log.error("Could not get categories", e);
@@ -39,17 +44,29 @@ public class CategoryManager {
     }
 
     public BaseResponse addCategory(final String category) {
+        final DataStore store = dataStore.current();
+        synchronized (store) {
+            return addCategory(store, category);
+        }
+    }
+
+    private BaseResponse addCategory(final DataStore store, final String category) {
         try {
             log.info("AddCategory called with: " + category);
-            List<String> categories = dataHandler.getCategories();
+            List<String> categories = SnapshotList.edit(store.getCategories());
             if (categories.stream().anyMatch(c -> c.equalsIgnoreCase(category))) {
                 return BaseResponse.builder()
                     .error(Constants.ERROR_CATEGORY_DUPLICATE + category)
                     .build();
             }
             categories.add(category);
-            dataHandler.setCategories(categories);
-            dataHandler.save();
+            store.setCategories(categories);
+            samplers.getSamplerCache(store).invalidate(category);
+            store.record(LogRecord.builder()
+                .type(RecordType.ADD_CATEGORY)
+                .category(category)
+                .build());
+            store.save();
             return new BaseResponse();
         } catch (Exception e) {
             log.error("Could not add category: " + category, e);
@@ -60,9 +77,16 @@ public class CategoryManager {
     }
 
     public BaseResponse editCategory(final String oldCategory, final String newCategory) {
+        final DataStore store = dataStore.current();
+        synchronized (store) {
+            return editCategory(store, oldCategory, newCategory);
+        }
+    }
+
+    private BaseResponse editCategory(final DataStore store, final String oldCategory, final String newCategory) {
         try {
             log.info("EditCategory called with: " + oldCategory + " -> " + newCategory);
-            List<String> categories = dataHandler.getCategories();
+            final List<String> categories = SnapshotList.edit(store.getCategories());
             Optional<String> categoryToReplace =
                 categories.stream().filter(c -> c.equalsIgnoreCase(oldCategory)).findAny();
             if (categoryToReplace.isEmpty()) {
@@ -75,23 +99,26 @@ public class CategoryManager {
                     .build();
             }
             categories.replaceAll(c -> c.equals(categoryToReplace.get()) ? newCategory : c);
-            dataHandler.setCategories(categories);
 
             // If existing items for old category exist, migrate to new category
-            List<Item> items = dataHandler.getData();
-            items.forEach(i -> {
-                if (i.getCategory().equals(categoryToReplace.get())) {
-                    i.setCategory(newCategory);
-                }
+            final List<Item> items = SnapshotList.edit(store.getData());
+            items.replaceAll(i -> i.getCategory().equals(categoryToReplace.get())
+                ? i.toBuilder().category(newCategory).build() : i);
+            store.update(d -> {
+                d.setCategories(categories);
+                d.setData(items);
             });
-            dataHandler.setData(items);
 
             // If existing last set for old category exists, remove from cache
-            Map<String, List<Item>> lastSets = dataHandler.getLastSets();
-            lastSets.remove(categoryToReplace.get());
-            dataHandler.setLastSets(lastSets);
-
-            dataHandler.save();
+            store.updateLastSets(l -> l.remove(categoryToReplace.get()));
+            samplers.getSamplerCache(store).invalidate(categoryToReplace.get(), newCategory);
+            store.record(LogRecord.builder()
+                .type(RecordType.EDIT_CATEGORY)
+                .category(categoryToReplace.get())
+                .newCategory(newCategory)
+                .build());
+
+            store.save();
             return new BaseResponse();
         } catch (Exception e) {
             log.error("Could not edit category: " + oldCategory, e);
@@ -103,9 +130,16 @@ public class CategoryManager {
     }
 
     public BaseResponse removeCategory(final String category, final String migrateTo) {
+        final DataStore store = dataStore.current();
+        synchronized (store) {
+            return removeCategory(store, category, migrateTo);
+        }
+    }
+
+    private BaseResponse removeCategory(final DataStore store, final String category, final String migrateTo) {
         try {
             log.info("RemoveCategory called with: " + category + " -> " + migrateTo);
-            List<String> categories = dataHandler.getCategories();
+            final List<String> categories = SnapshotList.edit(store.getCategories());
             Optional<String> categoryToRemove =
                 categories.stream().filter(c -> c.equalsIgnoreCase(category)).findAny();
             Optional<String> categoryToMigrateTo =
@@ -121,28 +155,32 @@ public class CategoryManager {
                     .build();
             }
             categories.remove(categoryToRemove.get());
-            dataHandler.setCategories(categories);
 
             // If existing items for old category exist, migrate to new category if given, otherwise remove also
-            List<Item> items = dataHandler.getData();
+            final List<Item> items;
             if (categoryToMigrateTo.isPresent()) {
-                items.forEach(i -> {
-                    if (i.getCategory().equals(categoryToRemove.get())) {
-                        i.setCategory(categoryToMigrateTo.get());
-                    }
-                });
+                items = SnapshotList.edit(store.getData());
+                items.replaceAll(i -> i.getCategory().equals(categoryToRemove.get())
+                    ? i.toBuilder().category(categoryToMigrateTo.get()).build() : i);
             } else {
-                items = items.stream().filter(i -> !i.getCategory().equals(categoryToRemove.get()))
+                items = store.getData().stream().filter(i -> !i.getCategory().equals(categoryToRemove.get()))
                     .collect(Collectors.toList());
             }
-            dataHandler.setData(items);
+            store.update(d -> {
+                d.setCategories(categories);
+                d.setData(items);
+            });
 
             // If existing last set for old category exists, remove from cache
-            Map<String, List<Item>> lastSets = dataHandler.getLastSets();
-            lastSets.remove(categoryToRemove.get());
-            dataHandler.setLastSets(lastSets);
-
-            dataHandler.save();
+            store.updateLastSets(l -> l.remove(categoryToRemove.get()));
+            samplers.getSamplerCache(store).invalidate(categoryToRemove.get(), categoryToMigrateTo.orElse(null));
+            store.record(LogRecord.builder()
+                .type(RecordType.REMOVE_CATEGORY)
+                .category(categoryToRemove.get())
+                .newCategory(categoryToMigrateTo.orElse(null))
+                .build());
+
+            store.save();
             return new BaseResponse();
         } catch (Exception e) {
             log.error("Could not remove category: " + category, e);
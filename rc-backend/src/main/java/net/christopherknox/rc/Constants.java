@@ -3,11 +3,13 @@ package net.christopherknox.rc;
 public class Constants {
     public static final String HEALTH_ENDPOINT = "/health";
     public static final String RELOAD_ENDPOINT = "/reload";
+    public static final String FLUSH_ENDPOINT = "/flush";
     public static final String GET_CATEGORIES_ENDPOINT = "/getCategories";
     public static final String ADD_CATEGORY_ENDPOINT = "/addCategory";
     public static final String EDIT_CATEGORY_ENDPOINT = "/editCategory";
     public static final String REMOVE_CATEGORY_ENDPOINT = "/removeCategory";
     public static final String GET_RANDOM_SET_ENDPOINT = "/getRandomSet";
+    public static final String GET_RANDOM_SETS_ENDPOINT = "/getRandomSets";
     public static final String GET_FULL_LIST_ENDPOINT = "/getFullList";
     public static final String GET_COMPLETED_LIST_ENDPOINT = "/getCompletedList";
     public static final String SAVE_ITEM_ENDPOINT = "/saveItem";
@@ -16,12 +18,18 @@ public class Constants {
 
     public static final String HEALTH_MESSAGE = "RandoCube is up and running!";
     public static final String RELOAD_MESSAGE = "RandoCube has reloaded from the save file!";
+    public static final String FLUSH_MESSAGE = "RandoCube has flushed all changes to the save file!";
     public static final String ERROR_CATEGORY_REQUIRED = "Category is required for this operation";
     public static final String ERROR_CATEGORY_NOT_FOUND = "Could not find category: ";
     public static final String ERROR_CATEGORY_DUPLICATE = "Category already exists: ";
     public static final String ERROR_ID_REQUIRED = "ID is required for this operation";
     public static final String ERROR_ID_NOT_FOUND = "Could not find ID: ";
     public static final String ERROR_ITEM_REQUIRED = "Item is required for this operation";
+    public static final String ERROR_SETS_REQUIRED = "At least one set is required for this operation";
+    public static final String ERROR_SET_SIZE_INVALID = "Set size must be at least 1, got: ";
+    public static final String ERROR_VERSION_REQUIRED = "Version is required to draw a set from a seed";
+    public static final String ERROR_VERSION_CHANGED = "Items have changed since this seed was drawn, version is now: ";
+    public static final String ERROR_SET_CATEGORY_DUPLICATE = "Each category can only be requested once, got: ";
     public static final String ERROR_PRIORITY_REQUIRED = "Priority is required for this operation";
     public static final String ERROR_TITLE_REQUIRED = "Title is required for this operation";
     public static final String ERROR_TITLE_DUPLICATE = "Title already exists: ";
@@ -1,116 +1,532 @@
 package net.christopherknox.rc;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
 import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.persistence.AtomicFiles;
+import net.christopherknox.rc.persistence.BinarySnapshotCodec;
+import net.christopherknox.rc.persistence.FsyncPolicy;
+import net.christopherknox.rc.persistence.HistoryArchive;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.PersistenceMode;
+import net.christopherknox.rc.persistence.ProgressListener;
+import net.christopherknox.rc.persistence.ShardedStore;
+import net.christopherknox.rc.persistence.SnapshotFormat;
+import net.christopherknox.rc.persistence.StreamingDataReader;
+import net.christopherknox.rc.persistence.WriteBehindFlusher;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
+@Profile("!memory & !sql & !tenant")
 @Slf4j
-public class DataHandler {
+public class DataHandler implements DataStore {
 
     @Value("${data.filepath}")
     private String filepath;
 
-    private Data filedata;
+    @Value("${data.lastsets.filepath:}")
+    private String lastSetsFilepath;
+
+    @Value("${data.lastsets.flush-interval-ms:1000}")
+    private long lastSetsFlushIntervalMs;
+
+    @Value("${persistence.history.lazy:false}")
+    private boolean lazyHistory;
+
+    @Value("${persistence.history.filepath:}")
+    private String historyFilepath;
+
+    @Value("${persistence.history.mapped:false}")
+    private boolean mappedHistory;
+
+    @Value("${persistence.history.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${persistence.history.archive.enabled:false}")
+    private boolean archiveHistory;
+
+    @Value("${persistence.history.archive.after-days:90}")
+    private int archiveAfterDays;
+
+    @Value("${persistence.mode:SNAPSHOT}")
+    private PersistenceMode persistenceMode;
+
+    @Value("${persistence.snapshot.format:JSON}")
+    private SnapshotFormat snapshotFormat;
+
+    @Value("${persistence.wal.filepath:${data.filepath}.wal}")
+    private String walFilepath;
+
+    @Value("${persistence.wal.fsync:BATCHED}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${persistence.wal.sync-interval-ms:1000}")
+    private long syncIntervalMs;
+
+    @Value("${persistence.wal.checkpoint-records:1000}")
+    private long checkpointRecords;
+
+    @Value("${persistence.write-behind.interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${persistence.write-behind.max-pending:50}")
+    private long maxPendingChanges;
+
+    @Value("${persistence.watch.enabled:false}")
+    private boolean watchFile;
+
+    @Value("${persistence.watch.debounce-ms:500}")
+    private long watchDebounceMs;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile Data filedata;
+    private volatile Map<String, LastSet> lastSets;
+    private final Object lastSetsLock = new Object();
+    private WriteBehindFlusher lastSetsFlusher;
+    private SaveStrategy saves;
+    private HistoryStrategy history;
+    private SaveFileWatcher watcher;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final StreamingDataReader reader = new StreamingDataReader(mapper);
+    private final BinarySnapshotCodec codec = new BinarySnapshotCodec();
 
     @PostConstruct
     public void init() {
+        if (lastSetsFlusher == null) {
+            lastSetsFlusher = new WriteBehindFlusher("last-sets-flush", this::writeLastSets, lastSetsFlushIntervalMs,
+                Long.MAX_VALUE);
+        }
+        if (history == null) {
+            history = createHistory();
+        }
+        if (watchFile && watcher == null) {
+            watcher = createWatcher();
+        }
         try {
+            if (saves == null) {
+                saves = createSaves();
+            }
             reload();
         } catch (Exception e) {
             log.warn("Could not open file: " + filepath, e);
-            filedata = new Data();
+            if (saves == null) {
+                // The log couldn't be opened, so changes go straight into the save file until it can be
+                saves = new SnapshotSaveStrategy(this);
+            }
+            final Data empty = new Data();
+            if (!history.isInSaveFile()) {
+                empty.setHistory(null);
+            }
+            try {
+                history.open(empty);
+            } catch (Exception ex) {
+                log.warn("Could not open history of: " + filepath, ex);
+            }
+            saves.replay(empty, history);
+            publish(empty);
+            try {
+                loadLastSets();
+            } catch (Exception ex) {
+                log.warn("Could not open file: " + getLastSetsFile(), ex);
+                lastSets = new HashMap<>();
+            }
+        }
+        if (watcher != null) {
+            watcher.start(watchDebounceMs);
         }
     }
 
-    public void save() throws IOException {
-        File file = new File(filepath);
-        log.info("Saving to: " + file.getAbsolutePath());
-        mapper.writeValue(file, filedata);
+    private SaveStrategy createSaves() throws IOException {
+        switch (persistenceMode) {
+            case WAL:
+                return new WalSaveStrategy(this, Paths.get(walFilepath), fsyncPolicy, syncIntervalMs,
+                    checkpointRecords);
+            case WRITE_BEHIND:
+                return new WriteBehindSaveStrategy(this, flushIntervalMs, maxPendingChanges);
+            case SHARDED:
+                return new ShardedSaveStrategy(this,
+                    new ShardedStore(getManifestFile(), getShardDirectory(), snapshotFormat, mapper));
+            default:
+                return new SnapshotSaveStrategy(this);
+        }
+    }
+
+    private HistoryStrategy createHistory() {
+        final HistoryStrategy live = mappedHistory ? new MappedHistoryStrategy(this, getHistoryDirectory(), segmentBytes)
+            : lazyHistory ? new LazyHistoryStrategy(this) : new InlineHistoryStrategy(this);
+        return archiveHistory ? new ArchivedHistoryStrategy(live, getArchiveDirectory(), archiveAfterDays, mapper)
+            : live;
+    }
+
+    private SaveFileWatcher createWatcher() {
+        if (persistenceMode != PersistenceMode.SNAPSHOT && persistenceMode != PersistenceMode.WRITE_BEHIND) {
+            log.warn("Watching for changes only works with a single save file, not in mode: " + persistenceMode);
+            return null;
+        }
+        return new SaveFileWatcher(this, getSaveFile(), eventPublisher);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+        if (saves != null) {
+            saves.close();
+        }
+        if (history != null) {
+            history.close();
+        }
+        if (lastSetsFlusher != null) {
+            lastSetsFlusher.close();
+        }
+    }
+
+    @Override
+    public synchronized void record(final LogRecord record) {
+        // Only modes that write less than everything need to know what changed
+        saves.record(record);
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        // Old history is moved into the archive at most once a day, which means the whole of it has to be saved
+        saves.save(history.archive());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Blocks until everything saved so far is on disk, for callers that can't carry on until it is
+        saves.flush();
+        if (lastSetsFlusher != null) {
+            lastSetsFlusher.flush();
+        }
     }
 
-    public void reload() throws IOException {
-        File file = new File(filepath);
+    @Override
+    public synchronized void reload() throws IOException {
+        final Data loaded = saves.read();
+
+        // History is either in the save file or kept apart from it, and is taken out of the save if it shouldn't be
+        final boolean movedHistory = history.open(loaded);
+
+        // Everything read in is put right before any of it is published, so nobody sees a half loaded version
+        saves.replay(loaded, history);
+        publish(loaded);
+        if (watcher != null) {
+            watcher.loaded(filedata);
+        }
+        loadLastSets();
+        final boolean archived = history.archive();
+        if (movedHistory || saves.needsRewrite() || archived) {
+            save();
+        }
+    }
+
+    @Override
+    public void saveLastSets() throws IOException {
+        if (lastSetsFlusher != null) {
+            lastSetsFlusher.flush();
+        } else {
+            writeLastSets();
+        }
+    }
+
+    private void writeLastSets() throws IOException {
+        // Kept apart from the to-do list in a file that stays tiny, and written without holding up anything else
+        final File file = getLastSetsFile();
+        log.debug("Saving last sets to: " + file.getAbsolutePath());
+        AtomicFiles.write(file, mapper.writeValueAsBytes(lastSets), false);
+    }
+
+    public synchronized void checkpoint() throws IOException {
+        if (!saves.checkpoint()) {
+            save();
+        }
+    }
+
+    Data readSnapshot() throws IOException {
+        final File file = getSaveFile();
         log.info("Reading from: " + file.getAbsolutePath());
-        filedata = mapper.readValue(file, Data.class);
-    }
-
-    @Getter
-    @Setter
-    public static class Data {
-        private List<Item> data;
-        private List<Item> history;
-        private List<String> categories;
-        private Map<String, List<Item>> lastSets;
-        private Integer defaultSetSize;
-        private Integer nextId;
-
-        public Data() {
-            data = new ArrayList<>();
-            history = new ArrayList<>();
-            categories = new ArrayList<>();
+        if (watcher != null) {
+            watcher.reading();
+        }
+        return readFile(file);
+    }
+
+    Data readFile(final File file) throws IOException {
+        // Either format can be read whatever is configured, so switching formats just takes effect on the next save
+        return BinarySnapshotCodec.isBinary(file) ? codec.read(file, logProgress(file))
+            : reader.read(file, logProgress(file));
+    }
+
+    void writeSnapshot(final boolean sync) throws IOException {
+        // The managers hold this lock for the whole of a change, so taking it here means the data and history written
+        // are from between changes. Both are published versions that never change, so they are serialized after it
+        final Data data;
+        final List<Item> changedHistory;
+        synchronized (this) {
+            data = filedata;
+            changedHistory = history.takeChanged();
+        }
+        history.write(changedHistory, sync);
+
+        final byte[] bytes = toBytes(data);
+        final File file = getSaveFile();
+        log.info("Saving to: " + file.getAbsolutePath());
+        AtomicFiles.write(file, bytes, sync);
+        if (watcher != null) {
+            watcher.saved(data);
+        }
+    }
+
+    synchronized void writeHistory(final boolean sync) throws IOException {
+        history.write(history.takeChanged(), sync);
+    }
+
+    void writeUnloggedHistory() throws IOException {
+        history.writeUnlogged();
+    }
+
+    void applyDeferredHistory() {
+        history.applyDeferred();
+    }
+
+    boolean isHistoryInSaveFile() {
+        return history.isInSaveFile();
+    }
+
+    private void loadLastSets() throws IOException {
+        if (filedata.getLastSets() != null) {
+            // Older save files kept last sets in with everything else, so move them out to their own file once
+            log.info("Moving last sets out of: " + filepath);
+            lastSets = new HashMap<>();
+            filedata.getLastSets().forEach((category, items) -> lastSets.put(category,
+                LastSet.builder().ids(items.stream().mapToInt(Item::getId).toArray()).build()));
+            publish(d -> d.setLastSets(null));
+            lastSetsChanged();
+            saveLastSets();
+            save();
+            return;
+        }
+        final File file = getLastSetsFile();
+        if (!file.exists()) {
             lastSets = new HashMap<>();
-            defaultSetSize = 3;
-            nextId = 1;
+            return;
         }
+
+        // Older last sets files kept a plain list per category, of either whole items or just their IDs
+        final Map<String, JsonNode> saved = mapper.readValue(file, new TypeReference<>() {});
+        lastSets = new HashMap<>();
+        for (Map.Entry<String, JsonNode> entry : saved.entrySet()) {
+            final JsonNode node = entry.getValue();
+            if (node.isArray()) {
+                final int[] ids = new int[node.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = node.get(i).isObject() ? node.get(i).get("id").asInt() : node.get(i).asInt();
+                }
+                lastSets.put(entry.getKey(), LastSet.builder().ids(ids).build());
+            } else {
+                lastSets.put(entry.getKey(), mapper.treeToValue(node, LastSet.class));
+            }
+        }
+    }
+
+    File getManifestFile() {
+        return new File(filepath.replaceAll("\\.json$", "") + ".manifest.json");
+    }
+
+    private Path getShardDirectory() {
+        return Paths.get(filepath.replaceAll("\\.json$", "") + ".shards");
+    }
+
+    private Path getArchiveDirectory() {
+        return Paths.get(filepath.replaceAll("\\.json$", "") + ".archive");
+    }
+
+    private Path getHistoryDirectory() {
+        return Paths.get(filepath.replaceAll("\\.json$", "") + ".history");
+    }
+
+    List<Item> readHistoryFile() throws IOException {
+        final File file = getHistoryFile();
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        log.info("Reading history from: " + file.getAbsolutePath());
+        return BinarySnapshotCodec.isBinary(file) ? codec.readItems(file, logProgress(file))
+            : reader.readItems(file, logProgress(file));
+    }
+
+    private byte[] toBytes(final Data data) throws IOException {
+        return snapshotFormat == SnapshotFormat.BINARY ? codec.write(data) : mapper.writeValueAsBytes(data);
     }
 
+    byte[] toBytes(final List<Item> items) throws IOException {
+        return snapshotFormat == SnapshotFormat.BINARY ? codec.write(items) : mapper.writeValueAsBytes(items);
+    }
+
+    File getSaveFile() {
+        return new File(filepath);
+    }
+
+    File getHistoryFile() {
+        if (StringUtils.hasText(historyFilepath)) {
+            return new File(historyFilepath);
+        }
+        return new File(filepath.replaceAll("\\.json$", "") + ".history.json");
+    }
+
+    ProgressListener logProgress(final File file) {
+        final long[] logged = { 0 };
+        return (bytesRead, totalBytes) -> {
+            // Big files take a while to read, so say how far along it is every tenth of the way
+            final long percent = totalBytes > 0 ? bytesRead * 100 / totalBytes : 100;
+            if (percent / 10 > logged[0] / 10) {
+                log.info("Read " + percent + "% of: " + file.getAbsolutePath());
+            }
+            logged[0] = percent;
+        };
+    }
+
+    private File getLastSetsFile() {
+        if (StringUtils.hasText(lastSetsFilepath)) {
+            return new File(lastSetsFilepath);
+        }
+        return new File(filepath.replaceAll("\\.json$", "") + ".lastsets.json");
+    }
+
+    private synchronized void publish(final Data data) {
+        // Lists that were just read in are only put right in place, so they start off a new lineage when published
+        data.freeze();
+        history.published();
+        filedata = data;
+    }
+
+    synchronized void publish(final Consumer<Data> change) {
+        filedata = filedata.with(change);
+    }
+
+    @Override
+    public Data getSnapshot() {
+        return filedata;
+    }
+
+    @Override
     public List<Item> getData() {
         return filedata.getData();
     }
 
+    @Override
     public void setData(final List<Item> data) {
-        filedata.setData(data);
+        update(d -> d.setData(data));
     }
 
+    @Override
     public List<Item> getHistory() {
-        return filedata.getHistory();
+        return history.get();
     }
 
-    public void setHistory(final List<Item> history) {
-        filedata.setHistory(history);
+    @Override
+    public void setHistory(final List<Item> items) {
+        history.set(items);
     }
 
+    @Override
     public List<String> getCategories() {
         return filedata.getCategories();
     }
 
+    @Override
     public void setCategories(final List<String> categories) {
-        filedata.setCategories(categories);
+        update(d -> d.setCategories(categories));
+    }
+
+    @Override
+    public synchronized void update(final Consumer<Data> change) {
+        if (history.isInSaveFile()) {
+            filedata = filedata.next(change);
+            return;
+        }
+
+        // History kept apart from the save file is handed to the change along with everything else, and only put
+        // back if the change set it or edited the live part of an archived view
+        final List<Item> current = history.get();
+        final List<Item> live = HistoryArchive.live(current);
+        final Data next = filedata.with(d -> d.setHistory(current)).next(change);
+        if (next.getHistory() != current || HistoryArchive.live(current) != live) {
+            history.set(next.getHistory());
+        }
+        next.setHistory(null);
+        filedata = next;
     }
 
-    public Map<String, List<Item>> getLastSets() {
-        return filedata.getLastSets();
+    @Override
+    public Map<String, LastSet> getLastSets() {
+        return lastSets;
     }
 
-    public void setLastSets(final Map<String, List<Item>> lastSets) {
-        filedata.setLastSets(lastSets);
+    @Override
+    public void setLastSets(final Map<String, LastSet> lastSets) {
+        synchronized (lastSetsLock) {
+            this.lastSets = lastSets;
+        }
+        lastSetsChanged();
+    }
+
+    @Override
+    public void updateLastSets(final Consumer<Map<String, LastSet>> change) {
+        synchronized (lastSetsLock) {
+            final Map<String, LastSet> updated = new HashMap<>(lastSets);
+            change.accept(updated);
+            lastSets = updated;
+        }
+        lastSetsChanged();
+    }
+
+    private void lastSetsChanged() {
+        if (lastSetsFlusher != null) {
+            lastSetsFlusher.changed();
+        }
     }
 
+    @Override
     public Integer getDefaultSetSize() {
         return filedata.getDefaultSetSize();
     }
 
+    @Override
     public void setDefaultSetSize(final Integer defaultSetSize) {
-        filedata.setDefaultSetSize(defaultSetSize);
+        publish(d -> d.setDefaultSetSize(defaultSetSize));
     }
 
-    public Integer getNextId() {
+    @Override
+    public synchronized Integer getNextId() {
         final Integer nextId = filedata.getNextId();
-        filedata.setNextId(nextId + 1);
+        publish(d -> d.setNextId(nextId + 1));
         return nextId;
     }
 }
@@ -0,0 +1,64 @@
+package net.christopherknox.rc;
+
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.persistence.LogRecord;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Where the lists are kept is picked by Spring profile: the save file by default, "memory", "sql" or "tenant"
+public interface DataStore {
+
+    // One published version of the lists and settings that never changes, so all of it can be read together without a
+    // lock, while changes take the store's lock and publish a new version in its place. History is only in it for
+    // stores that keep it along with everything else, the rest leave it out and hand it out from getHistory
+    Data getSnapshot();
+
+    List<Item> getData();
+
+    void setData(List<Item> data);
+
+    List<Item> getHistory();
+
+    void setHistory(List<Item> history);
+
+    List<String> getCategories();
+
+    void setCategories(List<String> categories);
+
+    Map<String, LastSet> getLastSets();
+
+    void setLastSets(Map<String, LastSet> lastSets);
+
+    // Last sets change on every random set, so they are only changed in memory here and written out every so often
+    void updateLastSets(Consumer<Map<String, LastSet>> change);
+
+    // Makes every change to the lists and settings a mutation needs in one go, so readers only ever see all of it or
+    // none of it. Lists are changed by setting an edited copy on the version handed to the change
+    void update(Consumer<Data> change);
+
+    Integer getDefaultSetSize();
+
+    void setDefaultSetSize(Integer defaultSetSize);
+
+    Integer getNextId();
+
+    void record(LogRecord record);
+
+    void save() throws IOException;
+
+    void saveLastSets() throws IOException;
+
+    void reload() throws IOException;
+
+    void flush() throws IOException;
+
+    // The store calls actually end up in, which for tenants is the one the current request is for
+    default DataStore current() {
+        return this;
+    }
+}
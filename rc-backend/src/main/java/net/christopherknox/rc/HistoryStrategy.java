@@ -0,0 +1,54 @@
+package net.christopherknox.rc;
+
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.LogRecord;
+
+import java.io.IOException;
+import java.util.List;
+
+// Where DataHandler keeps completed items: in the save file with everything else, in a file of their own that is only
+// read when first needed, or in mapped segments. Old history can be moved into an archive on top of any of them
+interface HistoryStrategy {
+
+    // Takes the history out of a save that was just read, returning true if it moved and the save needs writing again
+    boolean open(Data loaded) throws IOException;
+
+    List<Item> get();
+
+    // The history if it is already in memory, so nothing is read in just to look at it
+    List<Item> getLoaded();
+
+    void set(List<Item> history);
+
+    // A record replayed from the log, made to the history that goes with the save it is replayed into
+    void apply(Data loaded, LogRecord record);
+
+    // Taken while holding the DataHandler lock, so the history written matches the save it is written with
+    List<Item> takeChanged();
+
+    void write(List<Item> changed, boolean sync) throws IOException;
+
+    default boolean isInSaveFile() {
+        return false;
+    }
+
+    default void published() {
+    }
+
+    // The log is about to be emptied, so any of its changes still waiting on the history being read are put in now
+    default void applyDeferred() {
+    }
+
+    // Anything replaying the log wouldn't bring back is written out along with it
+    default void writeUnlogged() throws IOException {
+    }
+
+    // Moves old history out of the way, returning true if any moved and the history needs writing again
+    default boolean archive() throws IOException {
+        return false;
+    }
+
+    default void close() throws IOException {
+    }
+}
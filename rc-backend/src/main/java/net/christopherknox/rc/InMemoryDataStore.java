@@ -0,0 +1,126 @@
+package net.christopherknox.rc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.persistence.LogRecord;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Keeps everything on the heap and never touches the disk, so each run starts out empty
+@Component
+@Profile("memory")
+@Slf4j
+public class InMemoryDataStore implements DataStore {
+
+    private volatile Data data = new Data().freeze();
+    private volatile Map<String, LastSet> lastSets = new HashMap<>();
+    private final Object lastSetsLock = new Object();
+
+    @Override
+    public Data getSnapshot() {
+        return data;
+    }
+
+    @Override
+    public List<Item> getData() {
+        return data.getData();
+    }
+
+    @Override
+    public void setData(final List<Item> items) {
+        update(d -> d.setData(items));
+    }
+
+    @Override
+    public List<Item> getHistory() {
+        return data.getHistory();
+    }
+
+    @Override
+    public void setHistory(final List<Item> history) {
+        update(d -> d.setHistory(history));
+    }
+
+    @Override
+    public List<String> getCategories() {
+        return data.getCategories();
+    }
+
+    @Override
+    public void setCategories(final List<String> categories) {
+        update(d -> d.setCategories(categories));
+    }
+
+    @Override
+    public synchronized void update(final Consumer<Data> change) {
+        data = data.next(change);
+    }
+
+    @Override
+    public Map<String, LastSet> getLastSets() {
+        return lastSets;
+    }
+
+    @Override
+    public void setLastSets(final Map<String, LastSet> lastSets) {
+        synchronized (lastSetsLock) {
+            this.lastSets = lastSets;
+        }
+    }
+
+    @Override
+    public void updateLastSets(final Consumer<Map<String, LastSet>> change) {
+        synchronized (lastSetsLock) {
+            final Map<String, LastSet> updated = new HashMap<>(lastSets);
+            change.accept(updated);
+            lastSets = updated;
+        }
+    }
+
+    @Override
+    public Integer getDefaultSetSize() {
+        return data.getDefaultSetSize();
+    }
+
+    @Override
+    public synchronized void setDefaultSetSize(final Integer defaultSetSize) {
+        data = data.with(d -> d.setDefaultSetSize(defaultSetSize));
+    }
+
+    @Override
+    public synchronized Integer getNextId() {
+        final Integer nextId = data.getNextId();
+        data = data.with(d -> d.setNextId(nextId + 1));
+        return nextId;
+    }
+
+    @Override
+    public void record(final LogRecord record) {
+        // Nothing is written anywhere, so there is nothing that needs to know what changed
+    }
+
+    @Override
+    public void save() {
+    }
+
+    @Override
+    public void saveLastSets() {
+    }
+
+    @Override
+    public void reload() {
+        // What is in memory is all there is, so it is already up to date
+        log.debug("Nothing to reload for in-memory data");
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,61 @@
+package net.christopherknox.rc;
+
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.LogRecord;
+
+import java.io.IOException;
+import java.util.List;
+
+// History kept in the save file, and published along with everything else in it
+class InlineHistoryStrategy implements HistoryStrategy {
+
+    private final DataHandler handler;
+
+    InlineHistoryStrategy(final DataHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public boolean open(final Data loaded) throws IOException {
+        // History that was in a file of its own is read back in, and goes into the save file next time it is written
+        if (loaded.getHistory() == null) {
+            loaded.setHistory(handler.readHistoryFile());
+        }
+        return false;
+    }
+
+    @Override
+    public List<Item> get() {
+        return handler.getSnapshot().getHistory();
+    }
+
+    @Override
+    public List<Item> getLoaded() {
+        return get();
+    }
+
+    @Override
+    public void set(final List<Item> history) {
+        handler.publish(d -> d.setHistory(SnapshotList.next(d.getHistory(), history)));
+    }
+
+    @Override
+    public void apply(final Data loaded, final LogRecord record) {
+        LogRecords.applyToHistory(loaded.getHistory(), record);
+    }
+
+    @Override
+    public List<Item> takeChanged() {
+        return null;
+    }
+
+    @Override
+    public void write(final List<Item> changed, final boolean sync) {
+    }
+
+    @Override
+    public boolean isInSaveFile() {
+        return true;
+    }
+}
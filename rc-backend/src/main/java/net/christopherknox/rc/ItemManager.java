@@ -1,73 +1,96 @@
 package net.christopherknox.rc;
 
 import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
 import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.persistence.IndexedById;
+import net.christopherknox.rc.persistence.IndexedByTitle;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
+import net.christopherknox.rc.persistence.SnapshotSource;
+import net.christopherknox.rc.request.RandomSetRequest;
 import net.christopherknox.rc.response.BaseResponse;
 import net.christopherknox.rc.response.ItemListResponse;
+import net.christopherknox.rc.response.RandomSetsResponse;
+import net.christopherknox.rc.sampler.RandomProvider;
+import net.christopherknox.rc.sampler.SamplerCache;
+import net.christopherknox.rc.sampler.SetPool;
+import net.christopherknox.rc.sampler.StoreSamplers;
+import net.christopherknox.rc.sampler.WeightedSampler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PreDestroy;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ItemManager {
 
-    private final DataHandler dataHandler;
+    private final DataStore dataStore;
+    private final StoreSamplers samplers;
+    private final RandomProvider randomProvider;
+    private final ExecutorService setDrawer;
 
     @Autowired
-    public ItemManager(final DataHandler dataHandler) {
-        this.dataHandler = dataHandler;
+    public ItemManager(final DataStore dataStore, final StoreSamplers samplers, final RandomProvider randomProvider,
+        @Value("${sampler.sets.threads:0}") final int setThreads) {
+        this.dataStore = dataStore;
+        this.samplers = samplers;
+        this.randomProvider = randomProvider;
+        this.setDrawer = Executors.newFixedThreadPool(setThreads > 0 ? setThreads
+            : Runtime.getRuntime().availableProcessors(), r -> {
+            final Thread thread = new Thread(r, "random-sets");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        setDrawer.shutdownNow();
     }
 
     public ItemListResponse getRandomSet(final String category, final boolean useLast) {
+        return getRandomSet(category, useLast, null, null);
+    }
+
+    public ItemListResponse getRandomSet(final String category, final boolean useLast, final Long seed,
+        final Long version) {
         try {
-            log.info("GetRandomSet called with: " + category + ", " + useLast);
-            final ItemListResponse response = getItemList(dataHandler.getData(), category);
+            log.info("GetRandomSet called with: " + category + ", " + useLast + ", " + seed + ", " + version);
+            // The items, categories and set size all come from one published version, so a change can't land part way
+            // through. Last sets don't need to be in it, they are checked against the sampler's version before use
+            final DataStore store = dataStore.current();
+            final Data snapshot = store.getSnapshot();
+            final Map<String, LastSet> lastSets = store.getLastSets();
+            final ItemListResponse response = pickRandomSet(store, snapshot, category, snapshot.getDefaultSetSize(),
+                useLast, lastSets, seed, version);
             if (response.getError() != null) {
                 return response;
             }
 
-            // Use the priorities of each item to determine how many times they show up in the weighted list
-            List<Item> weightedItems = new ArrayList<>();
-            for (Item item : response.getItems()) {
-                for (int i = 0; i < item.getPriority().getWeight(); i++) {
-                    weightedItems.add(item);
-                }
-            }
-
-            // With our weighted list, now select a set of unique items
-            final int setSize = Math.min(dataHandler.getDefaultSetSize(), response.getItems().size());
-            final Set<Item> itemsToReturn = new HashSet<>();
-            final Map<String, List<Item>> lastSets = dataHandler.getLastSets();
-            if (useLast) {
-                // Flag for use last is set, so grab the last set of options for this category if they exist and put
-                // them in the set first
-                final List<Item> lastSet = lastSets.getOrDefault(category, new ArrayList<>());
-                for (Item item : lastSet) {
-                    if (weightedItems.contains(item)) {
-                        itemsToReturn.add(item);
-                    }
-                }
-            }
-            final Random rand = new Random(System.currentTimeMillis());
-            while (itemsToReturn.size() < setSize) {
-                itemsToReturn.add(weightedItems.get(rand.nextInt(weightedItems.size())));
-            }
-
-            lastSets.put(category, new ArrayList<>(itemsToReturn));
-            dataHandler.setLastSets(lastSets);
-            dataHandler.save();
-            response.setItems(new ArrayList<>(itemsToReturn));
+            // Last sets are only changed in memory here, the store writes them out to their own file later on
+            store.updateLastSets(l -> l.put(category, toLastSet(response)));
             return response;
         } catch (Exception e) {
             log.error("Could not get random set for: " + category, e);
@@ -77,9 +100,50 @@ public class ItemManager {
         }
     }
 
+    public RandomSetsResponse getRandomSets(final List<RandomSetRequest> sets, final boolean useLast) {
+        try {
+            log.info("GetRandomSets called with: " + sets + ", " + useLast);
+            final DataStore store = dataStore.current();
+            final Data snapshot = store.getSnapshot();
+            final Integer defaultSetSize = snapshot.getDefaultSetSize();
+            final Map<String, LastSet> lastSets = store.getLastSets();
+
+            // Each category is picked independently, and last sets are only touched once they have all been picked
+            final Function<RandomSetRequest, ItemListResponse> pick = s -> pickRandomSet(store, snapshot,
+                s.getCategory(), s.getSetSize() != null ? s.getSetSize() : defaultSetSize, useLast, lastSets,
+                s.getSeed(), s.getVersion());
+            final List<ItemListResponse> responses = pickRandomSets(sets, pick);
+
+            final Map<String, ItemListResponse> setsToReturn = new LinkedHashMap<>();
+            final Map<String, LastSet> newLastSets = new HashMap<>();
+            for (int i = 0; i < sets.size(); i++) {
+                final String category = sets.get(i).getCategory();
+                final ItemListResponse response = responses.get(i);
+                setsToReturn.put(category, response);
+                if (response.getError() == null) {
+                    newLastSets.put(category, toLastSet(response));
+                }
+            }
+
+            // All of the new last sets are changed together, rather than once per category
+            if (!newLastSets.isEmpty()) {
+                store.updateLastSets(l -> l.putAll(newLastSets));
+            }
+            return RandomSetsResponse.builder()
+                .sets(setsToReturn)
+                .build();
+        } catch (Exception e) {
+            log.error("Could not get random sets for: " + sets, e);
+            return RandomSetsResponse.builder()
+                .error("Could not get random sets, check logs: " + e.getMessage())
+                .build();
+        }
+    }
+
     public ItemListResponse getFullList(final String category) {
         try {
-            return getItemList(dataHandler.getData(), category);
+            final Data snapshot = dataStore.current().getSnapshot();
+            return getItemList(snapshot.getCategories(), snapshot.getData(), category);
         } catch (Exception e) {
             log.error("Could not get items", e);
             return ItemListResponse.builder()
@@ -90,7 +154,8 @@ public class ItemManager {
 
     public ItemListResponse getCompletedList(final String category) {
         try {
-            return getItemList(dataHandler.getHistory(), category);
+            final DataStore store = dataStore.current();
+            return getItemList(store.getSnapshot().getCategories(), readHistory(store), category);
         } catch (Exception e) {
             log.error("Could not get completed items", e);
             return ItemListResponse.builder()
@@ -100,11 +165,21 @@ public class ItemManager {
     }
 
     public BaseResponse saveItem(final Item item, final boolean ignoreDuplicate) {
+        // Changes are made one at a time, each to a copy of the lists that is then published in place of the old one.
+        // Every tenant has a store of its own, so only the one this request is for is locked
+        final DataStore store = dataStore.current();
+        synchronized (store) {
+            return saveItem(store, item, ignoreDuplicate);
+        }
+    }
+
+    private BaseResponse saveItem(final DataStore store, final Item item, final boolean ignoreDuplicate) {
         try {
             Item itemToSave = new Item();
+            Item existingItem = null;
 
             // First check to see if this is an update (ID already exists)
-            final List<Item> fullItems = dataHandler.getData();
+            final List<Item> fullItems = SnapshotList.edit(store.getData());
             if (item.getId() != null) {
                 Optional<Item> existingItemToSave = getItem(fullItems, item.getId());
                 if (existingItemToSave.isEmpty()) {
@@ -112,12 +187,13 @@ public class ItemManager {
                         .error(Constants.ERROR_ID_NOT_FOUND + item.getId())
                         .build();
                 }
-                itemToSave = existingItemToSave.get();
+                // Items that have been published are never changed, so the update goes into a copy that replaces it
+                existingItem = existingItemToSave.get();
+                itemToSave = existingItem.toBuilder().build();
             }
 
             // Next check to make sure the category is valid
-            Optional<String> category =
-                dataHandler.getCategories().stream().filter(c -> c.equalsIgnoreCase(item.getCategory())).findAny();
+            Optional<String> category = getCategory(store.getCategories(), item.getCategory());
             if (category.isEmpty()) {
                 return BaseResponse.builder()
                     .error(Constants.ERROR_CATEGORY_NOT_FOUND + item.getCategory())
@@ -128,7 +204,7 @@ public class ItemManager {
             if (!ignoreDuplicate) {
                 List<Item> duplicates = new ArrayList<>();
                 duplicates.addAll(getAllByTitle(fullItems, item.getTitle()));
-                duplicates.addAll(getAllByTitle(dataHandler.getHistory(), item.getTitle()));
+                duplicates.addAll(getAllByTitle(store.getHistory(), item.getTitle()));
                 if (!duplicates.isEmpty()) {
                     Optional<Item> matchesId = duplicates.stream().filter(i -> i.getId().equals(item.getId())).findAny();
                     if (matchesId.isEmpty()) {
@@ -140,19 +216,41 @@ public class ItemManager {
             }
 
             // All checks done, so save the needed data into item
+            final String oldCategory = itemToSave.getCategory();
             itemToSave.setCategory(category.get());
             itemToSave.setTitle(item.getTitle());
             itemToSave.setPriority(item.getPriority());
 
-            // Finally, if this is a new item, need to give it an ID and add to the to-do list
-            if (itemToSave.getId() == null) {
-                itemToSave.setId(dataHandler.getNextId());
+            // Finally, if this is a new item, need to give it an ID and add to the to-do list. The ID is taken in the
+            // same version the item is published in
+            final boolean added = itemToSave.getId() == null;
+            if (added) {
+                itemToSave.setId(store.getSnapshot().getNextId());
                 itemToSave.setAdded(LocalDate.now());
                 fullItems.add(itemToSave);
+            } else {
+                fullItems.set(fullItems.indexOf(existingItem), itemToSave);
             }
 
-            dataHandler.setData(fullItems);
-            dataHandler.save();
+            // Samplers are only told once the new list is published, so none of them ever holds an item that
+            // readers can't see in the list yet
+            store.update(d -> {
+                d.setData(fullItems);
+                if (added) {
+                    d.setNextId(d.getNextId() + 1);
+                }
+            });
+            if (added) {
+                samplers.getSamplerCache(store).itemAdded(itemToSave);
+            } else {
+                samplers.getSamplerCache(store).itemUpdated(oldCategory, itemToSave);
+            }
+            store.record(LogRecord.builder()
+                .type(RecordType.SAVE_ITEM)
+                .item(itemToSave)
+                .category(oldCategory != null && !oldCategory.equals(itemToSave.getCategory()) ? oldCategory : null)
+                .build());
+            store.save();
             return new BaseResponse();
         } catch (Exception e) {
             log.error("Could not save item", e);
@@ -163,37 +261,47 @@ public class ItemManager {
     }
 
     public BaseResponse removeItem(final Integer id) {
+        final DataStore store = dataStore.current();
+        synchronized (store) {
+            return removeItem(store, id);
+        }
+    }
+
+    private BaseResponse removeItem(final DataStore store, final Integer id) {
         String title = id.toString();
         try {
-            boolean foundItem = false;
-
-            // First check for the item in the to-do list
-            final List<Item> fullItems = dataHandler.getData();
-            Optional<Item> itemToRemove = getItem(fullItems, id);
-            if (itemToRemove.isPresent()) {
-                foundItem = true;
-                title = itemToRemove.get().getTitle();
-                fullItems.remove(itemToRemove.get());
-                dataHandler.setData(fullItems);
-            }
-
-            // Also check for the item in the completed list if it's not in the to-do list
-            final List<Item> completedItems = dataHandler.getHistory();
-            itemToRemove = getItem(completedItems, id);
-            if (itemToRemove.isPresent()) {
-                foundItem = true;
-                title = itemToRemove.get().getTitle();
-                completedItems.remove(itemToRemove.get());
-                dataHandler.setHistory(completedItems);
-            }
-
-            if (!foundItem) {
+            // Check for the item in both the to-do list and the completed list, and only copy a list that has it
+            final Optional<Item> inData = getItem(store.getData(), id);
+            final Optional<Item> inHistory = getItem(store.getHistory(), id);
+            if (inData.isEmpty() && inHistory.isEmpty()) {
                 return BaseResponse.builder()
                     .error(Constants.ERROR_ID_NOT_FOUND + id)
                     .build();
             }
+            final Item removed = inHistory.orElseGet(inData::get);
+            title = removed.getTitle();
+            final String category = removed.getCategory();
+
+            store.update(d -> {
+                if (inData.isPresent()) {
+                    final List<Item> fullItems = SnapshotList.edit(d.getData());
+                    fullItems.remove(inData.get());
+                    d.setData(fullItems);
+                }
+                if (inHistory.isPresent()) {
+                    final List<Item> completedItems = SnapshotList.edit(d.getHistory());
+                    completedItems.remove(inHistory.get());
+                    d.setHistory(completedItems);
+                }
+            });
+            inData.ifPresent(samplers.getSamplerCache(store)::itemRemoved);
 
-            dataHandler.save();
+            store.record(LogRecord.builder()
+                .type(RecordType.REMOVE_ITEM)
+                .id(id)
+                .category(category)
+                .build());
+            store.save();
             return new BaseResponse();
         } catch (Exception e) {
             log.error("Could not remove item", e);
@@ -204,46 +312,49 @@ public class ItemManager {
     }
 
     public BaseResponse markCompleted(final Integer id, final boolean unmark) {
+        final DataStore store = dataStore.current();
+        synchronized (store) {
+            return markCompleted(store, id, unmark);
+        }
+    }
+
+    private BaseResponse markCompleted(final DataStore store, final Integer id, final boolean unmark) {
         String title = id.toString();
         try {
-            boolean foundItem = false;
-
-            // Get both to-do and completed lists since both will be changed
-            final List<Item> fullItems = dataHandler.getData();
-            final List<Item> completedItems = dataHandler.getHistory();
-            if (!unmark) {
-                // Flag is not set, so we are marking as completed, moving from to-do list to completed list (history)
-                Optional<Item> itemToMark = getItem(fullItems, id);
-                if (itemToMark.isPresent()) {
-                    foundItem = true;
-                    Item marked = itemToMark.get();
-                    title = marked.getTitle();
-                    fullItems.remove(marked);
-                    marked.setCompleted(LocalDate.now());
-                    completedItems.add(marked);
-                }
-            } else {
-                // Flag is set, so we are marking as not completed, moving back to to-do list from completed list
-                Optional<Item> itemToUnmark = getItem(completedItems, id);
-                if (itemToUnmark.isPresent()) {
-                    foundItem = true;
-                    Item unmarked = itemToUnmark.get();
-                    title = unmarked.getTitle();
-                    completedItems.remove(unmarked);
-                    unmarked.setCompleted(null);
-                    fullItems.add(unmarked);
-                }
-            }
-
-            if (!foundItem) {
+            // Marking moves the item from the to-do list to the completed list (history), unmarking moves it back. It
+            // is looked for in the published list first, so nothing is copied if it isn't there
+            final Optional<Item> itemToMove = getItem(unmark ? store.getHistory() : store.getData(), id);
+            if (itemToMove.isEmpty()) {
                 return BaseResponse.builder()
                     .error(Constants.ERROR_ID_NOT_FOUND + id)
                     .build();
             }
+            final Item moved = itemToMove.get().toBuilder().completed(unmark ? null : LocalDate.now()).build();
+            title = moved.getTitle();
+            store.record(LogRecord.builder()
+                .type(unmark ? RecordType.UNCOMPLETE_ITEM : RecordType.COMPLETE_ITEM)
+                .item(moved)
+                .build());
 
-            dataHandler.setData(fullItems);
-            dataHandler.setHistory(completedItems);
-            dataHandler.save();
+            store.update(d -> {
+                final List<Item> fullItems = SnapshotList.edit(d.getData());
+                final List<Item> completedItems = SnapshotList.edit(d.getHistory());
+                if (!unmark) {
+                    fullItems.remove(itemToMove.get());
+                    completedItems.add(moved);
+                } else {
+                    completedItems.remove(itemToMove.get());
+                    fullItems.add(moved);
+                }
+                d.setData(fullItems);
+                d.setHistory(completedItems);
+            });
+            if (!unmark) {
+                samplers.getSamplerCache(store).itemRemoved(moved);
+            } else {
+                samplers.getSamplerCache(store).itemAdded(moved);
+            }
+            store.save();
             return new BaseResponse();
         } catch (Exception e) {
             log.error("Could not mark/unmark item", e);
@@ -255,14 +366,124 @@ public class ItemManager {
 
 
     /* HELPER FUNCTIONS */
-    private ItemListResponse getItemList(final List<Item> items, final String category) {
+    private ItemListResponse pickRandomSet(final DataStore store, final Data snapshot,
+        final String category, final Integer requestedSize, final boolean useLast, final Map<String, LastSet> lastSets,
+        final Long seed, final Long seedVersion) {
+        final List<Item> fullItems = snapshot.getData();
+        String categoryToSample = null;
+        if (StringUtils.hasText(category)) {
+            Optional<String> existingCategory = getCategory(snapshot.getCategories(), category);
+            if (existingCategory.isEmpty()) {
+                return ItemListResponse.builder()
+                    .error(Constants.ERROR_CATEGORY_NOT_FOUND + category)
+                    .build();
+            }
+            categoryToSample = existingCategory.get();
+        }
+
+        // Use the cached sampler for this category, which already accounts for the priority of each item
+        final SamplerCache samplerCache = samplers.getSamplerCache(store);
+        final WeightedSampler sampler = samplerCache.getSampler(fullItems, categoryToSample);
+        final long version = samplerCache.getDataVersion(fullItems, categoryToSample);
+
+        // With our sampler, now select a set of unique items
+        final int setSize = Math.min(requestedSize, sampler.size());
+        if (seed != null) {
+            // A seed that was handed out before draws the exact same set again, as long as the version still matches.
+            // Once it doesn't the seed would just draw some other set, so the caller is told instead
+            if (!Long.valueOf(version).equals(seedVersion)) {
+                return ItemListResponse.builder()
+                    .error(Constants.ERROR_VERSION_CHANGED + version)
+                    .build();
+            }
+            return drawSeededSet(sampler, setSize, seed, version);
+        }
+        final LastSet lastSet = useLast ? lastSets.get(category) : null;
+        if (lastSet != null && lastSet.getSeed() != null && Long.valueOf(version).equals(lastSet.getVersion())) {
+            // Nothing in the category has changed since the last set was drawn, so its seed gives the same set back
+            return drawSeededSet(sampler, setSize, lastSet.getSeed(), version);
+        }
+        final SetPool setPool = samplers.getSetPool(store);
+        if (!useLast && setPool.isEnabled()) {
+            // Without a last set to keep, a set already picked in the background is just as good as a new one
+            final Optional<SetPool.PooledSet> pooledSet = setPool.poll(categoryToSample, setSize);
+            setPool.refill(categoryToSample, setSize);
+            if (pooledSet.isPresent()) {
+                return ItemListResponse.builder()
+                    .items(new ArrayList<>(pooledSet.get().getItems()))
+                    .seed(pooledSet.get().getSeed())
+                    .version(version)
+                    .build();
+            }
+        }
+        final Set<Item> itemsToReturn = new LinkedHashSet<>();
+        if (lastSet != null && lastSet.getIds() != null) {
+            // Flag for use last is set but the category has changed, so put whatever is left of the last set in
+            // first, looked up by ID so that edited items are kept and returned as they are now
+            for (int id : lastSet.getIds()) {
+                final Item liveItem = sampler.getItem(id);
+                if (liveItem != null) {
+                    itemsToReturn.add(liveItem);
+                }
+            }
+        }
+        if (itemsToReturn.isEmpty()) {
+            return drawSeededSet(sampler, setSize, randomProvider.nextSeed(), version);
+        }
+
+        // Part of this set was kept from before, so there is no single seed that would draw it again
+        itemsToReturn.addAll(sampler.sample(setSize - itemsToReturn.size(), itemsToReturn, randomProvider.get()));
+        return ItemListResponse.builder()
+            .items(new ArrayList<>(itemsToReturn))
+            .version(version)
+            .build();
+    }
+
+    private List<ItemListResponse> pickRandomSets(final List<RandomSetRequest> sets,
+        final Function<RandomSetRequest, ItemListResponse> pick) {
+        // A seeded source only replays the same sets when they are drawn in the same order every time, so those are
+        // drawn one after another. Otherwise the samplers can be shared, and the sets are spread over the cores
+        if (sets.size() == 1 || randomProvider.isSeeded()) {
+            return sets.stream().map(pick).collect(Collectors.toList());
+        }
+        final List<CompletableFuture<ItemListResponse>> picks = sets.stream()
+            .map(s -> CompletableFuture.supplyAsync(() -> pick.apply(s), setDrawer))
+            .collect(Collectors.toList());
+        try {
+            return picks.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private ItemListResponse drawSeededSet(final WeightedSampler sampler, final int setSize, final long seed,
+        final long version) {
+        return ItemListResponse.builder()
+            .items(sampler.sample(setSize, new HashSet<>(), randomProvider.get(seed)))
+            .seed(seed)
+            .version(version)
+            .build();
+    }
+
+    private static LastSet toLastSet(final ItemListResponse response) {
+        return LastSet.builder()
+            .seed(response.getSeed())
+            .version(response.getVersion())
+            .ids(response.getItems().stream().mapToInt(Item::getId).toArray())
+            .build();
+    }
+
+    private static ItemListResponse getItemList(final List<String> categories, final List<Item> items,
+        final String category) {
         if (!StringUtils.hasText(category)) {
             return ItemListResponse.builder()
                 .items(items)
                 .build();
         }
-        Optional<String> categoryToFilter =
-            dataHandler.getCategories().stream().filter(c -> c.equalsIgnoreCase(category)).findAny();
+        Optional<String> categoryToFilter = getCategory(categories, category);
         if (categoryToFilter.isEmpty()) {
             return ItemListResponse.builder()
                 .error(Constants.ERROR_CATEGORY_NOT_FOUND + category)
@@ -274,13 +495,32 @@ public class ItemManager {
             .build();
     }
 
+    private static List<Item> readHistory(final DataStore store) {
+        // History kept in segments or the archive is changed where it is, so it is gone through as it was right now
+        final List<Item> history = store.getHistory();
+        return history instanceof SnapshotSource ? ((SnapshotSource) history).snapshot() : history;
+    }
+
+    private static Optional<String> getCategory(final List<String> categories, final String category) {
+        return categories.stream().filter(c -> c.equalsIgnoreCase(category)).findAny();
+    }
+
     private Optional<Item> getItem(final List<Item> items, final Integer id) {
+        if (items instanceof IndexedById) {
+            final int index = ((IndexedById) items).indexOfId(id);
+            return index >= 0 ? Optional.of(items.get(index)) : Optional.empty();
+        }
         return items.stream().filter(i -> i.getId().equals(id)).findFirst();
     }
 
     private List<Item> getAllByTitle(final List<Item> items, final String title) {
+        final Predicate<String> matches =
+            t -> t.replaceAll("//s", "").equalsIgnoreCase(title.replaceAll("//s", ""));
+        if (items instanceof IndexedByTitle) {
+            return ((IndexedByTitle) items).findByTitle(matches);
+        }
         return items.stream()
-            .filter(i -> i.getTitle().replaceAll("//s", "").equalsIgnoreCase(title.replaceAll("//s", "")))
+            .filter(i -> matches.test(i.getTitle()))
             .collect(Collectors.toList());
     }
 }
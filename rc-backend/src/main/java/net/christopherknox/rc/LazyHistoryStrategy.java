@@ -0,0 +1,129 @@
+package net.christopherknox.rc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.AtomicFiles;
+import net.christopherknox.rc.persistence.LogRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// History kept in a file of its own, which is only read in when it is first needed and only written when it changed
+@Slf4j
+class LazyHistoryStrategy implements HistoryStrategy {
+
+    private final DataHandler handler;
+    private volatile List<Item> history;
+    private boolean changed;
+    private final List<LogRecord> deferredRecords = new ArrayList<>();
+
+    LazyHistoryStrategy(final DataHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public synchronized boolean open(final Data loaded) {
+        history = null;
+        changed = false;
+        deferredRecords.clear();
+        if (loaded.getHistory() == null) {
+            return false;
+        }
+        log.info("Moving history out of: " + handler.getSaveFile());
+        history = loaded.getHistory();
+        changed = true;
+        loaded.setHistory(null);
+        return true;
+    }
+
+    @Override
+    public List<Item> get() {
+        final List<Item> items = history;
+        if (items != null) {
+            return items;
+        }
+        synchronized (this) {
+            if (history == null) {
+                final List<Item> loaded;
+                try {
+                    loaded = handler.readHistoryFile();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read history: " + handler.getHistoryFile(), e);
+                }
+                deferredRecords.forEach(r -> LogRecords.applyToHistory(loaded, r));
+                changed = !deferredRecords.isEmpty();
+                deferredRecords.clear();
+                history = SnapshotList.of(loaded);
+            }
+            return history;
+        }
+    }
+
+    @Override
+    public List<Item> getLoaded() {
+        return history;
+    }
+
+    @Override
+    public synchronized void set(final List<Item> items) {
+        history = SnapshotList.next(history, items);
+        changed = true;
+    }
+
+    @Override
+    public synchronized void apply(final Data loaded, final LogRecord record) {
+        if (history == null) {
+            // History hasn't been read in yet, so hold on to the change until it is
+            deferredRecords.add(record);
+            return;
+        }
+        LogRecords.applyToHistory(history, record);
+        changed |= LogRecords.changesHistory(record);
+    }
+
+    @Override
+    public synchronized List<Item> takeChanged() {
+        // History is only written when it has been read in and changed, otherwise the file on disk is still right
+        if (history == null || !changed) {
+            return null;
+        }
+        changed = false;
+        return history;
+    }
+
+    @Override
+    public void write(final List<Item> items, final boolean sync) throws IOException {
+        if (items == null) {
+            return;
+        }
+        final File file = handler.getHistoryFile();
+        log.info("Saving history to: " + file.getAbsolutePath());
+        try {
+            AtomicFiles.write(file, handler.toBytes(items), sync);
+        } catch (IOException e) {
+            synchronized (this) {
+                changed = true;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void published() {
+        // History that was just read in or replayed into is only put right in place, so it starts a new lineage too
+        if (history != null) {
+            history = SnapshotList.of(history);
+        }
+    }
+
+    @Override
+    public synchronized void applyDeferred() {
+        if (!deferredRecords.isEmpty()) {
+            get();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package net.christopherknox.rc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.IndexedById;
+import net.christopherknox.rc.persistence.LogRecord;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Makes the change a record describes to lists that were just read in, which is how the log is replayed
+@Slf4j
+final class LogRecords {
+
+    private LogRecords() {
+    }
+
+    // Only changes the to-do list and categories, history is left to wherever it is kept
+    static void apply(final Data data, final LogRecord record) {
+        switch (record.getType()) {
+            case SAVE_ITEM:
+                putItem(data.getData(), record.getItem());
+                data.setNextId(Math.max(data.getNextId(), record.getItem().getId() + 1));
+                break;
+            case REMOVE_ITEM:
+                data.getData().removeIf(i -> i.getId().equals(record.getId()));
+                break;
+            case COMPLETE_ITEM:
+                data.getData().removeIf(i -> i.getId().equals(record.getItem().getId()));
+                break;
+            case UNCOMPLETE_ITEM:
+                putItem(data.getData(), record.getItem());
+                break;
+            case ADD_CATEGORY:
+                if (!data.getCategories().contains(record.getCategory())) {
+                    data.getCategories().add(record.getCategory());
+                }
+                break;
+            case EDIT_CATEGORY:
+                data.getCategories().replaceAll(c -> c.equals(record.getCategory()) ? record.getNewCategory() : c);
+                migrateItems(data, record.getCategory(), record.getNewCategory());
+                break;
+            case REMOVE_CATEGORY:
+                data.getCategories().remove(record.getCategory());
+                if (record.getNewCategory() != null) {
+                    migrateItems(data, record.getCategory(), record.getNewCategory());
+                } else {
+                    data.setData(data.getData().stream()
+                        .filter(i -> !i.getCategory().equals(record.getCategory())).collect(Collectors.toList()));
+                }
+                break;
+            default:
+                log.warn("Unknown log record type: " + record.getType());
+        }
+    }
+
+    static boolean changesHistory(final LogRecord record) {
+        switch (record.getType()) {
+            case REMOVE_ITEM:
+            case COMPLETE_ITEM:
+            case UNCOMPLETE_ITEM:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static void applyToHistory(final List<Item> items, final LogRecord record) {
+        switch (record.getType()) {
+            case REMOVE_ITEM:
+                removeItem(items, record.getId());
+                break;
+            case COMPLETE_ITEM:
+                putItem(items, record.getItem());
+                break;
+            case UNCOMPLETE_ITEM:
+                removeItem(items, record.getItem().getId());
+                break;
+            default:
+        }
+    }
+
+    private static void putItem(final List<Item> items, final Item item) {
+        final int index = indexOfId(items, item.getId());
+        if (index >= 0) {
+            items.set(index, item);
+        } else {
+            items.add(item);
+        }
+    }
+
+    private static void removeItem(final List<Item> items, final Integer id) {
+        if (items instanceof IndexedById) {
+            for (int index = indexOfId(items, id); index >= 0; index = indexOfId(items, id)) {
+                items.remove(index);
+            }
+        } else {
+            items.removeIf(i -> i.getId().equals(id));
+        }
+    }
+
+    private static int indexOfId(final List<Item> items, final Integer id) {
+        if (items instanceof IndexedById) {
+            return ((IndexedById) items).indexOfId(id);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void migrateItems(final Data data, final String category, final String newCategory) {
+        data.getData().replaceAll(i -> i.getCategory().equals(category)
+            ? i.toBuilder().category(newCategory).build() : i);
+    }
+}
@@ -0,0 +1,103 @@
+package net.christopherknox.rc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.MappedHistory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// History kept in mapped segment files, which are written to as items change rather than when the history is saved
+@Slf4j
+class MappedHistoryStrategy implements HistoryStrategy {
+
+    private final DataHandler handler;
+    private final Path directory;
+    private final int segmentBytes;
+    private MappedHistory store;
+
+    MappedHistoryStrategy(final DataHandler handler, final Path directory, final int segmentBytes) {
+        this.handler = handler;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    @Override
+    public boolean open(final Data loaded) throws IOException {
+        if (store != null) {
+            store.close();
+        }
+        store = new MappedHistory(directory, segmentBytes);
+
+        // History still in the save file or a history file is moved into the segments once, starting over if an
+        // earlier move was cut short, since the old copy is only dropped after the segments are on disk
+        if (loaded.getHistory() != null) {
+            log.info("Moving history out of: " + handler.getSaveFile());
+            store.clear();
+            store.addAll(loaded.getHistory());
+            store.force();
+            loaded.setHistory(null);
+            return true;
+        }
+        final File file = handler.getHistoryFile();
+        if (file.exists()) {
+            log.info("Moving history out of: " + file.getAbsolutePath());
+            store.clear();
+            store.addAll(handler.readHistoryFile());
+            store.force();
+            Files.delete(file.toPath());
+        }
+        return false;
+    }
+
+    @Override
+    public List<Item> get() {
+        return store;
+    }
+
+    @Override
+    public List<Item> getLoaded() {
+        return store;
+    }
+
+    @Override
+    public void set(final List<Item> history) {
+        // Changes made to the list from get are already in the segments, anything else replaces them
+        if (history != store) {
+            store.clear();
+            store.addAll(history);
+        }
+    }
+
+    @Override
+    public void apply(final Data loaded, final LogRecord record) {
+        if (store != null) {
+            LogRecords.applyToHistory(store, record);
+        }
+    }
+
+    @Override
+    public List<Item> takeChanged() {
+        return null;
+    }
+
+    @Override
+    public void write(final List<Item> changed, final boolean sync) {
+        // Segments are written to as items change, so all that is left is making sure they are on disk
+        if (sync && store != null) {
+            store.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (store != null) {
+            store.close();
+        }
+    }
+}
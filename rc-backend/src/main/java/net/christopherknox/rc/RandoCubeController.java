@@ -2,13 +2,16 @@ package net.christopherknox.rc;
 
 import net.christopherknox.rc.request.AddCategoryRequest;
 import net.christopherknox.rc.request.EditCategoryRequest;
+import net.christopherknox.rc.request.GetRandomSetsRequest;
 import net.christopherknox.rc.request.MarkCompletedRequest;
+import net.christopherknox.rc.request.RandomSetRequest;
 import net.christopherknox.rc.request.RemoveCategoryRequest;
 import net.christopherknox.rc.request.RemoveItemRequest;
 import net.christopherknox.rc.request.SaveItemRequest;
 import net.christopherknox.rc.response.BaseResponse;
 import net.christopherknox.rc.response.CategoryListResponse;
 import net.christopherknox.rc.response.ItemListResponse;
+import net.christopherknox.rc.response.RandomSetsResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -19,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 @RestController
 @CrossOrigin
@@ -26,14 +31,14 @@ public class RandoCubeController {
 
     private final CategoryManager categoryManager;
     private final ItemManager itemManager;
-    private final DataHandler dataHandler;
+    private final DataStore dataStore;
 
     @Autowired
     public RandoCubeController(final CategoryManager categoryManager, final ItemManager itemManager,
-        final DataHandler dataHandler) {
+        final DataStore dataStore) {
         this.categoryManager = categoryManager;
         this.itemManager = itemManager;
-        this.dataHandler = dataHandler;
+        this.dataStore = dataStore;
     }
 
     @GetMapping(Constants.HEALTH_ENDPOINT)
@@ -44,13 +49,23 @@ public class RandoCubeController {
     @GetMapping(Constants.RELOAD_ENDPOINT)
     public String reload() {
         try {
-            dataHandler.reload();
+            dataStore.reload();
         } catch (IOException e) {
             return e.toString();
         }
         return Constants.RELOAD_MESSAGE;
     }
 
+    @GetMapping(Constants.FLUSH_ENDPOINT)
+    public String flush() {
+        try {
+            dataStore.flush();
+        } catch (IOException e) {
+            return e.toString();
+        }
+        return Constants.FLUSH_MESSAGE;
+    }
+
 
     /* CATEGORY ENDPOINTS */
     @GetMapping(Constants.GET_CATEGORIES_ENDPOINT)
@@ -89,8 +104,35 @@ public class RandoCubeController {
 
     @GetMapping(Constants.GET_RANDOM_SET_ENDPOINT)
     public ItemListResponse getRandomSet(@RequestParam("category") final String category,
-        @RequestParam(name="useLast", required=false, defaultValue="true") final boolean useLast) {
-        return itemManager.getRandomSet(category, useLast);
+        @RequestParam(name="useLast", required=false, defaultValue="true") final boolean useLast,
+        @RequestParam(name="seed", required=false) final Long seed,
+        @RequestParam(name="version", required=false) final Long version) {
+        if (seed != null && version == null) {
+            return ItemListResponse.builder().error(Constants.ERROR_VERSION_REQUIRED).build();
+        }
+        return itemManager.getRandomSet(category, useLast, seed, version);
+    }
+
+    @PostMapping(Constants.GET_RANDOM_SETS_ENDPOINT)
+    public RandomSetsResponse getRandomSets(@RequestBody final GetRandomSetsRequest request) {
+        if (request.getSets() == null || request.getSets().isEmpty()) {
+            return RandomSetsResponse.builder().error(Constants.ERROR_SETS_REQUIRED).build();
+        }
+        // Sets come back keyed by category, so asking for one twice would quietly lose a set
+        final Set<String> categories = new HashSet<>();
+        for (RandomSetRequest set : request.getSets()) {
+            if (set == null || !StringUtils.hasText(set.getCategory())) {
+                return RandomSetsResponse.builder().error(Constants.ERROR_CATEGORY_REQUIRED).build();
+            } else if (set.getSetSize() != null && set.getSetSize() < 1) {
+                return RandomSetsResponse.builder().error(Constants.ERROR_SET_SIZE_INVALID + set.getSetSize()).build();
+            } else if (set.getSeed() != null && set.getVersion() == null) {
+                return RandomSetsResponse.builder().error(Constants.ERROR_VERSION_REQUIRED).build();
+            } else if (!categories.add(set.getCategory().toLowerCase())) {
+                return RandomSetsResponse.builder().error(Constants.ERROR_SET_CATEGORY_DUPLICATE + set.getCategory())
+                    .build();
+            }
+        }
+        return itemManager.getRandomSets(request.getSets(), request.getUseLast() != null ? request.getUseLast() : true);
     }
 
     @GetMapping(Constants.GET_FULL_LIST_ENDPOINT)
@@ -0,0 +1,125 @@
+package net.christopherknox.rc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.DataDiff;
+import net.christopherknox.rc.persistence.DataReloadedEvent;
+import net.christopherknox.rc.persistence.FileWatcher;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Picks up changes made to the save file by anything else, and puts them on top of whatever is in memory
+@Slf4j
+class SaveFileWatcher {
+
+    private final DataHandler handler;
+    private final File file;
+    private final ApplicationEventPublisher eventPublisher;
+    private FileWatcher watcher;
+    private volatile FileTime savedModified;
+    private volatile Data savedData;
+
+    SaveFileWatcher(final DataHandler handler, final File file, final ApplicationEventPublisher eventPublisher) {
+        this.handler = handler;
+        this.file = file;
+        this.eventPublisher = eventPublisher;
+    }
+
+    void start(final long debounceMs) {
+        if (watcher != null) {
+            return;
+        }
+        try {
+            watcher = new FileWatcher(file.toPath(), debounceMs, this::fileChanged);
+        } catch (IOException e) {
+            log.warn("Could not watch file: " + file, e);
+        }
+    }
+
+    void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    // Called before the file is read, so a change made while it is being read still counts as a change
+    void reading() throws IOException {
+        savedModified = file.exists() ? Files.getLastModifiedTime(file.toPath()) : null;
+    }
+
+    void loaded(final Data data) {
+        savedData = data;
+    }
+
+    void saved(final Data data) throws IOException {
+        savedModified = Files.getLastModifiedTime(file.toPath());
+        savedData = data;
+    }
+
+    private void fileChanged() {
+        try {
+            // Saving changes the file too, but everything in it then is already in memory
+            final FileTime modified = file.exists() ? Files.getLastModifiedTime(file.toPath()) : null;
+            if (modified == null || modified.equals(savedModified)) {
+                return;
+            }
+
+            // The new file is read on the watcher thread, only putting the changes in place needs the lock
+            log.info("Reloading changed file: " + file.getAbsolutePath());
+            final Data saved = savedData;
+            final Data updated = handler.readFile(file);
+            applyChanges(saved, updated, modified);
+        } catch (IOException e) {
+            log.warn("Could not reload changed file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void applyChanges(final Data saved, final Data updated, final FileTime modified) {
+        synchronized (handler) {
+            // What changed is worked out against what was last in the file, not what is in memory. Changes still
+            // waiting to be written behind are then kept, with the ones made to the file put on top of them
+            savedModified = modified;
+            savedData = updated;
+            final Data current = handler.getSnapshot();
+            final Data base = saved != null ? saved : current;
+            final List<Item> items = new ArrayList<>(current.getData());
+            DataDiff.between(base.getData(), updated.getData()).apply(items);
+            final DataDiff data = DataDiff.between(current.getData(), items);
+
+            // History kept outside of the save file isn't in the new one either, so it stays as it is
+            final List<Item> historyItems = new ArrayList<>();
+            final DataDiff historyDiff;
+            if (handler.isHistoryInSaveFile() && updated.getHistory() != null && base.getHistory() != null) {
+                historyItems.addAll(current.getHistory());
+                DataDiff.between(base.getHistory(), updated.getHistory()).apply(historyItems);
+                historyDiff = DataDiff.between(current.getHistory(), historyItems);
+            } else {
+                historyDiff = new DataDiff();
+            }
+
+            // The changes go into a new version of the same lists, so samplers built on them only need the changes
+            final boolean historyUpdated = !historyDiff.isEmpty();
+            handler.publish(d -> {
+                d.setData(SnapshotList.next(d.getData(), items));
+                if (historyUpdated) {
+                    d.setHistory(SnapshotList.next(d.getHistory(), historyItems));
+                }
+                if (!d.getCategories().equals(updated.getCategories())) {
+                    d.setCategories(SnapshotList.next(d.getCategories(), updated.getCategories()));
+                }
+                d.setDefaultSetSize(updated.getDefaultSetSize());
+                d.setNextId(Math.max(d.getNextId(), updated.getNextId()));
+            });
+            log.info("Reloaded " + data.getAdded().size() + " added, " + data.getChanged().size() + " changed and "
+                + data.getRemoved().size() + " removed items");
+            eventPublisher.publishEvent(new DataReloadedEvent(data, historyDiff));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package net.christopherknox.rc;
+
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.persistence.LogRecord;
+
+import java.io.IOException;
+
+// How DataHandler gets changes to disk, one for each persistence mode. Everything but flush and close is called while
+// holding the DataHandler lock
+interface SaveStrategy {
+
+    // Reads back what was last saved, forgetting any changes still waiting to be written
+    Data read() throws IOException;
+
+    // Whether what was just read has to be written straight back, to finish moving it to where this mode keeps it
+    default boolean needsRewrite() {
+        return false;
+    }
+
+    // Brings a save that was just read up to date with changes kept apart from it, before it is published
+    default void replay(final Data loaded, final HistoryStrategy history) {
+    }
+
+    default void record(final LogRecord record) {
+    }
+
+    // Archiving moves history around without any records, so whatever was archived has to be written out in full
+    void save(boolean archived) throws IOException;
+
+    // Folds changes kept apart from the save file back into it, or returns false if this mode doesn't keep any
+    default boolean checkpoint() throws IOException {
+        return false;
+    }
+
+    default void flush() throws IOException {
+    }
+
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,97 @@
+package net.christopherknox.rc;
+
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.ShardedStore;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+// Splits the save into a file per category plus a manifest, and only writes the categories that recorded changes touch
+class ShardedSaveStrategy implements SaveStrategy {
+
+    private final DataHandler handler;
+    private final ShardedStore store;
+    private final Set<String> changedShards = new HashSet<>();
+    private final Set<String> changedHistoryShards = new HashSet<>();
+    private boolean changesRecorded;
+    private boolean allChanged;
+    private boolean split;
+
+    ShardedSaveStrategy(final DataHandler handler, final ShardedStore store) {
+        this.handler = handler;
+        this.store = store;
+    }
+
+    @Override
+    public Data read() throws IOException {
+        resetChanges();
+        // A single save file from before sharding is read as it is, and split up when it is written straight back
+        split = !store.exists();
+        return split ? handler.readSnapshot() : store.read(handler.logProgress(handler.getManifestFile()));
+    }
+
+    @Override
+    public boolean needsRewrite() {
+        return split;
+    }
+
+    @Override
+    public void record(final LogRecord record) {
+        changesRecorded = true;
+        store.record(record);
+        switch (record.getType()) {
+            case SAVE_ITEM:
+                // An item moved out of a category has its old category saved on the record as well
+                changedShards.add(record.getItem().getCategory());
+                if (record.getCategory() != null) {
+                    changedShards.add(record.getCategory());
+                }
+                break;
+            case REMOVE_ITEM:
+                if (record.getCategory() == null) {
+                    allChanged = true;
+                }
+                changedShards.add(record.getCategory());
+                changedHistoryShards.add(record.getCategory());
+                break;
+            case COMPLETE_ITEM:
+            case UNCOMPLETE_ITEM:
+                changedShards.add(record.getItem().getCategory());
+                changedHistoryShards.add(record.getItem().getCategory());
+                break;
+            case EDIT_CATEGORY:
+                if (!store.rename(record.getCategory(), record.getNewCategory())) {
+                    changedShards.add(record.getCategory());
+                    changedShards.add(record.getNewCategory());
+                }
+                break;
+            case REMOVE_CATEGORY:
+                changedShards.add(record.getCategory());
+                if (record.getNewCategory() != null) {
+                    changedShards.add(record.getNewCategory());
+                }
+                break;
+            default:
+                // Adding a category only changes the manifest, which is written every time
+        }
+    }
+
+    @Override
+    public void save(final boolean archived) throws IOException {
+        // Only shards touched by recorded changes are written, anything saved without a record writes them all
+        handler.writeHistory(false);
+        final boolean all = !changesRecorded || allChanged || archived;
+        store.write(handler.getSnapshot(), all ? null : changedShards, all ? null : changedHistoryShards);
+        resetChanges();
+        split = false;
+    }
+
+    private void resetChanges() {
+        changedShards.clear();
+        changedHistoryShards.clear();
+        changesRecorded = false;
+        allChanged = false;
+    }
+}
@@ -0,0 +1,156 @@
+package net.christopherknox.rc;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+// One version of a list that never changes. Every version made from another keeps the same lineage, so anything built
+// on the list (like cached samplers) can tell an edit apart from the list being replaced outright
+public final class SnapshotList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final Object[] elements;
+    private final int size;
+    private final Object lineage;
+
+    private SnapshotList(final Object[] elements, final int size, final Object lineage) {
+        this.elements = elements;
+        this.size = size;
+        this.lineage = lineage;
+    }
+
+    private SnapshotList(final Collection<? extends T> items, final Object lineage) {
+        this(items.toArray(), items.size(), lineage);
+    }
+
+    public static <T> SnapshotList<T> of(final Collection<? extends T> items) {
+        return new SnapshotList<>(items, new Object());
+    }
+
+    public static <T> SnapshotList<T> next(final List<T> previous, final Collection<? extends T> items) {
+        if (!(previous instanceof SnapshotList)) {
+            return of(items);
+        }
+        final Object lineage = ((SnapshotList<T>) previous).lineage;
+        if (items instanceof SnapshotList && ((SnapshotList<?>) items).lineage == lineage) {
+            // Already a version of this list, and since it can't change its elements are shared rather than copied
+            final SnapshotList<?> snapshot = (SnapshotList<?>) items;
+            return new SnapshotList<>(snapshot.elements, snapshot.size, lineage);
+        } else if (items instanceof Edit) {
+            // An edited copy hands its array over as it is, and copies it again only if it is changed after that
+            final Edit<?> edit = (Edit<?>) items;
+            edit.shared = true;
+            return new SnapshotList<>(edit.elements, edit.size, lineage);
+        }
+        return new SnapshotList<>(items, lineage);
+    }
+
+    public static <T> List<T> edit(final List<T> items) {
+        // Anything else is a list that is meant to be changed where it is, like history kept in segments
+        return items instanceof SnapshotList ? new Edit<>((SnapshotList<T>) items) : items;
+    }
+
+    public static Object lineage(final List<?> items) {
+        return items instanceof SnapshotList ? ((SnapshotList<?>) items).lineage : items;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(final int index) {
+        Objects.checkIndex(index, size);
+        return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // The copy a change is made to, kept apart from an ArrayList so the next version can take its array without
+    // copying it again. Room for a few more items is left at the end, since most changes add one
+    private static final class Edit<T> extends AbstractList<T> implements RandomAccess {
+
+        private Object[] elements;
+        private int size;
+        private boolean shared;
+
+        private Edit(final SnapshotList<T> items) {
+            elements = Arrays.copyOf(items.elements, items.size + 1 + (items.size >> 4));
+            size = items.size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(final int index) {
+            Objects.checkIndex(index, size);
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T set(final int index, final T item) {
+            Objects.checkIndex(index, size);
+            unshare(size);
+            final T replaced = (T) elements[index];
+            elements[index] = item;
+            return replaced;
+        }
+
+        @Override
+        public void add(final int index, final T item) {
+            Objects.checkIndex(index, size + 1);
+            unshare(size + 1);
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = item;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T remove(final int index) {
+            Objects.checkIndex(index, size);
+            unshare(size);
+            final T removed = (T) elements[index];
+            System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+            elements[--size] = null;
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean removeIf(final Predicate<? super T> filter) {
+            // Kept items are moved down in one pass, rather than shifting the rest along for every one removed
+            unshare(size);
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!filter.test((T) elements[i])) {
+                    elements[kept++] = elements[i];
+                }
+            }
+            if (kept == size) {
+                return false;
+            }
+            Arrays.fill(elements, kept, size, null);
+            size = kept;
+            modCount++;
+            return true;
+        }
+
+        private void unshare(final int needed) {
+            if (shared || needed > elements.length) {
+                elements = Arrays.copyOf(elements, Math.max(needed, size + (size >> 1)) + 1);
+                shared = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package net.christopherknox.rc;
+
+import net.christopherknox.rc.model.Data;
+
+import java.io.IOException;
+
+// Writes the whole save file every time anything is saved
+class SnapshotSaveStrategy implements SaveStrategy {
+
+    private final DataHandler handler;
+
+    SnapshotSaveStrategy(final DataHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public Data read() throws IOException {
+        return handler.readSnapshot();
+    }
+
+    @Override
+    public void save(final boolean archived) throws IOException {
+        handler.writeSnapshot(false);
+    }
+}
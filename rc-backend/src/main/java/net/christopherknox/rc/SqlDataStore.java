@@ -0,0 +1,487 @@
+package net.christopherknox.rc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.model.Priority;
+import net.christopherknox.rc.persistence.BinarySnapshotCodec;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
+import net.christopherknox.rc.persistence.StreamingDataReader;
+import net.christopherknox.rc.persistence.WriteBehindFlusher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Keeps the lists in an embedded database file, where recorded changes only touch the rows they are about. The one
+// connection is only ever used while holding this store's lock. Nothing is ever read back from the tables but on
+// loading, everything else reads the version in memory, so the only index is on category for renaming and removing one
+@Component
+@Profile("sql")
+@Slf4j
+public class SqlDataStore implements DataStore {
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS item (id INT PRIMARY KEY, history BOOLEAN NOT NULL, seq BIGINT NOT NULL, "
+            + "title VARCHAR, category VARCHAR, priority VARCHAR, added DATE, completed DATE)",
+        "CREATE INDEX IF NOT EXISTS item_category ON item (category)",
+        "CREATE TABLE IF NOT EXISTS category (position INT PRIMARY KEY, name VARCHAR NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS setting (name VARCHAR PRIMARY KEY, number INT)",
+        "CREATE TABLE IF NOT EXISTS last_set (category VARCHAR PRIMARY KEY, seed BIGINT, version BIGINT, ids VARCHAR)"
+    };
+    private static final String ITEM_COLUMNS = "id, history, seq, title, category, priority, added, completed";
+
+    @Value("${data.filepath}")
+    private String filepath;
+
+    @Value("${persistence.sql.url:}")
+    private String url;
+
+    @Value("${data.lastsets.flush-interval-ms:1000}")
+    private long lastSetsFlushIntervalMs;
+
+    private Connection connection;
+    private volatile Data filedata;
+    private volatile Map<String, LastSet> lastSets;
+    private final Object lastSetsLock = new Object();
+    private WriteBehindFlusher lastSetsFlusher;
+    private long nextSequence;
+    private final List<LogRecord> pendingRecords = new ArrayList<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!StringUtils.hasText(url)) {
+            url = "jdbc:h2:file:" + new File(filepath.replaceAll("\\.json$", "")).getAbsolutePath();
+        }
+        try {
+            log.info("Opening database: " + url);
+            connection = DriverManager.getConnection(url);
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("Could not open database: " + url, e);
+        }
+        reload();
+        lastSetsFlusher = new WriteBehindFlusher("last-sets-flush", this::writeLastSets, lastSetsFlushIntervalMs,
+            Long.MAX_VALUE);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, SQLException {
+        // The flusher writes through the connection too, so it has to be done before the connection is closed
+        if (lastSetsFlusher != null) {
+            lastSetsFlusher.close();
+        }
+        synchronized (this) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public synchronized void record(final LogRecord record) {
+        pendingRecords.add(record);
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        try {
+            // Recorded changes are made a row at a time, anything saved without a record rewrites every item
+            if (pendingRecords.isEmpty()) {
+                writeItems();
+            } else {
+                log.debug("Applying " + pendingRecords.size() + " records to: " + url);
+                for (LogRecord record : pendingRecords) {
+                    apply(record);
+                }
+            }
+            writeCategories();
+            writeSettings();
+            connection.commit();
+            pendingRecords.clear();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Could not save to database: " + url, e);
+        }
+    }
+
+    @Override
+    public void saveLastSets() throws IOException {
+        if (lastSetsFlusher != null) {
+            lastSetsFlusher.flush();
+        } else {
+            writeLastSets();
+        }
+    }
+
+    private synchronized void writeLastSets() throws IOException {
+        log.debug("Saving last sets to: " + url);
+        try (Statement delete = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO last_set (category, seed, version, ids) VALUES (?, ?, ?, ?)")) {
+            delete.execute("DELETE FROM last_set");
+            for (Map.Entry<String, LastSet> entry : lastSets.entrySet()) {
+                final LastSet lastSet = entry.getValue();
+                insert.setString(1, entry.getKey());
+                insert.setObject(2, lastSet.getSeed());
+                insert.setObject(3, lastSet.getVersion());
+                insert.setString(4, lastSet.getIds() != null ? Arrays.stream(lastSet.getIds())
+                    .mapToObj(String::valueOf).collect(Collectors.joining(",")) : null);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Could not save last sets to database: " + url, e);
+        }
+    }
+
+    @Override
+    public synchronized void reload() throws IOException {
+        // Everything is read into a version of its own, which is only published once all of it is there
+        Data loaded = new Data();
+        final Map<String, LastSet> loadedLastSets = new HashMap<>();
+        try {
+            pendingRecords.clear();
+            nextSequence = 0;
+            readItems(loaded);
+            readCategories(loaded);
+            readSettings(loaded);
+            readLastSets(loadedLastSets);
+        } catch (SQLException e) {
+            throw new IOException("Could not read from database: " + url, e);
+        }
+
+        // A new database starts out with whatever was in the save file, which is left where it is afterwards
+        final File file = new File(filepath);
+        final boolean importFile = loaded.getData().isEmpty() && loaded.getHistory().isEmpty()
+            && loaded.getCategories().isEmpty() && file.exists();
+        if (importFile) {
+            log.info("Importing save file into database: " + file.getAbsolutePath());
+            loaded = BinarySnapshotCodec.isBinary(file) ? new BinarySnapshotCodec().read(file, (r, t) -> {})
+                : new StreamingDataReader(mapper).read(file, (r, t) -> {});
+            if (loaded.getHistory() == null) {
+                loaded.setHistory(new ArrayList<>());
+            }
+            loaded.setLastSets(null);
+        }
+        filedata = loaded.freeze();
+        lastSets = loadedLastSets;
+        if (importFile) {
+            save();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        saveLastSets();
+        checkpoint();
+    }
+
+    private synchronized void checkpoint() throws IOException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CHECKPOINT SYNC");
+        } catch (SQLException e) {
+            throw new IOException("Could not flush database: " + url, e);
+        }
+    }
+
+    private void apply(final LogRecord record) throws SQLException {
+        switch (record.getType()) {
+            case SAVE_ITEM:
+                if (!updateItem(record.getItem())) {
+                    insertItem(record.getItem(), false);
+                }
+                break;
+            case REMOVE_ITEM:
+                update("DELETE FROM item WHERE id = ?", record.getId());
+                break;
+            case COMPLETE_ITEM:
+            case UNCOMPLETE_ITEM:
+                // Moving between lists puts the item at the end of the one it moved to
+                update("DELETE FROM item WHERE id = ?", record.getItem().getId());
+                insertItem(record.getItem(), record.getType() == RecordType.COMPLETE_ITEM);
+                break;
+            case EDIT_CATEGORY:
+                update("UPDATE item SET category = ? WHERE category = ? AND NOT history",
+                    record.getNewCategory(), record.getCategory());
+                break;
+            case REMOVE_CATEGORY:
+                if (record.getNewCategory() != null) {
+                    update("UPDATE item SET category = ? WHERE category = ? AND NOT history",
+                        record.getNewCategory(), record.getCategory());
+                } else {
+                    update("DELETE FROM item WHERE category = ? AND NOT history", record.getCategory());
+                }
+                break;
+            default:
+                // Adding a category only changes the category list, which is written every time
+        }
+    }
+
+    private boolean updateItem(final Item item) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+            "UPDATE item SET title = ?, category = ?, priority = ?, added = ?, completed = ? WHERE id = ?")) {
+            statement.setString(1, item.getTitle());
+            statement.setString(2, item.getCategory());
+            statement.setString(3, item.getPriority() != null ? item.getPriority().name() : null);
+            statement.setObject(4, item.getAdded());
+            statement.setObject(5, item.getCompleted());
+            statement.setObject(6, item.getId());
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    private void insertItem(final Item item, final boolean history) throws SQLException {
+        try (PreparedStatement statement = prepareInsert()) {
+            addItem(statement, item, history);
+            statement.executeUpdate();
+        }
+    }
+
+    private void writeItems() throws SQLException {
+        log.info("Writing all items to: " + url);
+        try (Statement delete = connection.createStatement(); PreparedStatement insert = prepareInsert()) {
+            delete.execute("DELETE FROM item");
+            nextSequence = 0;
+            for (Item item : filedata.getData()) {
+                addItem(insert, item, false);
+                insert.addBatch();
+            }
+            for (Item item : filedata.getHistory()) {
+                addItem(insert, item, true);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private PreparedStatement prepareInsert() throws SQLException {
+        return connection.prepareStatement("INSERT INTO item (" + ITEM_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    private void addItem(final PreparedStatement statement, final Item item, final boolean history)
+        throws SQLException {
+        statement.setObject(1, item.getId());
+        statement.setBoolean(2, history);
+        statement.setLong(3, nextSequence++);
+        statement.setString(4, item.getTitle());
+        statement.setString(5, item.getCategory());
+        statement.setString(6, item.getPriority() != null ? item.getPriority().name() : null);
+        statement.setObject(7, item.getAdded());
+        statement.setObject(8, item.getCompleted());
+    }
+
+    private void writeCategories() throws SQLException {
+        try (Statement delete = connection.createStatement(); PreparedStatement insert =
+            connection.prepareStatement("INSERT INTO category (position, name) VALUES (?, ?)")) {
+            delete.execute("DELETE FROM category");
+            for (int i = 0; i < filedata.getCategories().size(); i++) {
+                insert.setInt(1, i);
+                insert.setString(2, filedata.getCategories().get(i));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void writeSettings() throws SQLException {
+        try (PreparedStatement statement =
+            connection.prepareStatement("MERGE INTO setting (name, number) KEY (name) VALUES (?, ?)")) {
+            statement.setString(1, "defaultSetSize");
+            statement.setObject(2, filedata.getDefaultSetSize());
+            statement.addBatch();
+            statement.setString(1, "nextId");
+            statement.setObject(2, filedata.getNextId());
+            statement.addBatch();
+            statement.executeBatch();
+        }
+    }
+
+    private void readItems(final Data data) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery("SELECT " + ITEM_COLUMNS + " FROM item ORDER BY seq")) {
+            while (results.next()) {
+                final Item item = Item.builder()
+                    .id(results.getInt("id"))
+                    .title(results.getString("title"))
+                    .category(results.getString("category"))
+                    .priority(results.getString("priority") != null ? Priority.valueOf(results.getString("priority"))
+                        : null)
+                    .added(results.getObject("added", LocalDate.class))
+                    .completed(results.getObject("completed", LocalDate.class))
+                    .build();
+                (results.getBoolean("history") ? data.getHistory() : data.getData()).add(item);
+                nextSequence = results.getLong("seq") + 1;
+            }
+        }
+    }
+
+    private void readCategories(final Data data) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery("SELECT name FROM category ORDER BY position")) {
+            while (results.next()) {
+                data.getCategories().add(results.getString("name"));
+            }
+        }
+    }
+
+    private void readSettings(final Data data) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery("SELECT name, number FROM setting")) {
+            while (results.next()) {
+                if (results.getString("name").equals("defaultSetSize")) {
+                    data.setDefaultSetSize(results.getInt("number"));
+                } else if (results.getString("name").equals("nextId")) {
+                    data.setNextId(results.getInt("number"));
+                }
+            }
+        }
+    }
+
+    private void readLastSets(final Map<String, LastSet> lastSets) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery("SELECT category, seed, version, ids FROM last_set")) {
+            while (results.next()) {
+                final String ids = results.getString("ids");
+                lastSets.put(results.getString("category"), LastSet.builder()
+                    .seed(results.getObject("seed", Long.class))
+                    .version(results.getObject("version", Long.class))
+                    .ids(StringUtils.hasText(ids) ? Arrays.stream(ids.split(",")).mapToInt(Integer::parseInt).toArray()
+                        : ids != null ? new int[0] : null)
+                    .build());
+            }
+        }
+    }
+
+    private void update(final String sql, final Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("Could not roll back: " + url, e);
+        }
+    }
+
+    @Override
+    public Data getSnapshot() {
+        return filedata;
+    }
+
+    @Override
+    public List<Item> getData() {
+        return filedata.getData();
+    }
+
+    @Override
+    public void setData(final List<Item> data) {
+        update(d -> d.setData(data));
+    }
+
+    @Override
+    public List<Item> getHistory() {
+        return filedata.getHistory();
+    }
+
+    @Override
+    public void setHistory(final List<Item> history) {
+        update(d -> d.setHistory(history));
+    }
+
+    @Override
+    public List<String> getCategories() {
+        return filedata.getCategories();
+    }
+
+    @Override
+    public void setCategories(final List<String> categories) {
+        update(d -> d.setCategories(categories));
+    }
+
+    @Override
+    public synchronized void update(final Consumer<Data> change) {
+        filedata = filedata.next(change);
+    }
+
+    @Override
+    public Map<String, LastSet> getLastSets() {
+        return lastSets;
+    }
+
+    @Override
+    public void setLastSets(final Map<String, LastSet> lastSets) {
+        synchronized (lastSetsLock) {
+            this.lastSets = lastSets;
+        }
+        lastSetsChanged();
+    }
+
+    @Override
+    public void updateLastSets(final Consumer<Map<String, LastSet>> change) {
+        synchronized (lastSetsLock) {
+            final Map<String, LastSet> updated = new HashMap<>(lastSets);
+            change.accept(updated);
+            lastSets = updated;
+        }
+        lastSetsChanged();
+    }
+
+    private void lastSetsChanged() {
+        if (lastSetsFlusher != null) {
+            lastSetsFlusher.changed();
+        }
+    }
+
+    @Override
+    public Integer getDefaultSetSize() {
+        return filedata.getDefaultSetSize();
+    }
+
+    @Override
+    public synchronized void setDefaultSetSize(final Integer defaultSetSize) {
+        filedata = filedata.with(d -> d.setDefaultSetSize(defaultSetSize));
+    }
+
+    @Override
+    public synchronized Integer getNextId() {
+        final Integer nextId = filedata.getNextId();
+        filedata = filedata.with(d -> d.setNextId(nextId + 1));
+        return nextId;
+    }
+}
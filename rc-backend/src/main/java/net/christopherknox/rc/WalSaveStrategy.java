@@ -0,0 +1,97 @@
+package net.christopherknox.rc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.persistence.FsyncPolicy;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Appends each recorded change to a log, and only writes the whole save file as a checkpoint every so many records
+@Slf4j
+class WalSaveStrategy implements SaveStrategy {
+
+    private final DataHandler handler;
+    private final Path path;
+    private final WriteAheadLog wal;
+    private final long checkpointRecords;
+    private final List<LogRecord> pendingRecords = new ArrayList<>();
+
+    WalSaveStrategy(final DataHandler handler, final Path path, final FsyncPolicy fsyncPolicy,
+        final long syncIntervalMs, final long checkpointRecords) throws IOException {
+        this.handler = handler;
+        this.path = path;
+        this.checkpointRecords = checkpointRecords;
+        wal = new WriteAheadLog(path, fsyncPolicy, syncIntervalMs);
+    }
+
+    @Override
+    public Data read() throws IOException {
+        pendingRecords.clear();
+        return handler.readSnapshot();
+    }
+
+    @Override
+    public void replay(final Data loaded, final HistoryStrategy history) {
+        try {
+            // Only records newer than the last checkpoint are applied, older ones are already in the snapshot
+            final List<LogRecord> records = wal.read(loaded.getLogSequence() != null ? loaded.getLogSequence() : 0);
+            for (LogRecord record : records) {
+                LogRecords.apply(loaded, record);
+                if (LogRecords.changesHistory(record)) {
+                    history.apply(loaded, record);
+                }
+            }
+            log.info("Replayed " + records.size() + " records");
+        } catch (IOException e) {
+            log.warn("Could not replay log: " + path, e);
+        }
+    }
+
+    @Override
+    public void record(final LogRecord record) {
+        pendingRecords.add(record);
+    }
+
+    @Override
+    public void save(final boolean archived) throws IOException {
+        // Changes that were recorded are appended to the log, anything saved without a record needs a full checkpoint
+        if (pendingRecords.isEmpty() || archived) {
+            checkpoint();
+            return;
+        }
+        handler.writeUnloggedHistory();
+        log.debug("Appending " + pendingRecords.size() + " records to: " + path);
+        wal.append(pendingRecords);
+        pendingRecords.clear();
+        if (wal.getRecordCount() >= checkpointRecords) {
+            checkpoint();
+        }
+    }
+
+    @Override
+    public boolean checkpoint() throws IOException {
+        log.info("Checkpointing to: " + handler.getSaveFile().getAbsolutePath());
+        handler.applyDeferredHistory();
+        pendingRecords.clear();
+        final Long logSequence = wal.getLastSequence();
+        handler.publish(d -> d.setLogSequence(logSequence));
+        handler.writeSnapshot(wal.getFsyncPolicy() != FsyncPolicy.OS);
+        wal.truncate();
+        return true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        wal.sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        wal.close();
+    }
+}
@@ -0,0 +1,41 @@
+package net.christopherknox.rc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.persistence.WriteBehindFlusher;
+
+import java.io.IOException;
+
+// Writes the whole save file on a thread of its own a little while after changes, taking in every change made by then
+@Slf4j
+class WriteBehindSaveStrategy implements SaveStrategy {
+
+    private final DataHandler handler;
+    private final WriteBehindFlusher flusher;
+
+    WriteBehindSaveStrategy(final DataHandler handler, final long intervalMs, final long maxPendingChanges) {
+        this.handler = handler;
+        flusher = new WriteBehindFlusher(() -> handler.writeSnapshot(true), intervalMs, maxPendingChanges);
+    }
+
+    @Override
+    public Data read() throws IOException {
+        return handler.readSnapshot();
+    }
+
+    @Override
+    public void save(final boolean archived) {
+        flusher.changed();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flusher.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.info("Flushing changes before shutdown");
+        flusher.close();
+    }
+}
@@ -0,0 +1,75 @@
+package net.christopherknox.rc.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+import net.christopherknox.rc.SnapshotList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Getter
+@Setter
+public class Data {
+    private List<Item> data;
+    private List<Item> history;
+    private List<String> categories;
+    // Only read from older save files, last sets are saved on their own now
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, List<Item>> lastSets;
+    private Integer defaultSetSize;
+    private Integer nextId;
+    private Long logSequence;
+
+    public Data() {
+        data = new ArrayList<>();
+        history = new ArrayList<>();
+        categories = new ArrayList<>();
+        defaultSetSize = 3;
+        nextId = 1;
+        logSequence = 0L;
+    }
+
+    public Data(final Data data) {
+        this.data = data.data;
+        this.history = data.history;
+        this.categories = data.categories;
+        this.lastSets = data.lastSets;
+        this.defaultSetSize = data.defaultSetSize;
+        this.nextId = data.nextId;
+        this.logSequence = data.logSequence;
+    }
+
+    public Data with(final Consumer<Data> change) {
+        // Published versions are never changed, so the change goes into a copy which then takes their place
+        final Data next = new Data(this);
+        change.accept(next);
+        return next;
+    }
+
+    public Data next(final Consumer<Data> change) {
+        // Each list the change sets is published as the next version of the one it replaces, so it keeps its lineage
+        final Data next = with(change);
+        if (next.data != data) {
+            next.data = SnapshotList.next(data, next.data);
+        }
+        if (next.history != history && next.history != null) {
+            next.history = SnapshotList.next(history, next.history);
+        }
+        if (next.categories != categories) {
+            next.categories = SnapshotList.next(categories, next.categories);
+        }
+        return next;
+    }
+
+    public Data freeze() {
+        data = SnapshotList.of(data);
+        categories = SnapshotList.of(categories);
+        if (history != null) {
+            history = SnapshotList.of(history);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,23 @@
+package net.christopherknox.rc.persistence;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+public class AtomicFiles {
+
+    public static void write(final File file, final byte[] bytes, final boolean sync) throws IOException {
+        // Write next to the real file and swap it in, so a crash part way through leaves the old one whole
+        final File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(bytes);
+            if (sync) {
+                out.getChannel().force(true);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,315 @@
+package net.christopherknox.rc.persistence;
+
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BinarySnapshotCodec {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = { 'R', 'C', 'B', 'S' };
+    private static final byte KIND_DATA = 1;
+    private static final byte KIND_ITEMS = 2;
+    private static final byte KIND_SHARD = 3;
+    private static final int PROGRESS_INTERVAL = 256;
+    private static final int BYTES_PER_ITEM = 48;
+
+    public static boolean isBinary(final File file) throws IOException {
+        final byte[] header = new byte[MAGIC.length];
+        try (InputStream in = new FileInputStream(file)) {
+            return in.readNBytes(header, 0, header.length) == header.length && Arrays.equals(MAGIC, header);
+        }
+    }
+
+    public static boolean isItems(final File file) throws IOException {
+        final byte[] header = new byte[MAGIC.length + 2];
+        try (InputStream in = new FileInputStream(file)) {
+            return in.readNBytes(header, 0, header.length) == header.length
+                && Arrays.equals(MAGIC, Arrays.copyOf(header, MAGIC.length)) && header[MAGIC.length + 1] == KIND_ITEMS;
+        }
+    }
+
+    public byte[] write(final Data data) {
+        final Map<String, Integer> strings = new HashMap<>();
+        final List<String> table = new ArrayList<>();
+        if (data.getCategories() != null) {
+            data.getCategories().forEach(c -> intern(c, strings, table));
+        }
+        internCategories(data.getData(), strings, table);
+        internCategories(data.getHistory(), strings, table);
+
+        final Output out = new Output(size(data.getData()) + size(data.getHistory()));
+        writeHeader(out, KIND_DATA, table);
+        if (data.getCategories() == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(data.getCategories().size());
+            for (String category : data.getCategories()) {
+                out.writeInt(category != null ? strings.get(category) : -1);
+            }
+        }
+        writeInteger(out, data.getDefaultSetSize());
+        writeInteger(out, data.getNextId());
+        out.writeBoolean(data.getLogSequence() != null);
+        if (data.getLogSequence() != null) {
+            out.writeLong(data.getLogSequence());
+        }
+        writeItems(out, data.getData(), strings);
+        writeItems(out, data.getHistory(), strings);
+        return out.toByteArray();
+    }
+
+    public byte[] write(final List<Item> items) {
+        final Map<String, Integer> strings = new HashMap<>();
+        final List<String> table = new ArrayList<>();
+        internCategories(items, strings, table);
+
+        final Output out = new Output(size(items));
+        writeHeader(out, KIND_ITEMS, table);
+        writeItems(out, items, strings);
+        return out.toByteArray();
+    }
+
+    public byte[] write(final Shard shard) {
+        final Map<String, Integer> strings = new HashMap<>();
+        final List<String> table = new ArrayList<>();
+        internCategories(shard.getItems(), strings, table);
+
+        final Output out = new Output(size(shard.getItems()));
+        writeHeader(out, KIND_SHARD, table);
+        writeItems(out, shard.getItems(), strings);
+        out.writeInt(shard.getSequences().length);
+        for (long sequence : shard.getSequences()) {
+            out.writeLong(sequence);
+        }
+        return out.toByteArray();
+    }
+
+    public Data read(final File file, final ProgressListener listener) throws IOException {
+        final ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        final Data data = new Data();
+        try {
+            final String[] table = readHeader(in, KIND_DATA);
+            final int categoryCount = in.getInt();
+            if (categoryCount < 0) {
+                data.setCategories(null);
+            } else {
+                final List<String> categories = new ArrayList<>(Math.min(categoryCount, in.remaining()));
+                for (int i = 0; i < categoryCount; i++) {
+                    categories.add(readString(in.getInt(), table));
+                }
+                data.setCategories(categories);
+            }
+            data.setDefaultSetSize(readInteger(in));
+            data.setNextId(readInteger(in));
+            data.setLogSequence(in.get() != 0 ? in.getLong() : null);
+            data.setData(readItems(in, table, listener));
+            data.setHistory(readItems(in, table, listener));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Snapshot is cut short or corrupt: " + file, e);
+        }
+        listener.progress(in.capacity(), in.capacity());
+        return data;
+    }
+
+    public List<Item> readItems(final File file, final ProgressListener listener) throws IOException {
+        final ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        final List<Item> items;
+        try {
+            items = readItems(in, readHeader(in, KIND_ITEMS), listener);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Snapshot is cut short or corrupt: " + file, e);
+        }
+        listener.progress(in.capacity(), in.capacity());
+        return items;
+    }
+
+    public Shard readShard(final File file, final ProgressListener listener) throws IOException {
+        final ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        final Shard shard = new Shard();
+        try {
+            // Shards written as a plain list of items are from before each shard kept its own order
+            final boolean items = in.capacity() > MAGIC.length + 1 && in.get(MAGIC.length + 1) == KIND_ITEMS;
+            shard.setItems(readItems(in, readHeader(in, items ? KIND_ITEMS : KIND_SHARD), listener));
+            if (!items) {
+                final int count = in.getInt();
+                if (count < 0 || count > in.remaining() / Long.BYTES) {
+                    throw new IOException("Snapshot is cut short or corrupt: " + file);
+                }
+                final long[] sequences = new long[count];
+                for (int i = 0; i < sequences.length; i++) {
+                    sequences[i] = in.getLong();
+                }
+                shard.setSequences(sequences);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Snapshot is cut short or corrupt: " + file, e);
+        }
+        listener.progress(in.capacity(), in.capacity());
+        return shard;
+    }
+
+    private static void intern(final String value, final Map<String, Integer> strings, final List<String> table) {
+        if (value != null && !strings.containsKey(value)) {
+            strings.put(value, table.size());
+            table.add(value);
+        }
+    }
+
+    private static void internCategories(final List<Item> items, final Map<String, Integer> strings,
+        final List<String> table) {
+        if (items != null) {
+            items.forEach(i -> intern(i.getCategory(), strings, table));
+        }
+    }
+
+    private static void writeHeader(final Output out, final byte kind, final List<String> table) {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(kind);
+
+        // Categories are written once up front, and everything after refers to them by their place in this table
+        out.writeInt(table.size());
+        for (String value : table) {
+            writeString(out, value);
+        }
+    }
+
+    private static String[] readHeader(final ByteBuffer in, final byte kind) throws IOException {
+        final byte[] magic = new byte[MAGIC.length];
+        in.get(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Not a binary snapshot");
+        }
+        final int version = in.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary snapshot version: " + version);
+        }
+        if (in.get() != kind) {
+            throw new IOException(kind == KIND_DATA ? "Expected a save file snapshot" : "Expected a list of items");
+        }
+        final int size = in.getInt();
+        if (size < 0 || size > in.remaining()) {
+            throw new IOException("Snapshot string table is corrupt");
+        }
+        final String[] table = new String[size];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = ItemCodec.readString(in);
+        }
+        return table;
+    }
+
+    private static void writeItems(final Output out, final List<Item> items,
+        final Map<String, Integer> strings) {
+        if (items == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(items.size());
+        for (Item item : items) {
+            ItemCodec.write(out.ensure(ItemCodec.maxSize(item)), item, strings::get);
+        }
+    }
+
+    private static List<Item> readItems(final ByteBuffer in, final String[] table, final ProgressListener listener) {
+        final int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        final List<Item> items = new ArrayList<>(Math.min(count, in.remaining()));
+        long reported = -1;
+        for (int i = 0; i < count; i++) {
+            items.add(ItemCodec.read(in, c -> table[c]));
+            if (items.size() % PROGRESS_INTERVAL != 0) {
+                continue;
+            }
+
+            // Only tell the listener when another whole percent of the file has gone by
+            final long percent = (long) in.position() * 100 / in.capacity();
+            if (percent > reported) {
+                reported = percent;
+                listener.progress(in.position(), in.capacity());
+            }
+        }
+        return items;
+    }
+
+    private static void writeInteger(final Output out, final Integer value) {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(final ByteBuffer in) {
+        return in.get() != 0 ? in.getInt() : null;
+    }
+
+    private static void writeString(final Output out, final String value) {
+        ItemCodec.writeString(out.ensure(Integer.BYTES + 3 * value.length()), value);
+    }
+
+    private static int size(final List<Item> items) {
+        return items != null ? items.size() : 0;
+    }
+
+    private static String readString(final int index, final String[] table) {
+        return index >= 0 ? table[index] : null;
+    }
+
+    // Writes straight into one growing array, which is much quicker than going through a stream a few bytes at a time
+    private static final class Output {
+
+        private ByteBuffer buffer;
+
+        private Output(final int items) {
+            buffer = ByteBuffer.allocate(Math.max(1024, items * BYTES_PER_ITEM));
+        }
+
+        private void write(final byte[] bytes) {
+            ensure(bytes.length).put(bytes);
+        }
+
+        private void writeByte(final int value) {
+            ensure(Byte.BYTES).put((byte) value);
+        }
+
+        private void writeBoolean(final boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        private void writeInt(final int value) {
+            ensure(Integer.BYTES).putInt(value);
+        }
+
+        private void writeLong(final long value) {
+            ensure(Long.BYTES).putLong(value);
+        }
+
+        private ByteBuffer ensure(final int bytes) {
+            if (buffer.remaining() < bytes) {
+                final ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                buffer = grown.put(buffer);
+            }
+            return buffer;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+}
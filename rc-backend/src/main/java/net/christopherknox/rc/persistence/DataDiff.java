@@ -0,0 +1,61 @@
+package net.christopherknox.rc.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.christopherknox.rc.model.Item;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Getter
+public class DataDiff {
+
+    private final List<Item> added = new ArrayList<>();
+    private final List<Item> removed = new ArrayList<>();
+    private final List<Change> changed = new ArrayList<>();
+
+    public static DataDiff between(final List<Item> current, final List<Item> updated) {
+        final DataDiff diff = new DataDiff();
+        final Map<Integer, Item> byId = new HashMap<>();
+        current.forEach(i -> byId.put(i.getId(), i));
+        for (Item item : updated) {
+            final Item before = byId.remove(item.getId());
+            if (before == null) {
+                diff.added.add(item);
+            } else if (!before.equals(item)) {
+                diff.changed.add(new Change(before, item));
+            }
+        }
+        diff.removed.addAll(byId.values());
+        return diff;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    public void apply(final List<Item> items) {
+        // Changes are made to the list given, so published lists are copied before being handed in
+        if (!removed.isEmpty()) {
+            final Set<Integer> ids = removed.stream().map(Item::getId).collect(Collectors.toSet());
+            items.removeIf(i -> ids.contains(i.getId()));
+        }
+        if (!changed.isEmpty()) {
+            final Map<Integer, Item> updates = new HashMap<>();
+            changed.forEach(c -> updates.put(c.getAfter().getId(), c.getAfter()));
+            items.replaceAll(i -> updates.getOrDefault(i.getId(), i));
+        }
+        items.addAll(added);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Change {
+        private final Item before;
+        private final Item after;
+    }
+}
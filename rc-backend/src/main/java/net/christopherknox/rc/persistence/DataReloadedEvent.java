@@ -0,0 +1,11 @@
+package net.christopherknox.rc.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class DataReloadedEvent {
+    private final DataDiff data;
+    private final DataDiff history;
+}
@@ -0,0 +1,85 @@
+package net.christopherknox.rc.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class FileWatcher implements Closeable {
+
+    private final Path file;
+    private final long debounceMs;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread watcher;
+
+    public FileWatcher(final Path file, final long debounceMs, final Runnable onChange) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.debounceMs = debounceMs;
+        this.onChange = onChange;
+
+        // Files are usually replaced by moving a new one over them, so the whole directory is watched for the name
+        watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(this::watch, "file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching for changes to: " + this.file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        try {
+            watcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!changed(watchService.take())) {
+                    continue;
+                }
+
+                // Editors and copies tend to write in several goes, so wait until it has been quiet for a while
+                WatchKey key;
+                while ((key = watchService.poll(debounceMs, TimeUnit.MILLISECONDS)) != null) {
+                    changed(key);
+                }
+                try {
+                    onChange.run();
+                } catch (Exception e) {
+                    log.warn("Could not handle change to: " + file, e);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Stopped watching: " + file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean changed(final WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,7 @@
+package net.christopherknox.rc.persistence;
+
+public enum FsyncPolicy {
+    ALWAYS,
+    BATCHED,
+    OS
+}
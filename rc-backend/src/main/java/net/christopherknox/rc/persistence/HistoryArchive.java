@@ -0,0 +1,555 @@
+package net.christopherknox.rc.persistence;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Item;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Older completed items are moved out of the live history into compressed segment files, one or more per month they
+// were completed in. A segment is never written to again once it is sealed, so removing an archived item only adds its
+// place in the segment to a small list of removed items that is skipped over when reading, and saved with the history.
+// The index keeps the ID and title of every archived item, so finding one only reads the segment it is in.
+@Slf4j
+public class HistoryArchive {
+
+    private final Path directory;
+    private final ObjectMapper mapper;
+    private final List<Segment> segments = new ArrayList<>();
+    // Removed items by their place in a segment rather than their ID, since an item can be unmarked, completed again
+    // and archived into a later segment as well
+    private final Map<String, Set<Integer>> removed = new HashMap<>();
+    private boolean removedChanged;
+    // The last segment read, since items looked up one at a time are usually next to each other
+    private Segment cachedSegment;
+    private List<Item> cachedItems;
+
+    public HistoryArchive(final Path directory, final ObjectMapper mapper) throws IOException {
+        this.directory = directory;
+        this.mapper = mapper;
+        Files.createDirectories(directory);
+        if (Files.exists(getIndexPath())) {
+            segments.addAll(mapper.readValue(getIndexPath().toFile(), new TypeReference<List<Segment>>() {}));
+        }
+        if (segments.stream().anyMatch(s -> s.getIds() == null || s.getTitles() == null)) {
+            // Archives from before the index kept IDs and titles are read through once to add them
+            log.info("Indexing archived history in: " + directory.toAbsolutePath());
+            for (Segment segment : segments) {
+                if (segment.getIds() == null || segment.getTitles() == null) {
+                    index(segment, readItems(segment));
+                }
+            }
+            AtomicFiles.write(getIndexPath().toFile(), mapper.writeValueAsBytes(segments), true);
+        }
+        if (Files.exists(getRemovedPath())) {
+            final JsonNode node = mapper.readTree(getRemovedPath().toFile());
+            if (node.isArray()) {
+                // Archives from before removals were kept by place had a list of IDs, which covered every place
+                final Set<Integer> ids = mapper.convertValue(node, new TypeReference<Set<Integer>>() {});
+                for (Segment segment : segments) {
+                    for (int position = 0; position < segment.getIds().size(); position++) {
+                        if (ids.contains(segment.getIds().get(position))) {
+                            removed.computeIfAbsent(segment.getFile(), f -> new HashSet<>()).add(position);
+                        }
+                    }
+                }
+                AtomicFiles.write(getRemovedPath().toFile(), mapper.writeValueAsBytes(removed), true);
+            } else {
+                removed.putAll(mapper.convertValue(node, new TypeReference<Map<String, Set<Integer>>>() {}));
+            }
+        }
+        log.info("Opened " + size() + " archived history items in " + segments.size() + " segments from: "
+            + directory.toAbsolutePath());
+    }
+
+    public synchronized int archive(final List<Item> history, final LocalDate cutoff) throws IOException {
+        // Only whole months that finished before the cutoff are archived, so no month ever needs adding to later
+        final Map<YearMonth, List<Item>> months = new TreeMap<>();
+        for (Item item : history) {
+            if (item.getCompleted() != null && YearMonth.from(item.getCompleted()).atEndOfMonth().isBefore(cutoff)) {
+                months.computeIfAbsent(YearMonth.from(item.getCompleted()), m -> new ArrayList<>()).add(item);
+            }
+        }
+
+        int moved = 0;
+        for (Map.Entry<YearMonth, List<Item>> month : months.entrySet()) {
+            // If the last archive was cut short before the live history was saved, its items are already here
+            final Set<Integer> archived = getArchivedIds(month.getKey());
+            final List<Item> items = month.getValue().stream()
+                .filter(i -> !archived.contains(i.getId())).collect(Collectors.toList());
+            if (!items.isEmpty()) {
+                writeSegment(month.getKey(), items);
+            }
+            moved += month.getValue().size();
+        }
+        if (moved > 0) {
+            final Set<Item> toRemove = months.values().stream().flatMap(List::stream).collect(Collectors.toSet());
+            history.removeIf(toRemove::contains);
+        }
+        return moved;
+    }
+
+    public List<Item> view(final List<Item> history) {
+        return new ArchivedHistory(this, history);
+    }
+
+    public static List<Item> live(final List<Item> history) {
+        return history instanceof ArchivedHistory ? ((ArchivedHistory) history).live : history;
+    }
+
+    public synchronized void save(final boolean sync) throws IOException {
+        // Removals are only made in memory, and written out when the history they were made along with is saved
+        if (removedChanged) {
+            AtomicFiles.write(getRemovedPath().toFile(), mapper.writeValueAsBytes(removed), sync);
+            removedChanged = false;
+        }
+    }
+
+    public synchronized int size() {
+        return size(segments, removed);
+    }
+
+    private static int size(final List<Segment> segments, final Map<String, Set<Integer>> removed) {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.getCount() - getRemoved(removed, segment).size();
+        }
+        return size;
+    }
+
+    private synchronized <T> T at(final int index, final BiFunction<Segment, Integer, T> action) {
+        return at(segments, removed, index, action);
+    }
+
+    private synchronized <T> T at(final List<Segment> segments, final Map<String, Set<Integer>> removed,
+        final int index, final BiFunction<Segment, Integer, T> action) {
+        // Whole segments are skipped by their counts, and only the one the item is in gets looked through
+        int remaining = index;
+        for (Segment segment : segments) {
+            final Set<Integer> removedPositions = getRemoved(removed, segment);
+            if (remaining >= segment.getCount() - removedPositions.size()) {
+                remaining -= segment.getCount() - removedPositions.size();
+                continue;
+            }
+            for (int position = 0; position < segment.getCount(); position++) {
+                if (!removedPositions.contains(position) && remaining-- == 0) {
+                    return action.apply(segment, position);
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size(segments, removed));
+    }
+
+    private Item get(final int index) {
+        return at(index, (segment, position) -> getItems(segment).get(position));
+    }
+
+    private Item remove(final int index) {
+        return at(index, (segment, position) -> {
+            final Item item = getItems(segment).get(position);
+            remove(segment, position);
+            return item;
+        });
+    }
+
+    private synchronized int indexOfId(final Integer id) {
+        return indexOfId(segments, removed, id);
+    }
+
+    private static int indexOfId(final List<Segment> segments, final Map<String, Set<Integer>> removed,
+        final Integer id) {
+        int index = 0;
+        for (Segment segment : segments) {
+            final Set<Integer> removedPositions = getRemoved(removed, segment);
+            for (int position = 0; position < segment.getIds().size(); position++) {
+                if (removedPositions.contains(position)) {
+                    continue;
+                } else if (segment.getIds().get(position).equals(id)) {
+                    return index;
+                }
+                index++;
+            }
+        }
+        return -1;
+    }
+
+    private synchronized List<Item> findByTitle(final Predicate<String> matches) {
+        return findByTitle(segments, removed, matches);
+    }
+
+    private synchronized List<Item> findByTitle(final List<Segment> segments,
+        final Map<String, Set<Integer>> removed, final Predicate<String> matches) {
+        final List<Item> found = new ArrayList<>();
+        for (Segment segment : segments) {
+            final Set<Integer> removedPositions = getRemoved(removed, segment);
+            for (int position = 0; position < segment.getTitles().size(); position++) {
+                final String title = segment.getTitles().get(position);
+                if (title != null && matches.test(title) && !removedPositions.contains(position)) {
+                    found.add(getItems(segment).get(position));
+                }
+            }
+        }
+        return found;
+    }
+
+    private synchronized void remove(final Segment segment, final int position) {
+        removed.computeIfAbsent(segment.getFile(), f -> new HashSet<>()).add(position);
+        removedChanged = true;
+    }
+
+    private synchronized List<Segment> getSegments() {
+        return new ArrayList<>(segments);
+    }
+
+    private synchronized Map<String, Set<Integer>> getRemoved() {
+        final Map<String, Set<Integer>> copy = new HashMap<>();
+        removed.forEach((file, positions) -> copy.put(file, new HashSet<>(positions)));
+        return copy;
+    }
+
+    private Set<Integer> getRemoved(final Segment segment) {
+        return getRemoved(removed, segment);
+    }
+
+    private static Set<Integer> getRemoved(final Map<String, Set<Integer>> removed, final Segment segment) {
+        return removed.getOrDefault(segment.getFile(), Set.of());
+    }
+
+    private void writeSegment(final YearMonth month, final List<Item> items) throws IOException {
+        String file = "history-" + month + ".json.gz";
+        for (int part = 2; Files.exists(directory.resolve(file)); part++) {
+            file = "history-" + month + "-" + part + ".json.gz";
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            mapper.writeValue(out, items);
+        }
+
+        // The segment has to be safely on disk before its items can be dropped from the live history
+        log.info("Archiving " + items.size() + " completed items from " + month + " to: " + file);
+        AtomicFiles.write(directory.resolve(file).toFile(), bytes.toByteArray(), true);
+        final Segment segment = Segment.builder().file(file).month(month.toString()).count(items.size()).build();
+        index(segment, items);
+        segments.add(segment);
+        AtomicFiles.write(getIndexPath().toFile(), mapper.writeValueAsBytes(segments), true);
+    }
+
+    private Set<Integer> getArchivedIds(final YearMonth month) {
+        final Set<Integer> ids = new HashSet<>();
+        for (Segment segment : segments) {
+            if (segment.getMonth().equals(month.toString())) {
+                final Set<Integer> removedPositions = getRemoved(segment);
+                for (int position = 0; position < segment.getIds().size(); position++) {
+                    if (!removedPositions.contains(position)) {
+                        ids.add(segment.getIds().get(position));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void index(final Segment segment, final List<Item> items) {
+        segment.setIds(items.stream().map(Item::getId).collect(Collectors.toList()));
+        segment.setTitles(items.stream().map(Item::getTitle).collect(Collectors.toList()));
+    }
+
+    private List<Item> getItems(final Segment segment) {
+        if (segment != cachedSegment) {
+            try {
+                cachedItems = readItems(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read history archive: " + directory, e);
+            }
+            cachedSegment = segment;
+        }
+        return cachedItems;
+    }
+
+    private List<Item> readItems(final Segment segment) throws IOException {
+        try (MappingIterator<Item> items = readSegment(segment)) {
+            return items.readAll();
+        }
+    }
+
+    private MappingIterator<Item> readSegment(final Segment segment) throws IOException {
+        final InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve(segment.getFile())));
+        return mapper.readerFor(Item.class).readValues(in);
+    }
+
+    private Path getIndexPath() {
+        return directory.resolve("index.json");
+    }
+
+    private Path getRemovedPath() {
+        return directory.resolve("removed.json");
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Segment {
+        private String file;
+        private String month;
+        private int count;
+        private List<Integer> ids;
+        private List<String> titles;
+    }
+
+    // The archived items, oldest month first, followed by the live history, read a segment at a time as it goes. A
+    // snapshot keeps the segments and removed items as they were, since sealed segments never change, and can't be
+    // changed itself
+    private static class ArchivedHistory extends AbstractList<Item>
+        implements IndexedById, IndexedByTitle, SnapshotSource {
+
+        private final HistoryArchive archive;
+        private List<Item> live;
+        private final List<Segment> segments;
+        private final Map<String, Set<Integer>> removed;
+
+        private ArchivedHistory(final HistoryArchive archive, final List<Item> live) {
+            this(archive, live, null, null);
+        }
+
+        private ArchivedHistory(final HistoryArchive archive, final List<Item> live, final List<Segment> segments,
+            final Map<String, Set<Integer>> removed) {
+            this.archive = archive;
+            this.live = live;
+            this.segments = segments;
+            this.removed = removed;
+        }
+
+        @Override
+        public List<Item> snapshot() {
+            final List<Item> liveSnapshot = live instanceof SnapshotSource ? ((SnapshotSource) live).snapshot()
+                : live instanceof SnapshotList ? live : SnapshotList.of(live);
+            synchronized (archive) {
+                return new ArchivedHistory(archive, liveSnapshot, archive.getSegments(), archive.getRemoved());
+            }
+        }
+
+        private boolean isSnapshot() {
+            return segments != null;
+        }
+
+        private int archivedSize() {
+            return isSnapshot() ? HistoryArchive.size(segments, removed) : archive.size();
+        }
+
+        @Override
+        public Item get(final int index) {
+            final int archived = archivedSize();
+            if (index >= archived) {
+                return live.get(index - archived);
+            } else if (index < 0) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            } else if (isSnapshot()) {
+                return archive.at(segments, removed, index, (segment, position) ->
+                    archive.getItems(segment).get(position));
+            }
+            return archive.get(index);
+        }
+
+        @Override
+        public int indexOfId(final Integer id) {
+            final int index = isSnapshot() ? HistoryArchive.indexOfId(segments, removed, id) : archive.indexOfId(id);
+            if (index >= 0) {
+                return index;
+            }
+            int liveIndex = -1;
+            if (live instanceof IndexedById) {
+                liveIndex = ((IndexedById) live).indexOfId(id);
+            } else {
+                for (int i = 0; i < live.size() && liveIndex < 0; i++) {
+                    if (live.get(i).getId().equals(id)) {
+                        liveIndex = i;
+                    }
+                }
+            }
+            return liveIndex >= 0 ? archivedSize() + liveIndex : -1;
+        }
+
+        @Override
+        public List<Item> findByTitle(final Predicate<String> matches) {
+            final List<Item> found = isSnapshot() ? archive.findByTitle(segments, removed, matches)
+                : archive.findByTitle(matches);
+            live.stream().filter(i -> i.getTitle() != null && matches.test(i.getTitle())).forEach(found::add);
+            return found;
+        }
+
+        @Override
+        public int size() {
+            return archivedSize() + live.size();
+        }
+
+        private void checkChangeable() {
+            if (isSnapshot()) {
+                throw new UnsupportedOperationException("A snapshot of the history can't be changed");
+            }
+        }
+
+        private List<Item> edit() {
+            checkChangeable();
+            // A published live history never changes, so the first change made through the view goes into a copy
+            live = SnapshotList.edit(live);
+            return live;
+        }
+
+        @Override
+        public void add(final int index, final Item item) {
+            if (index != size()) {
+                throw new UnsupportedOperationException("History can only be added to at the end");
+            }
+            edit().add(item);
+            modCount++;
+        }
+
+        @Override
+        public Item set(final int index, final Item item) {
+            final int archived = archivedSize();
+            if (index >= archived) {
+                return edit().set(index - archived, item);
+            }
+
+            // Archived items can't be changed in place, so the new copy goes into the live history instead
+            final Item replaced = remove(index);
+            edit().add(item);
+            return replaced;
+        }
+
+        @Override
+        public Item remove(final int index) {
+            final int archived = archivedSize();
+            if (index >= archived) {
+                modCount++;
+                return edit().remove(index - archived);
+            }
+            checkChangeable();
+            final Item removed = archive.remove(index);
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        public Iterator<Item> iterator() {
+            return new Iterator<>() {
+                private final Iterator<Segment> segments =
+                    (isSnapshot() ? ArchivedHistory.this.segments : archive.getSegments()).iterator();
+                private final Map<String, Set<Integer>> removed =
+                    isSnapshot() ? ArchivedHistory.this.removed : archive.getRemoved();
+                private Segment segment;
+                private MappingIterator<Item> segmentItems;
+                private int position;
+                private Iterator<Item> liveItems;
+                private int liveIndex;
+                private Item next;
+                private Segment nextSegment;
+                private int nextPosition;
+                private Item current;
+                private Segment currentSegment;
+                private int currentPosition;
+                private boolean currentArchived;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        next = advance();
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Item next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    current = next;
+                    currentSegment = nextSegment;
+                    currentPosition = nextPosition;
+                    currentArchived = liveItems == null;
+                    if (!currentArchived) {
+                        liveIndex++;
+                    }
+                    next = null;
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException();
+                    } else if (currentArchived) {
+                        checkChangeable();
+                        archive.remove(currentSegment, currentPosition);
+                    } else {
+                        // The live history may be a copy made since this started, so it is removed from by position
+                        edit().remove(--liveIndex);
+                    }
+                    current = null;
+                    modCount++;
+                }
+
+                private Item advance() {
+                    try {
+                        while (liveItems == null) {
+                            if (segmentItems != null && segmentItems.hasNextValue()) {
+                                final Item item = segmentItems.nextValue();
+                                if (!removed.getOrDefault(segment.getFile(), Set.of()).contains(position++)) {
+                                    nextSegment = segment;
+                                    nextPosition = position - 1;
+                                    return item;
+                                }
+                            } else if (segments.hasNext()) {
+                                if (segmentItems != null) {
+                                    segmentItems.close();
+                                }
+                                segment = segments.next();
+                                segmentItems = archive.readSegment(segment);
+                                position = 0;
+                            } else {
+                                if (segmentItems != null) {
+                                    segmentItems.close();
+                                }
+                                liveItems = live.iterator();
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not read history archive: " + archive.directory, e);
+                    }
+                    return liveItems.hasNext() ? liveItems.next() : null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package net.christopherknox.rc.persistence;
+
+// History that isn't all on the heap keeps its own table of where each ID is, so finding one item doesn't mean reading
+// back every item before it
+public interface IndexedById {
+
+    // Where the item with this ID is in the list, or -1 if it isn't there
+    int indexOfId(Integer id);
+}
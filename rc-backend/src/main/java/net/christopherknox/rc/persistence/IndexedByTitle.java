@@ -0,0 +1,12 @@
+package net.christopherknox.rc.persistence;
+
+import net.christopherknox.rc.model.Item;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+// History that keeps the titles of items it hasn't read in, so finding items by title only reads the ones that match
+public interface IndexedByTitle {
+
+    List<Item> findByTitle(Predicate<String> matches);
+}
@@ -0,0 +1,110 @@
+package net.christopherknox.rc.persistence;
+
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.Priority;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+// How one item is laid out in binary, for both snapshots and mapped history. Categories are written as a number that
+// the caller looks up in a table of its own
+final class ItemCodec {
+
+    // Each item starts with a byte saying which of its fields follow, so empty fields take up no room at all
+    private static final int HAS_ID = 1;
+    private static final int HAS_TITLE = 1 << 1;
+    private static final int HAS_CATEGORY = 1 << 2;
+    private static final int HAS_PRIORITY = 1 << 3;
+    private static final int HAS_ADDED = 1 << 4;
+    private static final int HAS_COMPLETED = 1 << 5;
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private ItemCodec() {
+    }
+
+    static int maxSize(final Item item) {
+        // A character never takes more than three bytes, since the ones that would take four come in pairs
+        return Byte.BYTES + 5 * Integer.BYTES + Byte.BYTES
+            + (item.getTitle() != null ? 3 * item.getTitle().length() : 0);
+    }
+
+    static void write(final ByteBuffer out, final Item item, final ToIntFunction<String> categories) {
+        final int fields = (item.getId() != null ? HAS_ID : 0)
+            | (item.getTitle() != null ? HAS_TITLE : 0)
+            | (item.getCategory() != null ? HAS_CATEGORY : 0)
+            | (item.getPriority() != null ? HAS_PRIORITY : 0)
+            | (item.getAdded() != null ? HAS_ADDED : 0)
+            | (item.getCompleted() != null ? HAS_COMPLETED : 0);
+        out.put((byte) fields);
+        if (item.getId() != null) {
+            out.putInt(item.getId());
+        }
+        if (item.getTitle() != null) {
+            writeString(out, item.getTitle());
+        }
+        if (item.getCategory() != null) {
+            out.putInt(categories.applyAsInt(item.getCategory()));
+        }
+        if (item.getPriority() != null) {
+            out.put((byte) item.getPriority().ordinal());
+        }
+        if (item.getAdded() != null) {
+            out.putInt((int) item.getAdded().toEpochDay());
+        }
+        if (item.getCompleted() != null) {
+            out.putInt((int) item.getCompleted().toEpochDay());
+        }
+    }
+
+    static Item read(final ByteBuffer in, final IntFunction<String> categories) {
+        final int fields = in.get();
+        final Item item = new Item();
+        if ((fields & HAS_ID) != 0) {
+            item.setId(in.getInt());
+        }
+        if ((fields & HAS_TITLE) != 0) {
+            item.setTitle(readString(in));
+        }
+        if ((fields & HAS_CATEGORY) != 0) {
+            item.setCategory(categories.apply(in.getInt()));
+        }
+        if ((fields & HAS_PRIORITY) != 0) {
+            item.setPriority(PRIORITIES[in.get()]);
+        }
+        if ((fields & HAS_ADDED) != 0) {
+            item.setAdded(LocalDate.ofEpochDay(in.getInt()));
+        }
+        if ((fields & HAS_COMPLETED) != 0) {
+            item.setCompleted(LocalDate.ofEpochDay(in.getInt()));
+        }
+        return item;
+    }
+
+    static Integer readId(final ByteBuffer in, final int position) {
+        // The ID always comes straight after the fields, so it can be read without building the rest of the item
+        return (in.get(position) & HAS_ID) != 0 ? in.getInt(position + Byte.BYTES) : null;
+    }
+
+    static void writeString(final ByteBuffer out, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    static String readString(final ByteBuffer in) {
+        final int length = in.getInt();
+        if (in.hasArray()) {
+            final String value = new String(in.array(), in.arrayOffset() + in.position(), length,
+                StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
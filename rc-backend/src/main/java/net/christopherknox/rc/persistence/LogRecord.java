@@ -0,0 +1,22 @@
+package net.christopherknox.rc.persistence;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.christopherknox.rc.model.Item;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LogRecord {
+    private Long sequence;
+    private RecordType type;
+    private Item item;
+    private Integer id;
+    private String category;
+    private String newCategory;
+}
@@ -0,0 +1,471 @@
+package net.christopherknox.rc.persistence;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Item;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+
+// Completed items kept in memory-mapped segment files rather than on the heap, so only an offset per item is held in
+// memory and each item is only built when it is asked for. Items are appended, and removing one just marks it deleted.
+// Each item is written the same way a binary snapshot writes it
+@Slf4j
+public class MappedHistory extends AbstractList<Item> implements IndexedById, SnapshotSource, Closeable {
+
+    private static final byte[] MAGIC = { 'R', 'C', 'H', 'S' };
+    private static final byte VERSION = 2;
+    private static final int SEGMENT_HEADER = MAGIC.length + 1;
+
+    // Every record starts with the same small header with the item after it, and a length of zero ends a segment
+    private static final int LENGTH = 0;
+    private static final int CHECKSUM = 4;
+    private static final int DELETED = 8;
+    private static final int ITEM = 9;
+    private static final int RECORD_HEADER = ITEM;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final BitSet dirty = new BitSet();
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> categoryIndexes = new HashMap<>();
+    // Items keep the slot they were added in and a removed one just leaves its slot empty, so nothing ever has to
+    // move. A count of the items left up to each slot turns an index into a slot and back again
+    private long[] slots = new long[1024];
+    private int[] counts = new int[slots.length + 1];
+    private int slotCount;
+    // Snapshots share the slot arrays, so the first change made after one is made to copies of them instead. Clearing
+    // writes over old records, so snapshots from before a clear can't be read any more
+    private boolean slotsShared;
+    private int generation;
+    // Looking an item up by ID would otherwise read back every record before it
+    private final Map<Integer, Integer> idSlots = new HashMap<>();
+    private int size;
+    private int writeSegment;
+    private int writePosition;
+
+    public MappedHistory(final Path directory, final int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        final Path categoriesPath = directory.resolve("categories.json");
+        if (Files.exists(categoriesPath)) {
+            categories.addAll(mapper.readValue(categoriesPath.toFile(), new TypeReference<List<String>>() {}));
+            for (int i = 0; i < categories.size(); i++) {
+                categoryIndexes.put(categories.get(i), i);
+            }
+        }
+
+        // Walk every segment once to find the live records, which is all that needs to be kept on the heap
+        for (int segment = 0; Files.exists(getSegmentPath(segment)); segment++) {
+            segments.add(map(segment));
+            scan(segment);
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(0));
+            writeSegment = 0;
+            writePosition = SEGMENT_HEADER;
+        }
+        log.info("Opened " + size + " history items in " + segments.size() + " segments from: "
+            + directory.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized Item get(final int index) {
+        checkIndex(index);
+        return read(slots[toSlot(index)]);
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized List<Item> snapshot() {
+        slotsShared = true;
+        return new Snapshot(slots, counts, size, generation);
+    }
+
+    @Override
+    public synchronized int indexOfId(final Integer id) {
+        final Integer slot = idSlots.get(id);
+        return slot != null ? toIndex(slot) : -1;
+    }
+
+    @Override
+    public synchronized int indexOf(final Object o) {
+        // Checked against the record found by ID, and only if that isn't it is every record read back
+        if (o instanceof Item && ((Item) o).getId() != null) {
+            final int index = indexOfId(((Item) o).getId());
+            if (index >= 0 && o.equals(read(slots[idSlots.get(((Item) o).getId())]))) {
+                return index;
+            }
+        }
+        return super.indexOf(o);
+    }
+
+    @Override
+    public synchronized void add(final int index, final Item item) {
+        if (index != size) {
+            throw new UnsupportedOperationException("History can only be added to at the end");
+        }
+        addSlot(item.getId(), append(item));
+        modCount++;
+    }
+
+    @Override
+    public synchronized Item set(final int index, final Item item) {
+        checkIndex(index);
+        unshareSlots();
+        final int slot = toSlot(index);
+        final long old = slots[slot];
+        final Item replaced = read(old);
+        slots[slot] = append(item);
+        removeIdSlot(replaced.getId(), slot);
+        putIdSlot(item.getId(), slot);
+        markDeleted(old);
+        return replaced;
+    }
+
+    @Override
+    public synchronized Item remove(final int index) {
+        checkIndex(index);
+        unshareSlots();
+        final int slot = toSlot(index);
+        final long old = slots[slot];
+        final Item removed = read(old);
+        markDeleted(old);
+        removeIdSlot(removed.getId(), slot);
+        slots[slot] = -1;
+        count(slot, -1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        // Segments are kept and written over from the start, since a mapped file can't always be deleted straight away
+        for (int segment = 0; segment < segments.size(); segment++) {
+            segments.get(segment).putInt(SEGMENT_HEADER + LENGTH, 0);
+            dirty.set(segment);
+        }
+        clearSlots();
+        generation++;
+        writeSegment = 0;
+        writePosition = SEGMENT_HEADER;
+        modCount++;
+    }
+
+    public synchronized void force() {
+        dirty.stream().forEach(segment -> segments.get(segment).force());
+        dirty.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+        segments.clear();
+        clearSlots();
+        generation++;
+    }
+
+    private void scan(final int segment) {
+        final MappedByteBuffer buffer = segments.get(segment);
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(MAGIC, magic) || buffer.get(MAGIC.length) != VERSION) {
+            throw new IllegalStateException("Not a history segment: " + getSegmentPath(segment));
+        }
+        int position = SEGMENT_HEADER;
+        while (position + RECORD_HEADER <= segmentBytes) {
+            final int length = buffer.getInt(position + LENGTH);
+            if (length == 0) {
+                break;
+            } else if (length <= RECORD_HEADER || position + length > segmentBytes
+                || checksum(buffer, position, length) != buffer.getInt(position + CHECKSUM)) {
+                // A record that doesn't add up is from a write that never finished, so the segment ends before it
+                log.warn("Ignoring history after offset " + position + " in: " + getSegmentPath(segment));
+                break;
+            }
+            if (buffer.get(position + DELETED) == 0) {
+                addSlot(ItemCodec.readId(buffer, position + ITEM), toOffset(segment, position));
+            }
+            position += length;
+        }
+        writeSegment = segment;
+        writePosition = position;
+    }
+
+    private long append(final Item item) {
+        // Room is made for the most the item could take, it is only once it is written that its real length is known
+        final int maxLength = RECORD_HEADER + ItemCodec.maxSize(item);
+        if (SEGMENT_HEADER + maxLength + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Item is too big for a history segment: " + item.getId());
+        }
+        if (writePosition + maxLength + Integer.BYTES > segmentBytes) {
+            nextSegment();
+        }
+        final MappedByteBuffer buffer = segments.get(writeSegment);
+        final int position = writePosition;
+        final ByteBuffer out = buffer.duplicate().position(position + ITEM);
+        ItemCodec.write(out, item, this::getCategoryIndex);
+        final int length = out.position() - position;
+        buffer.put(position + DELETED, (byte) 0);
+
+        // The record after this one may still hold old bytes from before a clear, so end the segment here first, and
+        // only then give this record its length so a crash part way through never leaves half a record looking whole
+        buffer.putInt(position + length + LENGTH, 0);
+        buffer.putInt(position + CHECKSUM, checksum(buffer, position, length));
+        buffer.putInt(position + LENGTH, length);
+        dirty.set(writeSegment);
+        writePosition += length;
+        return toOffset(writeSegment, position);
+    }
+
+    private Item read(final long offset) {
+        final ByteBuffer in = segments.get((int) (offset >>> 32)).duplicate().position((int) offset + ITEM);
+        return ItemCodec.read(in, categories::get);
+    }
+
+    private void addSlot(final Integer id, final long offset) {
+        unshareSlots();
+        if (slotCount == slots.length) {
+            growSlots();
+        }
+        slots[slotCount] = offset;
+        count(slotCount, 1);
+        putIdSlot(id, slotCount++);
+        size++;
+    }
+
+    private void growSlots() {
+        // Slots left empty are dropped first, and only if that doesn't free up enough are more added
+        final int[] moved = new int[slotCount];
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] >= 0) {
+                moved[slot] = live;
+                slots[live++] = slots[slot];
+            }
+        }
+        idSlots.replaceAll((id, slot) -> moved[slot]);
+        slotCount = live;
+        if (live > slots.length / 2) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        Arrays.fill(slots, live, slots.length, -1);
+
+        // Every count is built again from the slots, each one adding itself to the next count that covers it
+        counts = new int[slots.length + 1];
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += i <= live ? 1 : 0;
+            final int next = i + (i & -i);
+            if (next < counts.length) {
+                counts[next] += counts[i];
+            }
+        }
+    }
+
+    private void clearSlots() {
+        unshareSlots();
+        Arrays.fill(counts, 0);
+        idSlots.clear();
+        slotCount = 0;
+        size = 0;
+    }
+
+    private void unshareSlots() {
+        if (slotsShared) {
+            slots = slots.clone();
+            counts = counts.clone();
+            slotsShared = false;
+        }
+    }
+
+    private synchronized Item read(final long offset, final int snapshotGeneration) {
+        if (snapshotGeneration != generation) {
+            throw new ConcurrentModificationException("History was replaced since the snapshot was taken: "
+                + directory.toAbsolutePath());
+        }
+        return read(offset);
+    }
+
+    private void count(final int slot, final int change) {
+        for (int i = slot + 1; i < counts.length; i += i & -i) {
+            counts[i] += change;
+        }
+    }
+
+    private int toIndex(final int slot) {
+        int index = -1;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            index += counts[i];
+        }
+        return index;
+    }
+
+    private int toSlot(final int index) {
+        return toSlot(counts, index);
+    }
+
+    private static int toSlot(final int[] counts, final int index) {
+        int slot = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(counts.length - 1); step > 0; step >>= 1) {
+            if (slot + step < counts.length && counts[slot + step] < remaining) {
+                slot += step;
+                remaining -= counts[slot];
+            }
+        }
+        return slot;
+    }
+
+    private void putIdSlot(final Integer id, final int slot) {
+        if (id != null) {
+            idSlots.put(id, slot);
+        }
+    }
+
+    private void removeIdSlot(final Integer id, final int slot) {
+        // Another record with the same ID may have been added since, and that one stays where it is
+        if (id != null) {
+            idSlots.remove(id, slot);
+        }
+    }
+
+    private void markDeleted(final long offset) {
+        final int segment = (int) (offset >>> 32);
+        segments.get(segment).put((int) offset + DELETED, (byte) 1);
+        dirty.set(segment);
+    }
+
+    private void nextSegment() {
+        writeSegment++;
+        writePosition = SEGMENT_HEADER;
+        if (writeSegment == segments.size()) {
+            try {
+                segments.add(map(writeSegment));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not add history segment: " + getSegmentPath(writeSegment), e);
+            }
+        }
+    }
+
+    private MappedByteBuffer map(final int segment) throws IOException {
+        final Path path = getSegmentPath(segment);
+        final boolean created = !Files.exists(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            if (created) {
+                putBytes(buffer, 0, MAGIC);
+                buffer.put(MAGIC.length, VERSION);
+                dirty.set(segment);
+            }
+            return buffer;
+        }
+    }
+
+    private int getCategoryIndex(final String category) {
+        final Integer index = categoryIndexes.get(category);
+        if (index != null) {
+            return index;
+        }
+
+        // New categories are rare, so the whole table is written out each time, before any record can refer to it
+        categories.add(category);
+        categoryIndexes.put(category, categories.size() - 1);
+        try {
+            final Path path = directory.resolve("categories.json");
+            final Path temp = directory.resolve("categories.json.tmp");
+            mapper.writeValue(temp.toFile(), categories);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            categories.remove(categories.size() - 1);
+            categoryIndexes.remove(category);
+            throw new UncheckedIOException("Could not save history categories: " + directory, e);
+        }
+        return categories.size() - 1;
+    }
+
+    private Path getSegmentPath(final int segment) {
+        return directory.resolve(String.format("segment-%05d.dat", segment));
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static void putBytes(final ByteBuffer buffer, final int position, final byte[] bytes) {
+        final ByteBuffer target = buffer.duplicate();
+        target.position(position);
+        target.put(bytes);
+    }
+
+    private static long toOffset(final int segment, final int position) {
+        return ((long) segment << 32) | position;
+    }
+
+    private static int checksum(final MappedByteBuffer buffer, final int position, final int length) {
+        // The deleted flag is left out, since it changes after the record is written
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + ITEM, length - ITEM));
+        return (int) crc.getValue();
+    }
+
+    // How the history was when the snapshot was taken. Removed records are only marked deleted, so they can still be
+    // read back, and records added since are past the end of the slots it has
+    private class Snapshot extends AbstractList<Item> implements RandomAccess {
+
+        private final long[] slots;
+        private final int[] counts;
+        private final int size;
+        private final int generation;
+
+        private Snapshot(final long[] slots, final int[] counts, final int size, final int generation) {
+            this.slots = slots;
+            this.counts = counts;
+            this.size = size;
+            this.generation = generation;
+        }
+
+        @Override
+        public Item get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return read(slots[toSlot(counts, index)], generation);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
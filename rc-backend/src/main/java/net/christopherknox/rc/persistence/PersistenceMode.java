@@ -0,0 +1,8 @@
+package net.christopherknox.rc.persistence;
+
+public enum PersistenceMode {
+    SNAPSHOT,
+    WAL,
+    WRITE_BEHIND,
+    SHARDED
+}
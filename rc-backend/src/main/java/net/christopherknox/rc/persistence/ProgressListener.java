@@ -0,0 +1,7 @@
+package net.christopherknox.rc.persistence;
+
+@FunctionalInterface
+public interface ProgressListener {
+
+    void progress(long bytesRead, long totalBytes);
+}
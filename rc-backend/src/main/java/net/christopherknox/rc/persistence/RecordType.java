@@ -0,0 +1,11 @@
+package net.christopherknox.rc.persistence;
+
+public enum RecordType {
+    SAVE_ITEM,
+    REMOVE_ITEM,
+    COMPLETE_ITEM,
+    UNCOMPLETE_ITEM,
+    ADD_CATEGORY,
+    EDIT_CATEGORY,
+    REMOVE_CATEGORY
+}
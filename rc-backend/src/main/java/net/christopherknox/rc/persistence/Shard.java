@@ -0,0 +1,18 @@
+package net.christopherknox.rc.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.christopherknox.rc.model.Item;
+
+import java.util.List;
+
+// One category's items as saved in its shard file, each with where it goes in the whole list, so the lists can be put
+// back together from any set of shards. Shards from before the order was kept in them have no sequences
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Shard {
+    private List<Item> items;
+    private long[] sequences;
+}
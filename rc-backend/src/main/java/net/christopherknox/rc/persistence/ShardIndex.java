@@ -0,0 +1,101 @@
+package net.christopherknox.rc.persistence;
+
+import lombok.AllArgsConstructor;
+import net.christopherknox.rc.model.Item;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Which items are in each category's shard, and where each goes in the whole list by a sequence number it keeps for as
+// long as it stays in the list. New items get the next number, so they go on the end just like they do in the list
+final class ShardIndex {
+
+    private final Map<String, NavigableMap<Long, Item>> shards = new LinkedHashMap<>();
+    private final Map<Integer, Position> positions = new HashMap<>();
+    private long nextSequence;
+
+    ShardIndex() {
+    }
+
+    ShardIndex(final List<Item> items) {
+        items.forEach(this::put);
+    }
+
+    void put(final Shard shard) {
+        for (int i = 0; i < shard.getItems().size(); i++) {
+            put(shard.getItems().get(i), shard.getSequences()[i]);
+            nextSequence = Math.max(nextSequence, shard.getSequences()[i] + 1);
+        }
+    }
+
+    void put(final Item item) {
+        final Position position = positions.get(item.getId());
+        put(item, position != null ? position.sequence : nextSequence++);
+    }
+
+    private void put(final Item item, final long sequence) {
+        remove(item.getId());
+        shards.computeIfAbsent(item.getCategory(), c -> new TreeMap<>()).put(sequence, item);
+        positions.put(item.getId(), new Position(item.getCategory(), sequence));
+    }
+
+    void remove(final Integer id) {
+        final Position position = positions.remove(id);
+        final NavigableMap<Long, Item> shard = position != null ? shards.get(position.category) : null;
+        if (shard != null) {
+            shard.remove(position.sequence);
+            if (shard.isEmpty()) {
+                shards.remove(position.category);
+            }
+        }
+    }
+
+    void moveCategory(final String category, final String newCategory) {
+        // Items keep their numbers, so merging into a category that already has items keeps them in list order too
+        final NavigableMap<Long, Item> moved = shards.remove(category);
+        if (moved != null) {
+            moved.forEach((sequence, item) -> put(item.toBuilder().category(newCategory).build(), sequence));
+        }
+    }
+
+    void removeCategory(final String category) {
+        final NavigableMap<Long, Item> removed = shards.remove(category);
+        if (removed != null) {
+            removed.values().forEach(i -> positions.remove(i.getId()));
+        }
+    }
+
+    Set<String> categories() {
+        return shards.keySet();
+    }
+
+    Shard get(final String category) {
+        final NavigableMap<Long, Item> shard = shards.get(category);
+        if (shard == null) {
+            return null;
+        }
+        return new Shard(new ArrayList<>(shard.values()),
+            shard.keySet().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    List<Item> toList() {
+        final List<Map.Entry<Long, Item>> entries = new ArrayList<>(positions.size());
+        shards.values().forEach(s -> entries.addAll(s.entrySet()));
+        entries.sort(Map.Entry.comparingByKey());
+        final List<Item> items = new ArrayList<>(entries.size());
+        entries.forEach(e -> items.add(e.getValue()));
+        return items;
+    }
+
+    @AllArgsConstructor
+    private static class Position {
+        private final String category;
+        private final long sequence;
+    }
+}
@@ -0,0 +1,38 @@
+package net.christopherknox.rc.persistence;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShardManifest {
+    private Integer version;
+    private List<String> categories;
+    private Integer defaultSetSize;
+    private Integer nextId;
+    private Long nextShard;
+    private Map<String, String> data;
+    private Map<String, String> history;
+    // How many items in a row came from each shard, only in manifests from before each shard kept its own order. Still
+    // read so those lists come back in order once, and then written over by shards that keep it
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Run> dataOrder;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Run> historyOrder;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Run {
+        private String category;
+        private int count;
+    }
+}
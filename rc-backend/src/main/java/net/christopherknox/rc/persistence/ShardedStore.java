@@ -0,0 +1,289 @@
+package net.christopherknox.rc.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Keeps each category's items in a shard file of their own, with a small manifest saying which file holds which
+// category, so a change only rewrites the shards it touched. Renaming a category only changes the manifest, since the
+// category an item is in comes from its shard rather than what was saved with the item. Each shard also says where its
+// items go in the whole list, so the manifest stays the same size however the categories are mixed up in the lists.
+@Slf4j
+public class ShardedStore {
+
+    public static final int VERSION = 3;
+
+    private final File manifestFile;
+    private final Path directory;
+    private final SnapshotFormat format;
+    private final ObjectMapper mapper;
+    private final StreamingDataReader reader;
+    private final BinarySnapshotCodec codec = new BinarySnapshotCodec();
+    private ShardManifest manifest;
+    private final List<Map.Entry<String, String>> pendingRenames = new ArrayList<>();
+    // What is in each shard and where it goes, kept in step with the lists from the records so that writing a few
+    // shards never has to go through the whole of either list. Until it is known, every shard gets written
+    private ShardIndex dataIndex;
+    private ShardIndex historyIndex;
+    private boolean writeAll = true;
+
+    public ShardedStore(final File manifestFile, final Path directory, final SnapshotFormat format,
+        final ObjectMapper mapper) {
+        this.manifestFile = manifestFile;
+        this.directory = directory;
+        this.format = format;
+        this.mapper = mapper;
+        reader = new StreamingDataReader(mapper);
+    }
+
+    public boolean exists() {
+        return manifestFile.exists();
+    }
+
+    public Data read(final ProgressListener listener) throws IOException {
+        log.info("Reading shards from: " + manifestFile.getAbsolutePath());
+        final ShardManifest read = mapper.readValue(manifestFile, ShardManifest.class);
+        if (read.getVersion() == null || read.getVersion() > VERSION) {
+            throw new IOException("Unsupported shard manifest version: " + read.getVersion());
+        }
+        manifest = read;
+        pendingRenames.clear();
+        writeAll = false;
+        final Data data = new Data();
+        data.setCategories(manifest.getCategories());
+        data.setDefaultSetSize(manifest.getDefaultSetSize());
+        dataIndex = readShards(manifest.getData(), manifest.getDataOrder(), listener);
+        historyIndex = manifest.getHistory() != null
+            ? readShards(manifest.getHistory(), manifest.getHistoryOrder(), listener) : null;
+        data.setData(dataIndex.toList());
+        data.setHistory(historyIndex != null ? historyIndex.toList() : null);
+
+        // A shard can be written before a crash stops the manifest being, so never hand out an ID already in use
+        int nextId = manifest.getNextId();
+        for (Item item : data.getData()) {
+            nextId = Math.max(nextId, item.getId() + 1);
+        }
+        if (data.getHistory() != null) {
+            for (Item item : data.getHistory()) {
+                nextId = Math.max(nextId, item.getId() + 1);
+            }
+        }
+        data.setNextId(nextId);
+        return data;
+    }
+
+    public boolean rename(final String category, final String newCategory) {
+        // A rename onto a category that already has a shard is a merge, which needs both shards written out instead.
+        // The manifest is only renamed once it has been written, until then the rename just waits for the next write
+        if (manifest == null || !exists()) {
+            return false;
+        }
+        final Map<String, String> shards = renamed(manifest.getData());
+        if (!shards.containsKey(category) || shards.containsKey(newCategory)) {
+            return false;
+        }
+        pendingRenames.add(Map.entry(category, newCategory));
+        return true;
+    }
+
+    public void record(final LogRecord record) {
+        // Changes the index the same way the record changes the lists, new items going on the end of their list
+        if (writeAll) {
+            return;
+        }
+        switch (record.getType()) {
+            case SAVE_ITEM:
+                dataIndex.put(record.getItem());
+                break;
+            case REMOVE_ITEM:
+                dataIndex.remove(record.getId());
+                if (historyIndex != null) {
+                    historyIndex.remove(record.getId());
+                }
+                break;
+            case COMPLETE_ITEM:
+                dataIndex.remove(record.getItem().getId());
+                if (historyIndex != null) {
+                    historyIndex.put(record.getItem());
+                }
+                break;
+            case UNCOMPLETE_ITEM:
+                if (historyIndex != null) {
+                    historyIndex.remove(record.getItem().getId());
+                }
+                dataIndex.put(record.getItem());
+                break;
+            case EDIT_CATEGORY:
+                dataIndex.moveCategory(record.getCategory(), record.getNewCategory());
+                break;
+            case REMOVE_CATEGORY:
+                if (record.getNewCategory() != null) {
+                    dataIndex.moveCategory(record.getCategory(), record.getNewCategory());
+                } else {
+                    dataIndex.removeCategory(record.getCategory());
+                }
+                break;
+            default:
+                // Adding a category doesn't move any items
+        }
+    }
+
+    public void write(final Data data, final Set<String> dataCategories,
+        final Set<String> historyCategories) throws IOException {
+        // Changes are made to a copy of the manifest, which only takes the place of this one once it has been written,
+        // so a write that fails part way leaves the manifest (and any renames waiting on it) as they were
+        final ShardManifest next;
+        if (manifest == null || !exists()) {
+            // Starting over from a single save file, so nothing from any earlier shards carries over
+            next = ShardManifest.builder().nextShard(1L).data(new LinkedHashMap<>()).build();
+            writeAll = true;
+        } else {
+            next = manifest.toBuilder()
+                .data(renamed(manifest.getData()))
+                .history(manifest.getHistory() != null ? new LinkedHashMap<>(manifest.getHistory()) : null)
+                .dataOrder(null)
+                .historyOrder(null)
+                .build();
+        }
+
+        // Without knowing what changed every shard is written from the lists as they are, numbered over from the
+        // start. Until that has all been written the shards on disk can be numbered either way, so it stays that way
+        if (dataCategories == null || (data.getHistory() == null) != (historyIndex == null)) {
+            writeAll = true;
+        }
+        if (writeAll) {
+            dataIndex = new ShardIndex(data.getData());
+            historyIndex = data.getHistory() != null ? new ShardIndex(data.getHistory()) : null;
+        }
+        Files.createDirectories(directory);
+        final List<String> deleted = new ArrayList<>();
+        writeShards(next, "data", dataIndex, next.getData(), writeAll ? null : dataCategories, deleted);
+        if (historyIndex != null) {
+            if (next.getHistory() == null) {
+                next.setHistory(new LinkedHashMap<>());
+            }
+            writeShards(next, "history", historyIndex, next.getHistory(), writeAll ? null : historyCategories,
+                deleted);
+        } else if (next.getHistory() != null) {
+            // History is being kept somewhere else now, so its shards are no longer needed
+            deleted.addAll(next.getHistory().values());
+            next.setHistory(null);
+        }
+
+        // Shards go first and the manifest last, so the manifest never names a shard that isn't there yet
+        next.setVersion(VERSION);
+        next.setCategories(data.getCategories());
+        next.setDefaultSetSize(data.getDefaultSetSize());
+        next.setNextId(data.getNextId());
+        AtomicFiles.write(manifestFile, mapper.writeValueAsBytes(next), false);
+        manifest = next;
+        pendingRenames.clear();
+        writeAll = false;
+        for (String shard : deleted) {
+            Files.deleteIfExists(directory.resolve(shard));
+        }
+    }
+
+    private Map<String, String> renamed(final Map<String, String> shards) {
+        final Map<String, String> renamed = new LinkedHashMap<>(shards);
+        for (Map.Entry<String, String> rename : pendingRenames) {
+            if (renamed.containsKey(rename.getKey())) {
+                renamed.put(rename.getValue(), renamed.remove(rename.getKey()));
+            }
+        }
+        return renamed;
+    }
+
+    private void writeShards(final ShardManifest next, final String prefix, final ShardIndex index,
+        final Map<String, String> shards, final Set<String> categories, final List<String> deleted)
+        throws IOException {
+        final Set<String> toWrite = categories != null ? categories : new LinkedHashSet<>(index.categories());
+        if (categories == null) {
+            toWrite.addAll(shards.keySet());
+        }
+
+        for (String category : toWrite) {
+            final Shard shardItems = index.get(category);
+            if (shardItems == null) {
+                final String shard = shards.remove(category);
+                if (shard != null) {
+                    deleted.add(shard);
+                }
+                continue;
+            }
+            String shard = shards.get(category);
+            if (shard == null) {
+                shard = prefix + "-" + next.getNextShard() + ".shard";
+                next.setNextShard(next.getNextShard() + 1);
+                shards.put(category, shard);
+            }
+            log.debug("Saving " + shardItems.getItems().size() + " items to shard: " + shard);
+            AtomicFiles.write(directory.resolve(shard).toFile(), format == SnapshotFormat.BINARY
+                ? codec.write(shardItems) : mapper.writeValueAsBytes(shardItems), false);
+        }
+    }
+
+    private ShardIndex readShards(final Map<String, String> shards, final List<ShardManifest.Run> order,
+        final ProgressListener listener) throws IOException {
+        long totalBytes = 0;
+        for (String shard : shards.values()) {
+            totalBytes += directory.resolve(shard).toFile().length();
+        }
+
+        // Progress is passed on as how far through all the shards together, rather than starting over for each one
+        final Map<String, Shard> shardsByCategory = new LinkedHashMap<>();
+        boolean ordered = true;
+        long doneBytes = 0;
+        for (Map.Entry<String, String> entry : shards.entrySet()) {
+            final File file = directory.resolve(entry.getValue()).toFile();
+            final long before = doneBytes;
+            final long total = totalBytes;
+            final ProgressListener shardListener = (bytesRead, shardBytes) -> listener.progress(before + bytesRead, total);
+            final Shard shard = BinarySnapshotCodec.isBinary(file) ? codec.readShard(file, shardListener)
+                : reader.readShard(file, shardListener);
+            if (shard.getSequences() != null && shard.getSequences().length != shard.getItems().size()) {
+                throw new IOException("Shard is corrupt: " + file);
+            }
+            shard.getItems().forEach(i -> i.setCategory(entry.getKey()));
+            shardsByCategory.put(entry.getKey(), shard);
+            ordered &= shard.getSequences() != null;
+            doneBytes += file.length();
+        }
+        if (ordered) {
+            final ShardIndex index = new ShardIndex();
+            shardsByCategory.values().forEach(index::put);
+            return index;
+        }
+
+        // Shards from before the order was kept in them are taken as many in a row from each as the manifest says,
+        // and all of them are written again next time so they keep the order themselves from then on
+        writeAll = true;
+        final Map<String, Iterator<Item>> shardItems = new LinkedHashMap<>();
+        shardsByCategory.forEach((category, shard) -> shardItems.put(category, shard.getItems().iterator()));
+        final List<Item> items = new ArrayList<>();
+        if (order != null) {
+            for (ShardManifest.Run run : order) {
+                final Iterator<Item> runItems = shardItems.get(run.getCategory());
+                for (int i = 0; i < run.getCount() && runItems != null && runItems.hasNext(); i++) {
+                    items.add(runItems.next());
+                }
+            }
+        }
+        // Anything the order doesn't account for, like a shard written just before a crash, goes on the end
+        shardItems.values().forEach(i -> i.forEachRemaining(items::add));
+        return new ShardIndex(items);
+    }
+}
@@ -0,0 +1,59 @@
+package net.christopherknox.rc.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+
+public class SnapshotConverter {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final StreamingDataReader reader = new StreamingDataReader(mapper);
+    private final BinarySnapshotCodec codec = new BinarySnapshotCodec();
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: SnapshotConverter <JSON|BINARY> <from file> <to file>");
+            System.exit(1);
+        }
+        final SnapshotFormat format = SnapshotFormat.valueOf(args[0].toUpperCase());
+        new SnapshotConverter().convert(new File(args[1]), new File(args[2]), format);
+        System.out.println("Converted " + args[1] + " to " + format + " in " + args[2]);
+    }
+
+    public void convert(final File from, final File to, final SnapshotFormat format) throws IOException {
+        // Works for the save file and for a history file on its own, in whichever format each was written
+        final ProgressListener listener = (bytesRead, totalBytes) -> {};
+        if (isItems(from)) {
+            final List<Item> items = BinarySnapshotCodec.isBinary(from) ? codec.readItems(from, listener)
+                : reader.readItems(from, listener);
+            Files.write(to.toPath(), format == SnapshotFormat.BINARY ? codec.write(items)
+                : mapper.writeValueAsBytes(items));
+        } else {
+            final Data data = BinarySnapshotCodec.isBinary(from) ? codec.read(from, listener)
+                : reader.read(from, listener);
+            Files.write(to.toPath(), format == SnapshotFormat.BINARY ? codec.write(data)
+                : mapper.writeValueAsBytes(data));
+        }
+    }
+
+    private static boolean isItems(final File file) throws IOException {
+        if (BinarySnapshotCodec.isBinary(file)) {
+            return BinarySnapshotCodec.isItems(file);
+        }
+
+        // A JSON history file is a bare list, where the save file is an object
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int c = in.read();
+            while (c >= 0 && Character.isWhitespace(c)) {
+                c = in.read();
+            }
+            return c == '[';
+        }
+    }
+}
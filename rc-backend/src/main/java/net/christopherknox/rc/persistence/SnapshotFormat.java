@@ -0,0 +1,6 @@
+package net.christopherknox.rc.persistence;
+
+public enum SnapshotFormat {
+    JSON,
+    BINARY
+}
@@ -0,0 +1,12 @@
+package net.christopherknox.rc.persistence;
+
+import net.christopherknox.rc.model.Item;
+
+import java.util.List;
+
+// History that is changed where it is rather than published anew, but can hand out a view of how it is right now that
+// later changes don't reach, so it can be gone through without holding any lock
+public interface SnapshotSource {
+
+    List<Item> snapshot();
+}
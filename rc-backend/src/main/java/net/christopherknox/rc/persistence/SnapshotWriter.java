@@ -0,0 +1,9 @@
+package net.christopherknox.rc.persistence;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface SnapshotWriter {
+
+    void write() throws IOException;
+}
@@ -0,0 +1,203 @@
+package net.christopherknox.rc.persistence;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.Priority;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StreamingDataReader {
+
+    private static final int PROGRESS_INTERVAL = 256;
+
+    private final ObjectMapper mapper;
+
+    public StreamingDataReader(final ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public Data read(final File file, final ProgressListener listener) throws IOException {
+        final long totalBytes = file.length();
+        final Data data = new Data();
+        final Map<String, String> categories = new HashMap<>();
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected save file to start with an object");
+            }
+
+            // Walk the top level fields in whatever order they were written, building each item straight off the
+            // parser so that only the lists being filled are ever held in memory
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "data":
+                        data.setData(readItems(parser, categories, totalBytes, listener));
+                        break;
+                    case "history":
+                        data.setHistory(readItems(parser, categories, totalBytes, listener));
+                        break;
+                    case "categories":
+                        data.setCategories(mapper.readValue(parser, new TypeReference<List<String>>() {}));
+                        break;
+                    case "lastSets":
+                        data.setLastSets(mapper.readValue(parser, new TypeReference<Map<String, List<Item>>>() {}));
+                        break;
+                    case "defaultSetSize":
+                        data.setDefaultSetSize(mapper.readValue(parser, Integer.class));
+                        break;
+                    case "nextId":
+                        data.setNextId(mapper.readValue(parser, Integer.class));
+                        break;
+                    case "logSequence":
+                        data.setLogSequence(mapper.readValue(parser, Long.class));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        listener.progress(totalBytes, totalBytes);
+        return data;
+    }
+
+    public List<Item> readItems(final File file, final ProgressListener listener) throws IOException {
+        final long totalBytes = file.length();
+        final List<Item> items;
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            parser.nextToken();
+            items = readItems(parser, new HashMap<>(), totalBytes, listener);
+        }
+        listener.progress(totalBytes, totalBytes);
+        return items;
+    }
+
+    public Shard readShard(final File file, final ProgressListener listener) throws IOException {
+        final long totalBytes = file.length();
+        final Shard shard = new Shard();
+        final Map<String, String> categories = new HashMap<>();
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            // Shards written as a plain list of items are from before each shard kept its own order
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                shard.setItems(readItems(parser, categories, totalBytes, listener));
+            } else {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "items":
+                            shard.setItems(readItems(parser, categories, totalBytes, listener));
+                            break;
+                        case "sequences":
+                            shard.setSequences(mapper.readValue(parser, long[].class));
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
+            }
+        }
+        listener.progress(totalBytes, totalBytes);
+        return shard;
+    }
+
+    private static List<Item> readItems(final JsonParser parser, final Map<String, String> categories,
+        final long totalBytes, final ProgressListener listener) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected a list of items");
+        }
+        final List<Item> items = new ArrayList<>();
+        long reported = -1;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            items.add(readItem(parser, categories));
+            if (items.size() % PROGRESS_INTERVAL != 0) {
+                continue;
+            }
+
+            // Only tell the listener when another whole percent of the file has gone by
+            final long bytesRead = parser.getCurrentLocation().getByteOffset();
+            final long percent = totalBytes > 0 ? bytesRead * 100 / totalBytes : 100;
+            if (percent > reported) {
+                reported = percent;
+                listener.progress(bytesRead, totalBytes);
+            }
+        }
+        return items;
+    }
+
+    private static Item readItem(final JsonParser parser, final Map<String, String> categories) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an item");
+        }
+        final Item item = new Item();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "id":
+                    item.setId(parser.getIntValue());
+                    break;
+                case "title":
+                    item.setTitle(parser.getText());
+                    break;
+                case "category":
+                    // Every item in a category shares the one copy of its name, rather than each holding its own
+                    item.setCategory(categories.computeIfAbsent(parser.getText(), c -> c));
+                    break;
+                case "priority":
+                    item.setPriority(Priority.valueOf(parser.getText()));
+                    break;
+                case "added":
+                    item.setAdded(readDate(parser));
+                    break;
+                case "completed":
+                    item.setCompleted(readDate(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return item;
+    }
+
+    private static LocalDate readDate(final JsonParser parser) throws IOException {
+        final String text = parser.getText();
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            // Dates are always saved as yyyy-MM-dd, which is quicker to pick apart by hand than through a formatter
+            final int year = digits(text, 0, 4);
+            final int month = digits(text, 5, 7);
+            final int day = digits(text, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(text);
+    }
+
+    private static int digits(final String text, final int start, final int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = Character.digit(text.charAt(i), 10);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,208 @@
+package net.christopherknox.rc.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    private static final int CHECKSUM_LENGTH = 8;
+
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final FileChannel channel;
+    private final ScheduledExecutorService syncer;
+    private long lastSequence;
+    private long recordCount;
+    private boolean dirty;
+
+    public WriteAheadLog(final Path path, final FsyncPolicy fsyncPolicy, final long syncIntervalMs)
+        throws IOException {
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        channel.position(channel.size());
+
+        // Batched syncs happen in the background, so a burst of writes only pays for one fsync
+        if (fsyncPolicy == FsyncPolicy.BATCHED) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    public synchronized List<LogRecord> read(final long afterSequence) throws IOException {
+        log.info("Replaying log from: " + path.toAbsolutePath());
+        final byte[] bytes = Files.readAllBytes(path);
+        final List<LogRecord> records = new ArrayList<>();
+        lastSequence = afterSequence;
+        recordCount = 0;
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            // Each record is checked on its own, so one that got mangled only loses that record and not every one after
+            try {
+                final LogRecord record = decode(bytes, start, i - start);
+                recordCount++;
+                if (record.getSequence() > afterSequence) {
+                    records.add(record);
+                    lastSequence = Math.max(lastSequence, record.getSequence());
+                }
+            } catch (IOException e) {
+                log.warn("Skipping unreadable log record at byte " + start + ": " + e.getMessage());
+            }
+            start = i + 1;
+        }
+        final int validLength = start;
+
+        // Anything after the last full record is from a write that never finished, so cut it off before appending
+        if (validLength < bytes.length) {
+            log.warn("Dropping " + (bytes.length - validLength) + " bytes from the end of the log");
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        return records;
+    }
+
+    public synchronized void append(final List<LogRecord> records) throws IOException {
+        final long position = channel.position();
+        final long sequence = lastSequence;
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (LogRecord record : records) {
+                record.setSequence(++lastSequence);
+                encode(record, out);
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                sync();
+            }
+        } catch (IOException | RuntimeException e) {
+            // The records stay pending with the caller and are appended again, so whatever made it into the log is
+            // cut back off first, or the retry would land behind a half written record
+            lastSequence = sequence;
+            try {
+                channel.truncate(position);
+                channel.position(position);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+            }
+            throw e;
+        }
+        recordCount += records.size();
+        dirty = true;
+    }
+
+    public synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        recordCount = 0;
+        if (fsyncPolicy != FsyncPolicy.OS) {
+            sync();
+        }
+    }
+
+    public synchronized void sync() throws IOException {
+        channel.force(false);
+        dirty = false;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        if (channel.isOpen()) {
+            if (dirty && fsyncPolicy != FsyncPolicy.OS) {
+                sync();
+            }
+            channel.close();
+        }
+    }
+
+    private void encode(final LogRecord record, final ByteArrayOutputStream out) throws IOException {
+        // Every line is a checksum of the record followed by the record itself
+        final byte[] json = mapper.writeValueAsBytes(record);
+        out.write(String.format("%08x ", checksum(json, 0, json.length)).getBytes(StandardCharsets.US_ASCII));
+        out.write(json);
+        out.write('\n');
+    }
+
+    private LogRecord decode(final byte[] bytes, final int offset, final int length) throws IOException {
+        // Logs written before records had checksums are plain JSON lines, and are still read as they are
+        if (length > 0 && bytes[offset] == '{') {
+            return mapper.readValue(bytes, offset, length, LogRecord.class);
+        }
+        if (length <= CHECKSUM_LENGTH + 1 || bytes[offset + CHECKSUM_LENGTH] != ' ') {
+            throw new IOException("Record has no checksum");
+        }
+        final long expected;
+        try {
+            expected = Long.parseLong(new String(bytes, offset, CHECKSUM_LENGTH, StandardCharsets.US_ASCII), 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Record has no checksum");
+        }
+        final int jsonOffset = offset + CHECKSUM_LENGTH + 1;
+        final int jsonLength = length - CHECKSUM_LENGTH - 1;
+        if (checksum(bytes, jsonOffset, jsonLength) != expected) {
+            throw new IOException("Record checksum does not match");
+        }
+        return mapper.readValue(bytes, jsonOffset, jsonLength, LogRecord.class);
+    }
+
+    private static long checksum(final byte[] bytes, final int offset, final int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return crc.getValue();
+    }
+
+    private synchronized void syncQuietly() {
+        try {
+            if (dirty) {
+                sync();
+            }
+        } catch (IOException e) {
+            log.warn("Could not sync log: " + path, e);
+        }
+    }
+}
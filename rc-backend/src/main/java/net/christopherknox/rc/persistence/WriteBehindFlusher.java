@@ -0,0 +1,91 @@
+package net.christopherknox.rc.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class WriteBehindFlusher implements Closeable {
+
+    private final SnapshotWriter writer;
+    private final long maxPendingChanges;
+    private final ScheduledExecutorService flusher;
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long flushedChanges;
+
+    public WriteBehindFlusher(final SnapshotWriter writer, final long flushIntervalMs, final long maxPendingChanges) {
+        this("write-behind-flush", writer, flushIntervalMs, maxPendingChanges);
+    }
+
+    public WriteBehindFlusher(final String threadName, final SnapshotWriter writer, final long flushIntervalMs,
+        final long maxPendingChanges) {
+        this.writer = writer;
+        this.maxPendingChanges = maxPendingChanges;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void changed() {
+        // A burst of changes is written once the interval is up, unless enough pile up to be worth writing right away
+        if (changes.incrementAndGet() - flushedChanges == maxPendingChanges) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    public long getPendingChanges() {
+        return changes.get() - flushedChanges;
+    }
+
+    public void flush() throws IOException {
+        // Flushes only ever run on the flusher thread, so waiting on one here also waits for any already running
+        try {
+            flusher.submit(() -> {
+                flushIfChanged();
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for flush", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushIfChanged();
+    }
+
+    private void flushQuietly() {
+        try {
+            flushIfChanged();
+        } catch (Exception e) {
+            log.warn("Could not flush changes, will try again", e);
+        }
+    }
+
+    private synchronized void flushIfChanged() throws IOException {
+        final long target = changes.get();
+        if (target == flushedChanges) {
+            return;
+        }
+        writer.write();
+        flushedChanges = target;
+    }
+}
@@ -0,0 +1,17 @@
+package net.christopherknox.rc.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetRandomSetsRequest {
+    private List<RandomSetRequest> sets;
+    private Boolean useLast;
+}
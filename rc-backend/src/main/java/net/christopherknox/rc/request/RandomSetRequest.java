@@ -0,0 +1,17 @@
+package net.christopherknox.rc.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RandomSetRequest {
+    private String category;
+    private Integer setSize;
+    private Long seed;
+    private Long version;
+}
@@ -14,5 +14,7 @@ import java.util.List;
 @NoArgsConstructor
 public class ItemListResponse {
     private List<Item> items;
+    private Long seed;
+    private Long version;
     private String error;
 }
@@ -0,0 +1,17 @@
+package net.christopherknox.rc.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RandomSetsResponse {
+    private Map<String, ItemListResponse> sets;
+    private String error;
+}
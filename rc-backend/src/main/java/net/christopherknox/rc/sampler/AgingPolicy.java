@@ -0,0 +1,48 @@
+package net.christopherknox.rc.sampler;
+
+import net.christopherknox.rc.model.Item;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+@Component
+public class AgingPolicy {
+
+    // Boosts are fractional, so aged weights are scaled up to keep them as whole numbers for the samplers
+    public static final int WEIGHT_SCALE = 100;
+
+    private final boolean enabled;
+    private final double boostPerDay;
+    private final double maxBoost;
+
+    public AgingPolicy(@Value("${sampler.aging.enabled:false}") final boolean enabled,
+        @Value("${sampler.aging.boost-per-day:0.01}") final double boostPerDay,
+        @Value("${sampler.aging.max-boost:4.0}") final double maxBoost) {
+        this.enabled = enabled;
+        this.boostPerDay = boostPerDay;
+        this.maxBoost = maxBoost;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getBoost(final Item item, final LocalDate today) {
+        if (item.getAdded() == null) {
+            return 1.0;
+        }
+        final long days = Math.max(0, ChronoUnit.DAYS.between(item.getAdded(), today));
+        return Math.min(maxBoost, 1.0 + boostPerDay * days);
+    }
+
+    public Weigher getWeigher(final LocalDate today) {
+        if (!enabled) {
+            return Weigher.PRIORITY;
+        }
+        // Ages only change once a day, so a weigher for a given day gives the same weights all day long
+        return item -> (int) Math.max(1,
+            Math.round(item.getPriority().getWeight() * getBoost(item, today) * WEIGHT_SCALE));
+    }
+}
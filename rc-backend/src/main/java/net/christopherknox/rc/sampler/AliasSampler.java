@@ -0,0 +1,96 @@
+package net.christopherknox.rc.sampler;
+
+import net.christopherknox.rc.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class AliasSampler implements WeightedSampler {
+
+    private final List<Item> items;
+    private final Map<Integer, Item> index;
+    private final double[] probability;
+    private final int[] alias;
+
+    public AliasSampler(final List<Item> items) {
+        this(items, Weigher.PRIORITY);
+    }
+
+    public AliasSampler(final List<Item> items, final Weigher weigher) {
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        index = new HashMap<>();
+        this.items.forEach(i -> index.put(i.getId(), i));
+        final int size = this.items.size();
+        probability = new double[size];
+        alias = new int[size];
+        if (size == 0) {
+            return;
+        }
+
+        // Scale each weight so that the average column height is exactly 1
+        long totalWeight = 0;
+        for (Item item : this.items) {
+            totalWeight += weigher.weigh(item);
+        }
+        final double[] scaled = new double[size];
+        final int[] small = new int[size];
+        final int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = (double) weigher.weigh(this.items.get(i)) * size / totalWeight;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        // Vose's method: fill each short column with the excess from a tall one until every column is full
+        while (smallCount > 0 && largeCount > 0) {
+            final int less = small[--smallCount];
+            final int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // Anything left over is only off from 1 because of rounding, so treat it as full
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1.0;
+        }
+    }
+
+    @Override
+    public List<Item> getItems() {
+        return items;
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public Item getItem(final Integer id) {
+        return index.get(id);
+    }
+
+    @Override
+    public Item next(final Random rand) {
+        final int column = rand.nextInt(items.size());
+        return rand.nextDouble() < probability[column] ? items.get(column) : items.get(alias[column]);
+    }
+}
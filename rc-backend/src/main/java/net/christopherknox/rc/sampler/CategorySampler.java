@@ -0,0 +1,123 @@
+package net.christopherknox.rc.sampler;
+
+import net.christopherknox.rc.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class CategorySampler implements DynamicSampler {
+
+    private final CategoryWeights categoryWeights;
+    private final Weigher weigher;
+    private final Map<String, FenwickSampler> samplers = new LinkedHashMap<>();
+    private final Map<Integer, String> categories = new LinkedHashMap<>();
+    private long totalWeight;
+
+    public CategorySampler(final List<Item> items, final CategoryWeights categoryWeights) {
+        this(items, categoryWeights, Weigher.PRIORITY);
+    }
+
+    public CategorySampler(final List<Item> items, final CategoryWeights categoryWeights, final Weigher weigher) {
+        this.categoryWeights = categoryWeights;
+        this.weigher = weigher;
+        final Map<String, List<Item>> grouped = new LinkedHashMap<>();
+        for (Item item : items) {
+            if (categoryWeights.getWeight(item.getCategory()) > 0) {
+                grouped.computeIfAbsent(item.getCategory(), k -> new ArrayList<>()).add(item);
+                categories.put(item.getId(), item.getCategory());
+            }
+        }
+        grouped.forEach((category, categoryItems) -> {
+            samplers.put(category, new FenwickSampler(categoryItems, weigher));
+            totalWeight += categoryWeights.getWeight(category);
+        });
+    }
+
+    @Override
+    public synchronized List<Item> getItems() {
+        final List<Item> items = new ArrayList<>(categories.size());
+        samplers.values().forEach(s -> items.addAll(s.getItems()));
+        return Collections.unmodifiableList(items);
+    }
+
+    @Override
+    public synchronized int size() {
+        return categories.size();
+    }
+
+    @Override
+    public synchronized Item getItem(final Integer id) {
+        final String category = categories.get(id);
+        return category != null ? samplers.get(category).getItem(id) : null;
+    }
+
+    @Override
+    public synchronized Item next(final Random rand) {
+        // First pick a category by its own weight, there are only ever a handful so a walk over them is cheap
+        long target = (long) (rand.nextDouble() * totalWeight);
+        FenwickSampler picked = null;
+        for (Map.Entry<String, FenwickSampler> entry : samplers.entrySet()) {
+            picked = entry.getValue();
+            target -= categoryWeights.getWeight(entry.getKey());
+            if (target < 0) {
+                break;
+            }
+        }
+
+        // Then pick an item inside that category by its priority
+        return picked.next(rand);
+    }
+
+    @Override
+    public synchronized void add(final Item item) {
+        if (categories.containsKey(item.getId())) {
+            update(item);
+            return;
+        }
+        final int categoryWeight = categoryWeights.getWeight(item.getCategory());
+        if (categoryWeight == 0) {
+            return;
+        }
+        final FenwickSampler sampler = samplers.get(item.getCategory());
+        if (sampler == null) {
+            samplers.put(item.getCategory(), new FenwickSampler(List.of(item), weigher));
+            totalWeight += categoryWeight;
+        } else {
+            sampler.add(item);
+        }
+        categories.put(item.getId(), item.getCategory());
+    }
+
+    @Override
+    public synchronized void remove(final Item item) {
+        final String category = categories.remove(item.getId());
+        if (category == null) {
+            return;
+        }
+
+        // A category with nothing left in it can't be drawn, so its weight comes out of the total too
+        final FenwickSampler sampler = samplers.get(category);
+        sampler.remove(item);
+        if (sampler.size() == 0) {
+            samplers.remove(category);
+            totalWeight -= categoryWeights.getWeight(category);
+        }
+    }
+
+    @Override
+    public synchronized void update(final Item item) {
+        final String category = categories.get(item.getId());
+        if (category == null) {
+            add(item);
+        } else if (!category.equals(item.getCategory())) {
+            remove(item);
+            add(item);
+        } else {
+            samplers.get(category).update(item);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package net.christopherknox.rc.sampler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class CategoryWeights {
+
+    private final boolean enabled;
+    private final Map<String, Integer> weights;
+    private final int defaultWeight;
+
+    public CategoryWeights(@Value("${sampler.category.enabled:false}") final boolean enabled,
+        @Value("#{${sampler.category.weights:{:}}}") final Map<String, Integer> weights,
+        @Value("${sampler.category.default-weight:1}") final int defaultWeight) {
+        this.enabled = enabled;
+        this.weights = new HashMap<>(weights);
+        this.defaultWeight = defaultWeight;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getWeight(final String category) {
+        // A category weighted at zero is left out of whole list draws entirely
+        return Math.max(0, weights.getOrDefault(category, defaultWeight));
+    }
+}
@@ -0,0 +1,12 @@
+package net.christopherknox.rc.sampler;
+
+import net.christopherknox.rc.model.Item;
+
+public interface DynamicSampler extends WeightedSampler {
+
+    void add(Item item);
+
+    void remove(Item item);
+
+    void update(Item item);
+}
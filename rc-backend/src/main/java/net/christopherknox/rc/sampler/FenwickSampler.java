@@ -0,0 +1,141 @@
+package net.christopherknox.rc.sampler;
+
+import net.christopherknox.rc.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class FenwickSampler implements DynamicSampler {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final List<Item> items;
+    private final Map<Integer, Integer> positions;
+    private final Weigher weigher;
+    private int[] weights;
+    private long[] tree;
+    private long totalWeight;
+
+    public FenwickSampler(final List<Item> items) {
+        this(items, Weigher.PRIORITY);
+    }
+
+    public FenwickSampler(final List<Item> items, final Weigher weigher) {
+        this.weigher = weigher;
+        this.items = new ArrayList<>(items);
+        positions = new HashMap<>();
+        for (int i = 0; i < this.items.size(); i++) {
+            positions.put(this.items.get(i).getId(), i);
+        }
+        rebuild(Math.max(MIN_CAPACITY, this.items.size()));
+    }
+
+    @Override
+    public synchronized List<Item> getItems() {
+        return Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    @Override
+    public synchronized int size() {
+        return items.size();
+    }
+
+    @Override
+    public synchronized Item getItem(final Integer id) {
+        final Integer position = positions.get(id);
+        return position != null ? items.get(position) : null;
+    }
+
+    @Override
+    public synchronized Item next(final Random rand) {
+        // Walk down the tree, skipping every subtree whose total weight is still below the target
+        long target = (long) (rand.nextDouble() * totalWeight);
+        int position = 0;
+        for (int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next <= weights.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return items.get(Math.min(position, items.size() - 1));
+    }
+
+    @Override
+    public synchronized void add(final Item item) {
+        if (positions.containsKey(item.getId())) {
+            update(item);
+            return;
+        }
+        final int position = items.size();
+        if (position == weights.length) {
+            rebuild(weights.length * 2);
+        }
+        items.add(item);
+        positions.put(item.getId(), position);
+        adjust(position, weigher.weigh(item));
+    }
+
+    @Override
+    public synchronized void remove(final Item item) {
+        final Integer position = positions.remove(item.getId());
+        if (position == null) {
+            return;
+        }
+
+        // Fill the hole with the last item so that the occupied slots always stay contiguous
+        final int last = items.size() - 1;
+        adjust(position, -weights[position]);
+        if (position != last) {
+            final Item moved = items.get(last);
+            final int movedWeight = weights[last];
+            adjust(last, -movedWeight);
+            items.set(position, moved);
+            positions.put(moved.getId(), position);
+            adjust(position, movedWeight);
+        }
+        items.remove(last);
+    }
+
+    @Override
+    public synchronized void update(final Item item) {
+        final Integer position = positions.get(item.getId());
+        if (position == null) {
+            add(item);
+            return;
+        }
+        items.set(position, item);
+        adjust(position, weigher.weigh(item) - weights[position]);
+    }
+
+    private void adjust(final int position, final int delta) {
+        weights[position] += delta;
+        totalWeight += delta;
+        for (int i = position + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void rebuild(final int capacity) {
+        weights = new int[capacity];
+        tree = new long[capacity + 1];
+        totalWeight = 0;
+        for (int i = 0; i < items.size(); i++) {
+            weights[i] = weigher.weigh(items.get(i));
+            totalWeight += weights[i];
+        }
+
+        // Build the tree in one pass by pushing each node's sum up to its parent
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += weights[i - 1];
+            final int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package net.christopherknox.rc.sampler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+@Slf4j
+public class RandomProvider {
+
+    private final RandomType randomType;
+    private final ThreadLocal<Random> splittables;
+    private final ThreadLocal<SplittableRandomAdapter> seededSplits;
+    private final ThreadLocal<SplittableRandomAdapter> fromSeeds;
+    private SplittableRandom root;
+
+    public RandomProvider(@Value("${sampler.random:THREAD_LOCAL}") final RandomType randomType,
+        @Value("${sampler.seed:0}") final long seed) {
+        this.randomType = randomType;
+        root = randomType == RandomType.SEEDED ? new SplittableRandom(seed) : new SplittableRandom();
+        splittables = ThreadLocal.withInitial(() -> new SplittableRandomAdapter(split()));
+        seededSplits = ThreadLocal.withInitial(() -> new SplittableRandomAdapter(null));
+        fromSeeds = ThreadLocal.withInitial(() -> new SplittableRandomAdapter(null));
+        log.info("Using " + randomType + " random source");
+    }
+
+    public Random get() {
+        switch (randomType) {
+            case SPLITTABLE:
+                // Each worker thread gets its own generator split off the root, so nothing is shared between requests
+                return splittables.get();
+            case SEEDED:
+                // Every call gets the next generator split off the seeded root, so the same seed and the same order of
+                // requests always replays the same sets. The generator is only good until this thread asks again
+                return seededSplits.get().use(split());
+            default:
+                return ThreadLocalRandom.current();
+        }
+    }
+
+    public Random get(final long seed) {
+        // A set drawn from its own seed can be drawn again exactly, as long as the items haven't changed since. Kept
+        // apart from the seeded splits, since a seed is often drawn from one of those right before this is called
+        return fromSeeds.get().use(new SplittableRandom(seed));
+    }
+
+    public boolean isSeeded() {
+        return randomType == RandomType.SEEDED;
+    }
+
+    public long nextSeed() {
+        return get().nextLong();
+    }
+
+    public synchronized void reset(final long seed) {
+        root = new SplittableRandom(seed);
+    }
+
+    private synchronized SplittableRandom split() {
+        return root.split();
+    }
+}
@@ -0,0 +1,7 @@
+package net.christopherknox.rc.sampler;
+
+public enum RandomType {
+    THREAD_LOCAL,
+    SPLITTABLE,
+    SEEDED
+}
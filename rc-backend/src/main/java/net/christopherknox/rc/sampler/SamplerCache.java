@@ -0,0 +1,212 @@
+package net.christopherknox.rc.sampler;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.DataReloadedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class SamplerCache {
+
+    private static final String ALL_CATEGORIES = "";
+
+    private final SamplerType samplerType;
+    private final AgingPolicy agingPolicy;
+    private final CategoryWeights categoryWeights;
+    private final Map<String, CachedSampler> samplers = new ConcurrentHashMap<>();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong versionCounter = new AtomicLong();
+    private volatile long baseVersion;
+    private volatile Object lineage;
+    private volatile LocalDate weighedOn;
+    private volatile Weigher weigher;
+
+    public SamplerCache(@Value("${sampler.type:ALIAS}") final SamplerType samplerType,
+        final AgingPolicy agingPolicy, final CategoryWeights categoryWeights) {
+        this.samplerType = samplerType;
+        this.agingPolicy = agingPolicy;
+        this.categoryWeights = categoryWeights;
+        weighedOn = LocalDate.now();
+        weigher = agingPolicy.getWeigher(weighedOn);
+    }
+
+    public SamplerCache newCache() {
+        return new SamplerCache(samplerType, agingPolicy, categoryWeights);
+    }
+
+    public WeightedSampler getSampler(final List<Item> items, final String category) {
+        return getCached(items, category).sampler;
+    }
+
+    public long getDataVersion(final List<Item> items, final String category) {
+        return getCached(items, category).dataVersion;
+    }
+
+    private CachedSampler getCached(final List<Item> items, final String category) {
+        // A new version of the same to-do list has its changes applied as they are made, but if the list itself was
+        // swapped out by a reload then nothing cached can be trusted
+        final Object itemsLineage = SnapshotList.lineage(items);
+        if (itemsLineage != lineage) {
+            synchronized (this) {
+                if (itemsLineage != lineage) {
+                    invalidateAll();
+                    lineage = itemsLineage;
+                }
+            }
+        }
+
+        // When items age with time, every cached sampler is rebuilt once on the first request of a new day
+        if (agingPolicy.isEnabled() && !LocalDate.now().equals(weighedOn)) {
+            log.info("Day changed, rebuilding aged samplers");
+            weighedOn = LocalDate.now();
+            weigher = agingPolicy.getWeigher(weighedOn);
+            invalidateAll();
+        }
+        // A reader still holding the lists from before a reload can race the one that cleared the cache, so each
+        // sampler keeps the lineage it was built from and is only handed out for lists of that same lineage
+        final String key = toKey(category);
+        final CachedSampler cached = samplers.get(key);
+        if (cached != null && cached.lineage == itemsLineage) {
+            return cached;
+        }
+        return samplers.compute(key, (k, c) -> {
+            if (c != null && c.lineage == itemsLineage) {
+                return c;
+            }
+            final WeightedSampler sampler = buildSampler(items, k);
+            return new CachedSampler(sampler, itemsLineage, getDataVersion(sampler));
+        });
+    }
+
+    private WeightedSampler buildSampler(final List<Item> items, final String key) {
+        if (key.equals(ALL_CATEGORIES) && categoryWeights.isEnabled()) {
+            // Whole list draws pick a category by its weight first, then an item inside it
+            log.info("Building category weighted sampler for: (ALL)");
+            return new CategorySampler(items, categoryWeights, weigher);
+        }
+        log.info("Building " + samplerType + " sampler for: " + (key.equals(ALL_CATEGORIES) ? "(ALL)" : key));
+        final List<Item> categoryItems = key.equals(ALL_CATEGORIES) ? items : items.stream()
+            .filter(i -> i.getCategory().equals(key)).collect(Collectors.toList());
+        switch (samplerType) {
+            case FENWICK:
+                return new FenwickSampler(categoryItems, weigher);
+            case STREAMING:
+                return new StreamingSampler(categoryItems, weigher);
+            default:
+                return new AliasSampler(categoryItems, weigher);
+        }
+    }
+
+    public long getVersion(final String category) {
+        return Math.max(baseVersion, versions.getOrDefault(toKey(category), 0L));
+    }
+
+    private long getDataVersion(final WeightedSampler sampler) {
+        // Only depends on what the sampler holds and in which order, so building a sampler again from the same items,
+        // after a restart too, gives the same version and seeds drawn against it can still be replayed. Changes made to
+        // a sampler in place move it on with the cache version instead, and can leave items in an order a rebuild
+        // wouldn't, so seeds drawn after one only replay until the sampler is next built
+        long dataVersion = 1;
+        for (Item item : sampler.getItems()) {
+            dataVersion = 31 * dataVersion + item.getId();
+            dataVersion = 31 * dataVersion + item.getCategory().hashCode();
+            dataVersion = 31 * dataVersion + weigher.weigh(item);
+            if (sampler instanceof CategorySampler) {
+                dataVersion = 31 * dataVersion + categoryWeights.getWeight(item.getCategory());
+            }
+        }
+        return dataVersion;
+    }
+
+    public void itemAdded(final Item item) {
+        apply(item.getCategory(), s -> s.add(item));
+    }
+
+    public void itemRemoved(final Item item) {
+        apply(item.getCategory(), s -> s.remove(item));
+    }
+
+    public void itemUpdated(final String oldCategory, final Item item) {
+        if (oldCategory == null || oldCategory.equals(item.getCategory())) {
+            apply(item.getCategory(), s -> s.update(item));
+        } else {
+            apply(oldCategory, s -> s.remove(item));
+            apply(item.getCategory(), s -> s.add(item));
+        }
+    }
+
+    @EventListener
+    public void dataReloaded(final DataReloadedEvent event) {
+        // Changes picked up from the save file are applied like any others, so samplers don't need rebuilding
+        event.getData().getRemoved().forEach(this::itemRemoved);
+        event.getData().getChanged().forEach(c -> itemUpdated(c.getBefore().getCategory(), c.getAfter()));
+        event.getData().getAdded().forEach(this::itemAdded);
+    }
+
+    public void invalidate(final String... categories) {
+        for (String category : categories) {
+            if (category != null) {
+                samplers.remove(category);
+                changed(category);
+            }
+        }
+        samplers.remove(ALL_CATEGORIES);
+        changed(ALL_CATEGORIES);
+    }
+
+    public void invalidateAll() {
+        samplers.clear();
+        baseVersion = versionCounter.incrementAndGet();
+        versions.clear();
+    }
+
+    private void apply(final String category, final Consumer<DynamicSampler> change) {
+        // Samplers that can be updated in place get the change applied, anything else is dropped to be rebuilt later.
+        // Either way the version only moves on after that, so a set picked from the sampler as it was before the
+        // change can never be tagged with the version after it
+        for (String key : List.of(category, ALL_CATEGORIES)) {
+            final CachedSampler updated = samplers.computeIfPresent(key, (k, cached) -> {
+                if (cached.sampler instanceof DynamicSampler) {
+                    change.accept((DynamicSampler) cached.sampler);
+                    cached.dataVersion = 31 * cached.dataVersion + changed(k);
+                    return cached;
+                }
+                return null;
+            });
+            if (updated == null) {
+                changed(key);
+            }
+        }
+    }
+
+    private long changed(final String key) {
+        final long version = versionCounter.incrementAndGet();
+        versions.put(key, version);
+        return version;
+    }
+
+    private static String toKey(final String category) {
+        return StringUtils.hasText(category) ? category : ALL_CATEGORIES;
+    }
+
+    @AllArgsConstructor
+    private static class CachedSampler {
+        private final WeightedSampler sampler;
+        private final Object lineage;
+        private volatile long dataVersion;
+    }
+}
@@ -0,0 +1,7 @@
+package net.christopherknox.rc.sampler;
+
+public enum SamplerType {
+    ALIAS,
+    FENWICK,
+    STREAMING
+}
@@ -0,0 +1,128 @@
+package net.christopherknox.rc.sampler;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.DataStore;
+import net.christopherknox.rc.model.Item;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Component
+@Slf4j
+public class SetPool {
+
+    private final DataStore dataStore;
+    private final SamplerCache samplerCache;
+    private final RandomProvider randomProvider;
+    private final int poolSize;
+    private final Map<String, Queue<PooledSet>> pools = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> pendingRefills = new ConcurrentHashMap<>();
+    private final ExecutorService refiller;
+
+    @Autowired
+    public SetPool(final DataStore dataStore, final SamplerCache samplerCache, final RandomProvider randomProvider,
+        @Value("${sampler.pool.size:0}") final int poolSize) {
+        this(dataStore, samplerCache, randomProvider, poolSize, poolSize > 0 ? Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "set-pool-refill");
+            thread.setDaemon(true);
+            return thread;
+        }) : null);
+    }
+
+    private SetPool(final DataStore dataStore, final SamplerCache samplerCache, final RandomProvider randomProvider,
+        final int poolSize, final ExecutorService refiller) {
+        this.dataStore = dataStore;
+        this.samplerCache = samplerCache;
+        this.randomProvider = randomProvider;
+        this.poolSize = poolSize;
+        this.refiller = refiller;
+    }
+
+    public SetPool newPool(final DataStore store, final SamplerCache storeSamplerCache) {
+        // Pools for other stores share the one refill thread, and are refilled from the store they were made for
+        return new SetPool(store, storeSamplerCache, randomProvider, poolSize, refiller);
+    }
+
+    public boolean isEnabled() {
+        return poolSize > 0;
+    }
+
+    public Optional<PooledSet> poll(final String category, final int setSize) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+
+        // Anything picked before the category last changed is thrown away rather than handed out
+        final Queue<PooledSet> pool = pools.get(toKey(category));
+        final long version = samplerCache.getVersion(category);
+        PooledSet pooled;
+        while (pool != null && (pooled = pool.poll()) != null) {
+            if (pooled.getVersion() == version && pooled.getItems().size() == setSize) {
+                return Optional.of(pooled);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public CompletableFuture<Void> refill(final String category, final int setSize) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // A category already waiting to be refilled shares that refill rather than queueing another
+        return pendingRefills.computeIfAbsent(toKey(category), key -> CompletableFuture.runAsync(() -> {
+            pendingRefills.remove(key);
+            try {
+                final Queue<PooledSet> pool =
+                    pools.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(poolSize));
+                // If the category changes while a set is being picked, that set is dropped and picked again, up to a
+                // limit so that a busy category can't keep the refiller spinning
+                int attempts = 0;
+                while (pool.size() < poolSize && attempts++ < poolSize * 2) {
+                    final long version = samplerCache.getVersion(category);
+                    final WeightedSampler sampler = samplerCache.getSampler(dataStore.getData(), category);
+                    final long seed = randomProvider.nextSeed();
+                    final List<Item> items = sampler.sample(setSize, new HashSet<>(), randomProvider.get(seed));
+                    if (samplerCache.getVersion(category) == version) {
+                        pool.offer(new PooledSet(version, seed, items));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Could not refill set pool for: " + category, e);
+            }
+        }, refiller));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refiller != null) {
+            refiller.shutdownNow();
+        }
+    }
+
+    private static String toKey(final String category) {
+        return StringUtils.hasText(category) ? category : "";
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PooledSet {
+        private final long version;
+        private final long seed;
+        private final List<Item> items;
+    }
+}
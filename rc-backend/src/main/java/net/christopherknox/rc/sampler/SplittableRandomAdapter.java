@@ -0,0 +1,52 @@
+package net.christopherknox.rc.sampler;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+public class SplittableRandomAdapter extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private SplittableRandom source;
+
+    public SplittableRandomAdapter(final SplittableRandom source) {
+        this.source = source;
+    }
+
+    // Building a Random goes through its shared seed uniquifier, so a thread that draws lots of seeded sets keeps one
+    // adapter and swaps the generator underneath it instead
+    SplittableRandomAdapter use(final SplittableRandom source) {
+        this.source = source;
+        return this;
+    }
+
+    @Override
+    protected int next(final int bits) {
+        return source.nextInt() >>> (32 - bits);
+    }
+
+    @Override
+    public int nextInt() {
+        return source.nextInt();
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        return source.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return source.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return source.nextDouble();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return source.nextBoolean();
+    }
+}
@@ -0,0 +1,46 @@
+package net.christopherknox.rc.sampler;
+
+import net.christopherknox.rc.DataStore;
+import net.christopherknox.rc.tenant.TenantEvictedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cached samplers and pooled sets only hold for the lists of the store they were built from. Every profile but
+// "tenant" has the one store, which uses the cache and pool Spring made, while each tenant gets its own for as long as
+// it stays loaded
+@Component
+public class StoreSamplers {
+
+    private final DataStore dataStore;
+    private final SamplerCache samplerCache;
+    private final SetPool setPool;
+    private final Map<DataStore, SamplerCache> samplerCaches = new ConcurrentHashMap<>();
+    private final Map<DataStore, SetPool> setPools = new ConcurrentHashMap<>();
+
+    public StoreSamplers(final DataStore dataStore, final SamplerCache samplerCache, final SetPool setPool) {
+        this.dataStore = dataStore;
+        this.samplerCache = samplerCache;
+        this.setPool = setPool;
+    }
+
+    public SamplerCache getSamplerCache(final DataStore store) {
+        final DataStore current = store.current();
+        return current == dataStore ? samplerCache
+            : samplerCaches.computeIfAbsent(current, s -> samplerCache.newCache());
+    }
+
+    public SetPool getSetPool(final DataStore store) {
+        final DataStore current = store.current();
+        return current == dataStore ? setPool
+            : setPools.computeIfAbsent(current, s -> setPool.newPool(s, getSamplerCache(s)));
+    }
+
+    @EventListener
+    public void tenantEvicted(final TenantEvictedEvent event) {
+        samplerCaches.remove(event.getStore());
+        setPools.remove(event.getStore());
+    }
+}
@@ -0,0 +1,99 @@
+package net.christopherknox.rc.sampler;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.christopherknox.rc.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+public class StreamingSampler implements WeightedSampler {
+
+    private final List<Item> items;
+    private final Map<Integer, Item> index;
+    private final Weigher weigher;
+    private final long totalWeight;
+
+    public StreamingSampler(final List<Item> items) {
+        this(items, Weigher.PRIORITY);
+    }
+
+    public StreamingSampler(final List<Item> items, final Weigher weigher) {
+        this.weigher = weigher;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        index = new HashMap<>();
+        this.items.forEach(i -> index.put(i.getId(), i));
+        totalWeight = this.items.stream().mapToLong(weigher::weigh).sum();
+    }
+
+    @Override
+    public List<Item> getItems() {
+        return items;
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public Item getItem(final Integer id) {
+        return index.get(id);
+    }
+
+    @Override
+    public Item next(final Random rand) {
+        long target = (long) (rand.nextDouble() * totalWeight);
+        for (Item item : items) {
+            target -= weigher.weigh(item);
+            if (target < 0) {
+                return item;
+            }
+        }
+        return items.get(items.size() - 1);
+    }
+
+    @Override
+    public List<Item> sample(final int count, final Set<Item> exclude, final Random rand) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Efraimidis-Spirakis: give every item the key ln(u) / weight and keep the largest keys, which is the same as
+        // drawing weighted items one at a time without replacement, but done in a single pass with no redraws
+        final PriorityQueue<Keyed> heap = new PriorityQueue<>(count, Comparator.comparingDouble(Keyed::getKey));
+        for (Item item : items) {
+            if (exclude.contains(item)) {
+                continue;
+            }
+            final double key = Math.log(1.0 - rand.nextDouble()) / weigher.weigh(item);
+            if (heap.size() < count) {
+                heap.add(new Keyed(key, item));
+            } else if (key > heap.peek().getKey()) {
+                heap.poll();
+                heap.add(new Keyed(key, item));
+            }
+        }
+
+        final List<Item> chosen = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            chosen.add(heap.poll().getItem());
+        }
+        Collections.reverse(chosen);
+        return chosen;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Keyed {
+        private final double key;
+        private final Item item;
+    }
+}
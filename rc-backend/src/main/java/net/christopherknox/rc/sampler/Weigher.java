@@ -0,0 +1,11 @@
+package net.christopherknox.rc.sampler;
+
+import net.christopherknox.rc.model.Item;
+
+@FunctionalInterface
+public interface Weigher {
+
+    Weigher PRIORITY = item -> item.getPriority().getWeight();
+
+    int weigh(Item item);
+}
@@ -0,0 +1,33 @@
+package net.christopherknox.rc.sampler;
+
+import net.christopherknox.rc.model.Item;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public interface WeightedSampler {
+
+    List<Item> getItems();
+
+    int size();
+
+    Item getItem(Integer id);
+
+    Item next(Random rand);
+
+    default List<Item> sample(final int count, final Set<Item> exclude, final Random rand) {
+        // Keep drawing with replacement and throw away anything we already have until there are enough unique items
+        final Set<Item> chosen = new LinkedHashSet<>();
+        final int target = Math.min(count, size() - exclude.size());
+        while (chosen.size() < target) {
+            final Item item = next(rand);
+            if (!exclude.contains(item)) {
+                chosen.add(item);
+            }
+        }
+        return new ArrayList<>(chosen);
+    }
+}
@@ -0,0 +1,18 @@
+package net.christopherknox.rc.tenant;
+
+public class TenantContext {
+
+    private static final ThreadLocal<String> tenant = new ThreadLocal<>();
+
+    public static String get() {
+        return tenant.get();
+    }
+
+    public static void set(final String id) {
+        tenant.set(id);
+    }
+
+    public static void clear() {
+        tenant.remove();
+    }
+}
@@ -0,0 +1,140 @@
+package net.christopherknox.rc.tenant;
+
+import net.christopherknox.rc.DataStore;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.persistence.LogRecord;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Hands every call on to the store of the tenant the current request is for, loading it first if needed
+@Component
+@Profile("tenant")
+public class TenantDataStore implements DataStore {
+
+    private final TenantStores stores;
+
+    public TenantDataStore(final TenantStores stores) {
+        this.stores = stores;
+    }
+
+    @Override
+    public Data getSnapshot() {
+        return getStore().getSnapshot();
+    }
+
+    @Override
+    public List<Item> getData() {
+        return getStore().getData();
+    }
+
+    @Override
+    public void setData(final List<Item> data) {
+        getStore().setData(data);
+    }
+
+    @Override
+    public List<Item> getHistory() {
+        return getStore().getHistory();
+    }
+
+    @Override
+    public void setHistory(final List<Item> history) {
+        getStore().setHistory(history);
+    }
+
+    @Override
+    public List<String> getCategories() {
+        return getStore().getCategories();
+    }
+
+    @Override
+    public void setCategories(final List<String> categories) {
+        getStore().setCategories(categories);
+    }
+
+    @Override
+    public Map<String, LastSet> getLastSets() {
+        return getStore().getLastSets();
+    }
+
+    @Override
+    public void setLastSets(final Map<String, LastSet> lastSets) {
+        getStore().setLastSets(lastSets);
+    }
+
+    @Override
+    public void updateLastSets(final Consumer<Map<String, LastSet>> change) {
+        getStore().updateLastSets(change);
+    }
+
+    @Override
+    public void update(final Consumer<Data> change) {
+        getStore().update(change);
+    }
+
+    @Override
+    public Integer getDefaultSetSize() {
+        return getStore().getDefaultSetSize();
+    }
+
+    @Override
+    public void setDefaultSetSize(final Integer defaultSetSize) {
+        getStore().setDefaultSetSize(defaultSetSize);
+    }
+
+    @Override
+    public Integer getNextId() {
+        return getStore().getNextId();
+    }
+
+    @Override
+    public void record(final LogRecord record) {
+        getStore().record(record);
+    }
+
+    @Override
+    public void save() throws IOException {
+        getStore().save();
+    }
+
+    @Override
+    public void saveLastSets() throws IOException {
+        getStore().saveLastSets();
+    }
+
+    @Override
+    public void reload() throws IOException {
+        getStore().reload();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        getStore().flush();
+    }
+
+    @Override
+    public DataStore current() {
+        // Without a tenant there is no store to hand back, so calls stay here and fail the same as any other would
+        return TenantContext.get() != null ? getStore() : this;
+    }
+
+    private TenantStore getStore() {
+        final String tenant = TenantContext.get();
+        if (tenant == null) {
+            throw new IllegalStateException("No tenant given for this request");
+        }
+        try {
+            return stores.get(tenant);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load tenant: " + tenant, e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package net.christopherknox.rc.tenant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TenantEvictedEvent {
+    private final String tenant;
+    private final TenantStore store;
+}
@@ -0,0 +1,70 @@
+package net.christopherknox.rc.tenant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Works out which tenant a request is for, from a header or from a path starting /tenants/<id>/
+@Component
+@Profile("tenant")
+public class TenantFilter extends OncePerRequestFilter {
+
+    private static final String PATH_PREFIX = "/tenants/";
+
+    private final String header;
+    private final String defaultTenant;
+    private final TenantStores stores;
+
+    public TenantFilter(@Value("${tenant.header:X-Tenant}") final String header,
+        @Value("${tenant.default:}") final String defaultTenant, final TenantStores stores) {
+        this.header = header;
+        this.defaultTenant = defaultTenant;
+        this.stores = stores;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+        final FilterChain chain) throws ServletException, IOException {
+        String tenant = request.getHeader(header);
+        String forwardTo = null;
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith(PATH_PREFIX)) {
+            final int end = path.indexOf('/', PATH_PREFIX.length());
+            tenant = path.substring(PATH_PREFIX.length(), end > 0 ? end : path.length());
+            forwardTo = end > 0 ? path.substring(end) : "/";
+        } else if (!StringUtils.hasText(tenant)) {
+            tenant = StringUtils.hasText(defaultTenant) ? defaultTenant : null;
+        }
+        if (tenant != null && !TenantStores.isValid(tenant)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid tenant: " + tenant);
+            return;
+        }
+
+        // The tenant's store is kept loaded until the request is done with it, so none of its changes are lost
+        TenantContext.set(tenant);
+        if (tenant != null) {
+            stores.acquire(tenant);
+        }
+        try {
+            if (forwardTo != null) {
+                request.getRequestDispatcher(forwardTo).forward(request, response);
+            } else {
+                chain.doFilter(request, response);
+            }
+        } finally {
+            if (tenant != null) {
+                stores.release(tenant);
+            }
+            TenantContext.clear();
+        }
+    }
+}
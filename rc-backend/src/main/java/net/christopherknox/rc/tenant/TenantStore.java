@@ -0,0 +1,183 @@
+package net.christopherknox.rc.tenant;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import net.christopherknox.rc.DataStore;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.persistence.AtomicFiles;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.StreamingDataReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// One tenant's lists, kept in a save file of its own and written out in full on every save
+@Slf4j
+public class TenantStore implements DataStore {
+
+    private final File file;
+    private final File lastSetsFile;
+    private final ObjectMapper mapper;
+    private volatile Data filedata;
+    private volatile Map<String, LastSet> lastSets;
+    private final Object lastSetsLock = new Object();
+    private final Object lastSetsWriteLock = new Object();
+    private final AtomicBoolean lastSetsChanged = new AtomicBoolean();
+    private boolean changed;
+
+    public TenantStore(final File file, final ObjectMapper mapper) throws IOException {
+        this.file = file;
+        this.lastSetsFile = new File(file.getPath().replaceAll("\\.json$", "") + ".lastsets.json");
+        this.mapper = mapper;
+        reload();
+    }
+
+    public int size() {
+        final Data data = filedata;
+        return data.getData().size() + data.getHistory().size();
+    }
+
+    public synchronized boolean isChanged() {
+        return changed;
+    }
+
+    @Override
+    public void record(final LogRecord record) {
+        // Every save writes the whole file, so there is nothing that needs to know what changed
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        log.debug("Saving to: " + file.getAbsolutePath());
+        AtomicFiles.write(file, mapper.writeValueAsBytes(filedata), false);
+        changed = false;
+    }
+
+    @Override
+    public void saveLastSets() throws IOException {
+        // Called every so often rather than on every change, and only ever writes when there is something new
+        synchronized (lastSetsWriteLock) {
+            if (!lastSetsChanged.getAndSet(false)) {
+                return;
+            }
+            try {
+                log.debug("Saving last sets to: " + lastSetsFile.getAbsolutePath());
+                AtomicFiles.write(lastSetsFile, mapper.writeValueAsBytes(lastSets), false);
+            } catch (IOException e) {
+                lastSetsChanged.set(true);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void reload() throws IOException {
+        // A tenant without a file yet starts out empty, the file is only created when something is saved
+        final Data loaded = file.exists() ? new StreamingDataReader(mapper).read(file, (r, t) -> {})
+            : new Data();
+        if (loaded.getHistory() == null) {
+            loaded.setHistory(new ArrayList<>());
+        }
+        filedata = loaded.freeze();
+        lastSets = lastSetsFile.exists() ? mapper.readValue(lastSetsFile, new TypeReference<>() {}) : new HashMap<>();
+        lastSetsChanged.set(false);
+        changed = false;
+    }
+
+    @Override
+    public void flush() {
+        // Saves are written straight away, so there is never anything left waiting
+    }
+
+    @Override
+    public Data getSnapshot() {
+        return filedata;
+    }
+
+    @Override
+    public List<Item> getData() {
+        return filedata.getData();
+    }
+
+    @Override
+    public void setData(final List<Item> data) {
+        update(d -> d.setData(data));
+    }
+
+    @Override
+    public List<Item> getHistory() {
+        return filedata.getHistory();
+    }
+
+    @Override
+    public void setHistory(final List<Item> history) {
+        update(d -> d.setHistory(history));
+    }
+
+    @Override
+    public List<String> getCategories() {
+        return filedata.getCategories();
+    }
+
+    @Override
+    public void setCategories(final List<String> categories) {
+        update(d -> d.setCategories(categories));
+    }
+
+    @Override
+    public synchronized void update(final Consumer<Data> change) {
+        filedata = filedata.next(change);
+        changed = true;
+    }
+
+    @Override
+    public Map<String, LastSet> getLastSets() {
+        return lastSets;
+    }
+
+    @Override
+    public void setLastSets(final Map<String, LastSet> lastSets) {
+        synchronized (lastSetsLock) {
+            this.lastSets = lastSets;
+        }
+        lastSetsChanged.set(true);
+    }
+
+    @Override
+    public void updateLastSets(final Consumer<Map<String, LastSet>> change) {
+        synchronized (lastSetsLock) {
+            final Map<String, LastSet> updated = new HashMap<>(lastSets);
+            change.accept(updated);
+            lastSets = updated;
+        }
+        lastSetsChanged.set(true);
+    }
+
+    @Override
+    public Integer getDefaultSetSize() {
+        return filedata.getDefaultSetSize();
+    }
+
+    @Override
+    public synchronized void setDefaultSetSize(final Integer defaultSetSize) {
+        filedata = filedata.with(d -> d.setDefaultSetSize(defaultSetSize));
+        changed = true;
+    }
+
+    @Override
+    public synchronized Integer getNextId() {
+        final Integer nextId = filedata.getNextId();
+        filedata = filedata.with(d -> d.setNextId(nextId + 1));
+        changed = true;
+        return nextId;
+    }
+}
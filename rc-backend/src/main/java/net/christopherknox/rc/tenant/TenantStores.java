@@ -0,0 +1,234 @@
+package net.christopherknox.rc.tenant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@Component
+@Profile("tenant")
+@Slf4j
+public class TenantStores {
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path directory;
+    private final int maxLoaded;
+    private final long maxItems;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper mapper = new ObjectMapper();
+    // Access ordered, so the least recently used tenant is always first in line to be evicted. Tenants are loaded
+    // into their future after letting go of the lock, so only those asking for the same tenant wait on its file
+    private final LinkedHashMap<String, CompletableFuture<TenantStore>> stores = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> sizes = new HashMap<>();
+    // Requests still working with a tenant, which keep its store from being evicted out from under their changes
+    private final Map<String, Integer> users = new HashMap<>();
+    // Evicted tenants still being saved, which have to be on disk before the tenant can be read back in
+    private final Map<String, CompletableFuture<Void>> evicting = new HashMap<>();
+    private long loadedItems;
+    private final ScheduledExecutorService lastSetsFlusher;
+
+    public TenantStores(@Value("${tenant.directory:tenants}") final String directory,
+        @Value("${tenant.max-loaded:1000}") final int maxLoaded,
+        @Value("${tenant.max-items:1000000}") final long maxItems,
+        @Value("${data.lastsets.flush-interval-ms:1000}") final long lastSetsFlushIntervalMs,
+        final ApplicationEventPublisher eventPublisher) {
+        this.directory = Paths.get(directory);
+        this.maxLoaded = maxLoaded;
+        this.maxItems = maxItems;
+        this.eventPublisher = eventPublisher;
+        lastSetsFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "last-sets-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lastSetsFlusher.scheduleWithFixedDelay(this::saveLastSets, lastSetsFlushIntervalMs, lastSetsFlushIntervalMs,
+            TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isValid(final String tenant) {
+        return tenant != null && VALID_ID.matcher(tenant).matches();
+    }
+
+    public TenantStore get(final String tenant) throws IOException {
+        if (!isValid(tenant)) {
+            throw new IllegalArgumentException("Invalid tenant: " + tenant);
+        }
+        CompletableFuture<TenantStore> future;
+        final boolean load;
+        final CompletableFuture<Void> saving;
+        synchronized (this) {
+            future = stores.get(tenant);
+            load = future == null;
+            if (load) {
+                future = new CompletableFuture<>();
+                stores.put(tenant, future);
+            }
+            saving = evicting.get(tenant);
+        }
+        if (load) {
+            load(tenant, future, saving);
+        }
+        final TenantStore store = join(tenant, future);
+
+        // Sizes are only weighed again when a tenant is used, which is also the only time they can have grown
+        final List<Evicted> evicted;
+        synchronized (this) {
+            if (stores.get(tenant) != future) {
+                return store;
+            }
+            final int size = store.size();
+            final Integer previous = sizes.put(tenant, size);
+            loadedItems += size - (previous != null ? previous : 0);
+            evicted = evict(tenant);
+        }
+        for (Evicted entry : evicted) {
+            saveIfChanged(entry.tenant, entry.store);
+            synchronized (this) {
+                evicting.remove(entry.tenant, entry.saved);
+            }
+            entry.saved.complete(null);
+            eventPublisher.publishEvent(new TenantEvictedEvent(entry.tenant, entry.store));
+        }
+        return store;
+    }
+
+    public synchronized void acquire(final String tenant) {
+        users.merge(tenant, 1, Integer::sum);
+    }
+
+    public synchronized void release(final String tenant) {
+        users.computeIfPresent(tenant, (t, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public synchronized int getLoadedCount() {
+        return stores.size();
+    }
+
+    public synchronized long getLoadedItems() {
+        return loadedItems;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lastSetsFlusher.shutdown();
+        for (Map.Entry<String, TenantStore> entry : getLoaded()) {
+            saveIfChanged(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void saveLastSets() {
+        // Only the list of tenants is taken under the lock, the files are written after letting go of it
+        for (Map.Entry<String, TenantStore> entry : getLoaded()) {
+            try {
+                entry.getValue().saveLastSets();
+            } catch (IOException e) {
+                log.warn("Could not save last sets for tenant: " + entry.getKey(), e);
+            }
+        }
+    }
+
+    private synchronized List<Map.Entry<String, TenantStore>> getLoaded() {
+        final List<Map.Entry<String, TenantStore>> loaded = new ArrayList<>();
+        stores.forEach((tenant, future) -> {
+            final TenantStore store = future.getNow(null);
+            if (store != null) {
+                loaded.add(Map.entry(tenant, store));
+            }
+        });
+        return loaded;
+    }
+
+    private void load(final String tenant, final CompletableFuture<TenantStore> future,
+        final CompletableFuture<Void> saving) {
+        try {
+            if (saving != null) {
+                saving.join();
+            }
+            Files.createDirectories(directory);
+            log.info("Loading tenant: " + tenant);
+            future.complete(new TenantStore(directory.resolve(tenant + ".json").toFile(), mapper));
+        } catch (IOException | RuntimeException e) {
+            // Nothing is kept of a load that failed, so the next request for the tenant tries again
+            synchronized (this) {
+                stores.remove(tenant, future);
+            }
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static TenantStore join(final String tenant, final CompletableFuture<TenantStore> future)
+        throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new IOException("Could not load tenant: " + tenant, e.getCause());
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private List<Evicted> evict(final String tenant) {
+        // The tenant just asked for is the most recently used, and neither it nor any tenant still being loaded or
+        // used by a request is evicted. Saving the rest is left until after letting go of the lock
+        final List<Evicted> evicted = new ArrayList<>();
+        final Iterator<Map.Entry<String, CompletableFuture<TenantStore>>> eldest = stores.entrySet().iterator();
+        while ((stores.size() > maxLoaded || loadedItems > maxItems) && eldest.hasNext()) {
+            final Map.Entry<String, CompletableFuture<TenantStore>> entry = eldest.next();
+            final TenantStore store = entry.getValue().getNow(null);
+            if (entry.getKey().equals(tenant) || store == null || users.containsKey(entry.getKey())) {
+                continue;
+            }
+            log.info("Evicting tenant: " + entry.getKey());
+            final Integer size = sizes.remove(entry.getKey());
+            loadedItems -= size != null ? size : 0;
+            eldest.remove();
+            final CompletableFuture<Void> saved = new CompletableFuture<>();
+            evicting.put(entry.getKey(), saved);
+            evicted.add(new Evicted(entry.getKey(), store, saved));
+        }
+        return evicted;
+    }
+
+    private void saveIfChanged(final String tenant, final TenantStore store) {
+        try {
+            store.saveLastSets();
+            if (store.isChanged()) {
+                store.save();
+            }
+        } catch (IOException e) {
+            log.warn("Could not save tenant: " + tenant, e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Evicted {
+        private final String tenant;
+        private final TenantStore store;
+        private final CompletableFuture<Void> saved;
+    }
+}
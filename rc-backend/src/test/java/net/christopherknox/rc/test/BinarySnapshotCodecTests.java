@@ -0,0 +1,151 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.BinarySnapshotCodec;
+import net.christopherknox.rc.persistence.SnapshotConverter;
+import net.christopherknox.rc.persistence.SnapshotFormat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinarySnapshotCodecTests extends TestBase {
+
+    private static final String testFilepath = "src/test/resources/binary-test.json";
+    private static final String convertedFilepath = "src/test/resources/binary-test-converted.json";
+
+    private final BinarySnapshotCodec codec = new BinarySnapshotCodec();
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get(testFilepath));
+        Files.deleteIfExists(Paths.get(convertedFilepath));
+    }
+
+    @Test
+    public void read_WrittenData_SameAsOriginal() throws Exception {
+        final Data testData = generateTestData();
+        testData.setHistory(generateItems(testCategory, true, 5));
+        testData.setLogSequence(42L);
+        Files.write(Paths.get(testFilepath), codec.write(testData));
+
+        final Data data = codec.read(new File(testFilepath), (bytesRead, totalBytes) -> {});
+
+        assertEquals(testData.getData(), data.getData());
+        assertEquals(testData.getHistory(), data.getHistory());
+        assertEquals(testData.getCategories(), data.getCategories());
+        assertEquals(testData.getDefaultSetSize(), data.getDefaultSetSize());
+        assertEquals(testData.getNextId(), data.getNextId());
+        assertEquals(testData.getLogSequence(), data.getLogSequence());
+    }
+
+    @Test
+    public void read_ItemsWithEmptyFields_EmptyFieldsKept() throws Exception {
+        final List<Item> items = new ArrayList<>(generateItems(testCategory, 2));
+        items.add(Item.builder().id(99).title("Ünïcödé " + testTitle).build());
+        final Data testData = new Data();
+        testData.setData(items);
+        testData.setHistory(null);
+        testData.setLogSequence(null);
+        Files.write(Paths.get(testFilepath), codec.write(testData));
+
+        final Data data = codec.read(new File(testFilepath), (bytesRead, totalBytes) -> {});
+
+        assertEquals(items, data.getData());
+        assertNull(data.getHistory());
+        assertNull(data.getLogSequence());
+    }
+
+    @Test
+    public void readItems_WrittenItems_SameAsOriginal() throws Exception {
+        final List<Item> items = generateItems(true);
+        Files.write(Paths.get(testFilepath), codec.write(items));
+
+        assertTrue(BinarySnapshotCodec.isItems(new File(testFilepath)));
+        assertEquals(items, codec.readItems(new File(testFilepath), (bytesRead, totalBytes) -> {}));
+    }
+
+    @Test
+    public void read_LargeFile_ProgressReportedInOrderUpToWholeFile() throws Exception {
+        Files.write(Paths.get(testFilepath), codec.write(generateTestData(1000)));
+        final long fileSize = new File(testFilepath).length();
+        final List<Long> progress = new ArrayList<>();
+
+        codec.read(new File(testFilepath), (bytesRead, totalBytes) -> {
+            assertEquals(fileSize, totalBytes);
+            progress.add(bytesRead);
+        });
+
+        assertThat(progress.size()).isGreaterThan(10);
+        assertThat(progress).isSorted();
+        assertEquals(fileSize, progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void isBinary_JsonFile_ReturnsFalse() throws Exception {
+        saveTestData(testFilepath, generateTestData());
+
+        assertFalse(BinarySnapshotCodec.isBinary(new File(testFilepath)));
+    }
+
+    @Test
+    public void read_FileCutShort_ThrowsException() throws Exception {
+        final byte[] bytes = codec.write(generateTestData());
+        Files.write(Paths.get(testFilepath), Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(IOException.class, () -> codec.read(new File(testFilepath), (bytesRead, totalBytes) -> {}));
+    }
+
+    @Test
+    public void read_NewerVersion_ThrowsException() throws Exception {
+        final byte[] bytes = codec.write(generateTestData());
+        bytes[4] = BinarySnapshotCodec.VERSION + 1;
+        Files.write(Paths.get(testFilepath), bytes);
+
+        assertThrows(IOException.class, () -> codec.read(new File(testFilepath), (bytesRead, totalBytes) -> {}));
+    }
+
+    @Test
+    public void convert_JsonToBinaryAndBack_SameData() throws Exception {
+        final Data testData = generateTestData();
+        testData.setHistory(generateItems(testCategory, true, 3));
+        saveTestData(testFilepath, testData);
+        final SnapshotConverter converter = new SnapshotConverter();
+
+        converter.convert(new File(testFilepath), new File(convertedFilepath), SnapshotFormat.BINARY);
+        assertTrue(BinarySnapshotCodec.isBinary(new File(convertedFilepath)));
+        converter.convert(new File(convertedFilepath), new File(testFilepath), SnapshotFormat.JSON);
+
+        final Data data = getTestData(testFilepath);
+        assertEquals(testData.getData(), data.getData());
+        assertEquals(testData.getHistory(), data.getHistory());
+        assertEquals(testData.getCategories(), data.getCategories());
+        assertEquals(testData.getNextId(), data.getNextId());
+    }
+
+    @Test
+    public void convert_JsonHistoryFile_ConvertedAsItems() throws Exception {
+        final List<Item> history = generateItems(true);
+        saveTestHistory(testFilepath, history);
+        final File historyFile = new File(testFilepath.replace(".json", ".history.json"));
+
+        new SnapshotConverter().convert(historyFile, new File(convertedFilepath), SnapshotFormat.BINARY);
+        Files.delete(historyFile.toPath());
+
+        assertEquals(history, codec.readItems(new File(convertedFilepath), (bytesRead, totalBytes) -> {}));
+    }
+}
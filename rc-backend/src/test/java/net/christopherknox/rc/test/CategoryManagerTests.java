@@ -3,9 +3,14 @@ package net.christopherknox.rc.test;
 import net.christopherknox.rc.CategoryManager;
 import net.christopherknox.rc.Constants;
 import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.model.Data;
 import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
 import net.christopherknox.rc.response.BaseResponse;
 import net.christopherknox.rc.response.CategoryListResponse;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -19,13 +24,16 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -40,6 +48,56 @@ public class CategoryManagerTests extends TestBase {
     @MockBean
     private DataHandler dataHandler;
 
+    @BeforeEach
+    public void resolveStore() {
+        // Mocks don't run default methods, so the handler has to be told it is the store its calls end up in
+        when(dataHandler.current()).thenReturn(dataHandler);
+
+        // Last sets are changed the way the stores change them, so tests can check what they were set to
+        doAnswer(i -> {
+            final Map<String, LastSet> lastSets = new HashMap<>(dataHandler.getLastSets());
+            i.<Consumer<Map<String, LastSet>>>getArgument(0).accept(lastSets);
+            dataHandler.setLastSets(lastSets);
+            return null;
+        }).when(dataHandler).updateLastSets(any());
+
+        // Changes made in one go are handed on to the setters for each list, so tests can check what they were set to
+        doAnswer(i -> {
+            i.<Consumer<Data>>getArgument(0).accept(new Data() {
+                @Override
+                public List<Item> getData() {
+                    return dataHandler.getData();
+                }
+
+                @Override
+                public void setData(final List<Item> data) {
+                    dataHandler.setData(data);
+                }
+
+                @Override
+                public List<Item> getHistory() {
+                    return dataHandler.getHistory();
+                }
+
+                @Override
+                public void setHistory(final List<Item> history) {
+                    dataHandler.setHistory(history);
+                }
+
+                @Override
+                public List<String> getCategories() {
+                    return dataHandler.getCategories();
+                }
+
+                @Override
+                public void setCategories(final List<String> categories) {
+                    dataHandler.setCategories(categories);
+                }
+            });
+            return null;
+        }).when(dataHandler).update(any());
+    }
+
     /* GET CATEGORIES */
     @Test
     public void getCategories_CategoriesExist_ReturnsValidList() {
@@ -82,6 +140,7 @@ public class CategoryManagerTests extends TestBase {
         final BaseResponse response = categoryManager.addCategory(testCategory);
         assertNull(response.getError());
         verify(dataHandler).setCategories(expected);
+        verify(dataHandler).record(LogRecord.builder().type(RecordType.ADD_CATEGORY).category(testCategory).build());
         verify(dataHandler).save();
     }
 
@@ -133,7 +192,7 @@ public class CategoryManagerTests extends TestBase {
                 i.setCategory(testCategory);
             }
         });
-        final Map<String, List<Item>> expectedLastSets = generateLastSets();
+        final Map<String, LastSet> expectedLastSets = generateLastSets();
         expectedLastSets.remove(category);
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
@@ -144,7 +203,8 @@ public class CategoryManagerTests extends TestBase {
         assertNull(response.getError());
         verify(dataHandler).setCategories(expectedCategories);
         verify(dataHandler).setData(expectedItems);
-        verify(dataHandler).setLastSets(expectedLastSets);
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         verify(dataHandler).save();
     }
 
@@ -155,7 +215,7 @@ public class CategoryManagerTests extends TestBase {
         expectedCategories.replaceAll(c -> c.equals(category) ? testCategory : c);
         final List<Item> expectedItems =
             generateItems().stream().filter(i -> !i.getCategory().equals(category)).collect(Collectors.toList());
-        final Map<String, List<Item>> expectedLastSets = generateLastSets();
+        final Map<String, LastSet> expectedLastSets = generateLastSets();
         expectedLastSets.remove(category);
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
@@ -168,7 +228,8 @@ public class CategoryManagerTests extends TestBase {
         assertNull(response.getError());
         verify(dataHandler).setCategories(expectedCategories);
         verify(dataHandler).setData(expectedItems);
-        verify(dataHandler).setLastSets(expectedLastSets);
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         verify(dataHandler).save();
     }
 
@@ -264,7 +325,7 @@ public class CategoryManagerTests extends TestBase {
                 i.setCategory(migrateTo);
             }
         });
-        final Map<String, List<Item>> expectedLastSets = generateLastSets();
+        final Map<String, LastSet> expectedLastSets = generateLastSets();
         expectedLastSets.remove(category);
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
@@ -275,7 +336,8 @@ public class CategoryManagerTests extends TestBase {
         assertNull(response.getError());
         verify(dataHandler).setCategories(expectedCategories);
         verify(dataHandler).setData(expectedItems);
-        verify(dataHandler).setLastSets(expectedLastSets);
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         verify(dataHandler).save();
     }
 
@@ -286,7 +348,7 @@ public class CategoryManagerTests extends TestBase {
             generateCategories().stream().filter(c -> !c.equals(category)).collect(Collectors.toList());
         final List<Item> expectedItems =
             generateItems().stream().filter(i -> !i.getCategory().equals(category)).collect(Collectors.toList());
-        final Map<String, List<Item>> expectedLastSets = generateLastSets();
+        final Map<String, LastSet> expectedLastSets = generateLastSets();
         expectedLastSets.remove(category);
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
@@ -297,7 +359,8 @@ public class CategoryManagerTests extends TestBase {
         assertNull(response.getError());
         verify(dataHandler).setCategories(expectedCategories);
         verify(dataHandler).setData(expectedItems);
-        verify(dataHandler).setLastSets(expectedLastSets);
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         verify(dataHandler).save();
     }
 
@@ -309,7 +372,7 @@ public class CategoryManagerTests extends TestBase {
             generateCategories().stream().filter(c -> !c.equals(category)).collect(Collectors.toList());
         final List<Item> expectedItems =
             generateItems().stream().filter(i -> !i.getCategory().equals(category)).collect(Collectors.toList());
-        final Map<String, List<Item>> expectedLastSets = generateLastSets();
+        final Map<String, LastSet> expectedLastSets = generateLastSets();
         expectedLastSets.remove(category);
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
@@ -322,7 +385,8 @@ public class CategoryManagerTests extends TestBase {
         assertNull(response.getError());
         verify(dataHandler).setCategories(expectedCategories);
         verify(dataHandler).setData(expectedItems);
-        verify(dataHandler).setLastSets(expectedLastSets);
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         verify(dataHandler).save();
     }
 
@@ -333,7 +397,7 @@ public class CategoryManagerTests extends TestBase {
             generateCategories().stream().filter(c -> !c.equals(category)).collect(Collectors.toList());
         final List<Item> expectedItems =
             generateItems().stream().filter(i -> !i.getCategory().equals(category)).collect(Collectors.toList());
-        final Map<String, List<Item>> expectedLastSets = generateLastSets();
+        final Map<String, LastSet> expectedLastSets = generateLastSets();
         expectedLastSets.remove(category);
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
@@ -346,7 +410,8 @@ public class CategoryManagerTests extends TestBase {
         assertNull(response.getError());
         verify(dataHandler).setCategories(expectedCategories);
         verify(dataHandler).setData(expectedItems);
-        verify(dataHandler).setLastSets(expectedLastSets);
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         verify(dataHandler).save();
     }
 
@@ -0,0 +1,55 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.DataDiff;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DataDiffTests extends TestBase {
+
+    @Test
+    public void between_SameItems_Empty() {
+        final DataDiff diff = DataDiff.between(generateItems(), generateItems());
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void between_ItemsAddedChangedAndRemoved_EachFound() {
+        final List<Item> current = generateItems();
+        final List<Item> updated = generateItems();
+        final Item removed = updated.remove(0);
+        updated.get(0).setTitle("Changed " + testTitle);
+        final Item added = Item.builder().id(100).title(testTitle).category(exampleCategories.get(0)).build();
+        updated.add(added);
+
+        final DataDiff diff = DataDiff.between(current, updated);
+
+        assertEquals(List.of(added), diff.getAdded());
+        assertEquals(List.of(removed), diff.getRemoved());
+        assertEquals(1, diff.getChanged().size());
+        assertEquals(current.get(1), diff.getChanged().get(0).getBefore());
+        assertEquals(updated.get(0), diff.getChanged().get(0).getAfter());
+    }
+
+    @Test
+    public void apply_ChangesFound_ListMatchesUpdatedInPlace() {
+        final List<Item> current = new ArrayList<>(generateItems());
+        final List<Item> original = current;
+        final List<Item> updated = generateItems();
+        updated.remove(3);
+        updated.get(5).setCategory(exampleCategories.get(0));
+        updated.add(Item.builder().id(100).title(testTitle).category(exampleCategories.get(1)).build());
+
+        DataDiff.between(current, updated).apply(current);
+
+        assertSame(original, current);
+        assertEquals(updated, current);
+    }
+}
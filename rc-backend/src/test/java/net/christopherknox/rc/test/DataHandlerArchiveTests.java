@@ -0,0 +1,126 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/archive-handler-test.json",
+    "persistence.history.archive.enabled=true",
+    "persistence.history.archive.after-days=30"
+})
+public class DataHandlerArchiveTests extends TestBase {
+
+    private static final Path archiveDirectory = Paths.get("src/test/resources/archive-handler-test.archive");
+
+    @Autowired
+    private DataHandler dataHandler;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    @BeforeEach
+    public void deleteArchive() throws IOException {
+        deleteDirectory(archiveDirectory);
+    }
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("src/test/resources/archive-handler-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/archive-handler-test.lastsets.json"));
+        deleteDirectory(archiveDirectory);
+    }
+
+    @Test
+    public void reload_OldHistory_ArchivedAndSavedWithoutIt() throws Exception {
+        final Data testData = generateTestData(3);
+        testData.setHistory(generateHistory());
+        saveTestData(testFilepath, testData);
+
+        dataHandler.reload();
+
+        assertEquals(testData.getHistory(), dataHandler.getHistory());
+        assertEquals(testData.getHistory().subList(9, 12), getTestData(testFilepath).getHistory());
+        assertEquals(testData.getData(), getTestData(testFilepath).getData());
+    }
+
+    @Test
+    public void save_ArchivedItemRemoved_StaysRemovedAfterReload() throws Exception {
+        final Data testData = generateTestData(3);
+        testData.setHistory(generateHistory());
+        saveTestData(testFilepath, testData);
+        dataHandler.reload();
+        final Item removed = testData.getHistory().get(1);
+
+        final List<Item> completedItems = dataHandler.getHistory();
+        completedItems.remove(removed);
+        dataHandler.setHistory(completedItems);
+        dataHandler.save();
+        dataHandler.reload();
+
+        assertThat(dataHandler.getHistory()).hasSize(11).doesNotContain(removed);
+    }
+
+    @Test
+    public void save_ItemCompleted_AddedToLiveHistory() throws Exception {
+        final Data testData = generateTestData(3);
+        testData.setHistory(generateHistory());
+        saveTestData(testFilepath, testData);
+        dataHandler.reload();
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        final Item completed = items.remove(0).toBuilder().completed(LocalDate.now()).build();
+        dataHandler.setData(items);
+
+        final List<Item> completedItems = SnapshotList.edit(dataHandler.getHistory());
+        completedItems.add(completed);
+        dataHandler.setHistory(completedItems);
+        dataHandler.save();
+
+        final List<Item> saved = getTestData(testFilepath).getHistory();
+        assertThat(saved).hasSize(4).contains(completed);
+        assertEquals(completed, dataHandler.getHistory().get(12));
+    }
+
+    /* HELPER FUNCTIONS */
+    protected static List<Item> generateHistory() {
+        // Three items completed in each of four, three and two months ago, which get archived, and three today
+        final List<Item> history = new ArrayList<>(generateItems(null, true, 3));
+        for (int i = 0; i < history.size(); i++) {
+            history.get(i).setCompleted(i < 9 ? LocalDate.now().minusMonths(4 - i / 3) : LocalDate.now());
+        }
+        return history;
+    }
+
+    protected static void deleteDirectory(final Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.persistence.BinarySnapshotCodec;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/binary-snapshot-test.json",
+    "persistence.snapshot.format=BINARY"
+})
+public class DataHandlerBinarySnapshotTests extends TestBase {
+
+    @Autowired
+    private DataHandler dataHandler;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("src/test/resources/binary-snapshot-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/binary-snapshot-test.lastsets.json"));
+    }
+
+    @Test
+    public void reload_JsonFile_ReadThenSavedAsBinary() throws Exception {
+        final Data testData = generateTestData();
+        saveTestData(testFilepath, testData);
+
+        dataHandler.reload();
+        assertFalse(BinarySnapshotCodec.isBinary(new File(testFilepath)));
+        dataHandler.save();
+
+        assertTrue(BinarySnapshotCodec.isBinary(new File(testFilepath)));
+        dataHandler.reload();
+        assertEquals(testData.getData(), dataHandler.getData());
+        assertEquals(testData.getCategories(), dataHandler.getCategories());
+        assertEquals(testData.getNextId(), dataHandler.getNextId());
+    }
+}
@@ -0,0 +1,176 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/lazy-history-test.json",
+    "persistence.mode=WAL",
+    "persistence.history.lazy=true"
+})
+public class DataHandlerLazyHistoryTests extends TestBase {
+
+    @Autowired
+    private DataHandler dataHandler;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    private List<Item> history;
+
+    @BeforeEach
+    public void resetTestFiles() throws IOException {
+        final Data testData = generateTestData(3);
+        testData.setHistory(null);
+        history = generateItems(testCategory, true, 3);
+        saveTestData(testFilepath, testData);
+        saveTestHistory(testFilepath, history);
+        Files.write(getLogPath(), new byte[0]);
+        dataHandler.reload();
+    }
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("src/test/resources/lazy-history-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/lazy-history-test.history.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/lazy-history-test.lastsets.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/lazy-history-test.json.wal"));
+    }
+
+    @Test
+    public void reload_HistoryInOwnFile_ReadOnFirstUse() throws Exception {
+        saveTestHistory(testFilepath, new ArrayList<>());
+
+        assertEquals(new ArrayList<>(), dataHandler.getHistory());
+    }
+
+    @Test
+    public void reload_HistoryInline_MovedToOwnFile() throws Exception {
+        final Data testData = generateTestData(3);
+        testData.setHistory(generateItems(testCategory, true, 2));
+        saveTestData(testFilepath, testData);
+
+        dataHandler.reload();
+
+        assertNull(getTestData(testFilepath).getHistory());
+        assertEquals(testData.getHistory(), getTestHistory(testFilepath));
+        assertEquals(testData.getHistory(), dataHandler.getHistory());
+        assertEquals(testData.getData(), dataHandler.getData());
+    }
+
+    @Test
+    public void checkpoint_HistoryNeverRead_HistoryFileUntouched() throws Exception {
+        final long modified = Files.getLastModifiedTime(getHistoryPath()).toMillis();
+
+        Thread.sleep(10);
+        final List<String> categories = new ArrayList<>(dataHandler.getCategories());
+        categories.add(testCategory);
+        dataHandler.setCategories(categories);
+        dataHandler.checkpoint();
+
+        assertEquals(modified, Files.getLastModifiedTime(getHistoryPath()).toMillis());
+        assertThat(getTestData(testFilepath).getCategories()).contains(testCategory);
+        assertNull(getTestData(testFilepath).getHistory());
+    }
+
+    @Test
+    public void checkpoint_HistoryChanged_HistoryFileWritten() throws Exception {
+        final Item completed = completeFirstItem();
+
+        dataHandler.checkpoint();
+
+        assertThat(getTestHistory(testFilepath)).contains(completed);
+        assertThat(getTestData(testFilepath).getData()).doesNotContain(completed);
+    }
+
+    @Test
+    public void reload_CompletionInLog_AppliedWhenHistoryRead() throws Exception {
+        final Item completed = completeFirstItem();
+        dataHandler.save();
+
+        dataHandler.reload();
+
+        assertThat(dataHandler.getData()).doesNotContain(completed);
+        assertThat(dataHandler.getHistory()).contains(completed);
+        assertEquals(history.size() + 1, dataHandler.getHistory().size());
+    }
+
+    @Test
+    public void checkpoint_CompletionInLogHistoryNotRead_HistoryFileWritten() throws Exception {
+        final Item completed = completeFirstItem();
+        dataHandler.save();
+        dataHandler.reload();
+
+        dataHandler.checkpoint();
+
+        assertThat(getTestHistory(testFilepath)).contains(completed);
+        assertEquals(0, Files.size(getLogPath()));
+    }
+
+    @Test
+    public void update_DataAndHistoryChanged_PublishedTogetherAndHistoryFileWritten() throws Exception {
+        final Data before = dataHandler.getSnapshot();
+        final Item completed = before.getData().get(0).toBuilder().completed(LocalDate.now()).build();
+
+        dataHandler.update(d -> {
+            final List<Item> items = SnapshotList.edit(d.getData());
+            items.remove(0);
+            d.setData(items);
+            final List<Item> completedItems = SnapshotList.edit(d.getHistory());
+            completedItems.add(completed);
+            d.setHistory(completedItems);
+        });
+        dataHandler.checkpoint();
+
+        assertEquals(before.getData().size() - 1, dataHandler.getData().size());
+        assertSame(SnapshotList.lineage(before.getData()), SnapshotList.lineage(dataHandler.getData()));
+        assertThat(dataHandler.getHistory()).contains(completed);
+        assertNull(dataHandler.getSnapshot().getHistory());
+        assertThat(getTestHistory(testFilepath)).contains(completed);
+    }
+
+    /* HELPER FUNCTIONS */
+    protected Item completeFirstItem() {
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        final Item completed = items.remove(0).toBuilder().completed(LocalDate.now()).build();
+        dataHandler.setData(items);
+        final List<Item> completedItems = SnapshotList.edit(dataHandler.getHistory());
+        completedItems.add(completed);
+        dataHandler.setHistory(completedItems);
+        dataHandler.record(LogRecord.builder().type(RecordType.COMPLETE_ITEM).item(completed).build());
+        return completed;
+    }
+
+    protected Path getHistoryPath() {
+        return Paths.get(testFilepath.replaceAll("\\.json$", "") + ".history.json");
+    }
+
+    protected Path getLogPath() {
+        return Paths.get(testFilepath + ".wal");
+    }
+}
@@ -0,0 +1,133 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.MappedHistory;
+import net.christopherknox.rc.persistence.RecordType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/mapped-history-handler-test.json",
+    "persistence.mode=WAL",
+    "persistence.history.mapped=true",
+    "persistence.history.segment-bytes=4096"
+})
+public class DataHandlerMappedHistoryTests extends TestBase {
+
+    private static final Path historyDirectory = Paths.get("src/test/resources/mapped-history-handler-test.history");
+
+    @Autowired
+    private DataHandler dataHandler;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    @BeforeEach
+    public void resetTestFiles() throws IOException {
+        final Data testData = generateTestData(3);
+        testData.setHistory(null);
+        saveTestData(testFilepath, testData);
+        Files.write(getLogPath(), new byte[0]);
+        dataHandler.reload();
+        dataHandler.setHistory(List.of());
+    }
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("src/test/resources/mapped-history-handler-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/mapped-history-handler-test.lastsets.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/mapped-history-handler-test.history.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/mapped-history-handler-test.json.wal"));
+        try (Stream<Path> paths = Files.walk(historyDirectory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void reload_HistoryInline_MovedToSegments() throws Exception {
+        final Data testData = generateTestData(3);
+        testData.setHistory(generateItems(exampleCategories.get(0), true, 20));
+        saveTestData(testFilepath, testData);
+
+        dataHandler.reload();
+
+        assertThat(dataHandler.getHistory()).isInstanceOf(MappedHistory.class);
+        assertEquals(testData.getHistory(), dataHandler.getHistory());
+        assertNull(getTestData(testFilepath).getHistory());
+        assertEquals(testData.getData(), dataHandler.getData());
+    }
+
+    @Test
+    public void reload_HistoryFile_MovedToSegments() throws Exception {
+        final List<Item> history = generateItems(exampleCategories.get(0), true, 20);
+        saveTestHistory(testFilepath, history);
+
+        dataHandler.reload();
+
+        assertEquals(history, dataHandler.getHistory());
+        assertFalse(Files.exists(Paths.get(testFilepath.replace(".json", ".history.json"))));
+    }
+
+    @Test
+    public void reload_CompletionInLog_NotAddedTwice() throws Exception {
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        final Item completed = items.remove(0).toBuilder().completed(LocalDate.now()).build();
+        dataHandler.setData(items);
+        final List<Item> completedItems = SnapshotList.edit(dataHandler.getHistory());
+        completedItems.add(completed);
+        dataHandler.setHistory(completedItems);
+        dataHandler.record(LogRecord.builder().type(RecordType.COMPLETE_ITEM).item(completed).build());
+        dataHandler.save();
+
+        dataHandler.reload();
+
+        assertEquals(List.of(completed), dataHandler.getHistory());
+        assertThat(dataHandler.getData()).doesNotContain(completed);
+    }
+
+    @Test
+    public void checkpoint_ItemRemovedFromHistory_StaysRemoved() throws Exception {
+        final List<Item> history = generateItems(exampleCategories.get(0), true, 5);
+        dataHandler.setHistory(history);
+        final List<Item> completedItems = dataHandler.getHistory();
+        completedItems.remove(history.get(1));
+        dataHandler.record(LogRecord.builder().type(RecordType.REMOVE_ITEM).id(history.get(1).getId()).build());
+        dataHandler.checkpoint();
+
+        dataHandler.reload();
+
+        assertThat(dataHandler.getHistory()).hasSize(4).doesNotContain(history.get(1));
+    }
+
+    /* HELPER FUNCTIONS */
+    protected Path getLogPath() {
+        return Paths.get(testFilepath + ".wal");
+    }
+}
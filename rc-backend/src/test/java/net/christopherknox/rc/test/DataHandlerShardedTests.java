@@ -0,0 +1,291 @@
+package net.christopherknox.rc.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
+import net.christopherknox.rc.persistence.ShardManifest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/sharded-test.json",
+    "persistence.mode=SHARDED"
+})
+public class DataHandlerShardedTests extends TestBase {
+
+    private static final Path manifestPath = Paths.get("src/test/resources/sharded-test.manifest.json");
+    private static final Path shardDirectory = Paths.get("src/test/resources/sharded-test.shards");
+
+    @Autowired
+    private DataHandler dataHandler;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    private Data testData;
+
+    @BeforeEach
+    public void resetTestFiles() throws IOException {
+        deleteShards();
+        testData = generateTestData(3);
+        testData.setHistory(generateItems(exampleCategories.get(0), true, 2));
+        saveTestData(testFilepath, testData);
+        dataHandler.reload();
+    }
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        deleteShards();
+        Files.deleteIfExists(Paths.get("src/test/resources/sharded-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/sharded-test.lastsets.json"));
+    }
+
+    @Test
+    public void reload_SingleFile_SplitIntoShards() throws Exception {
+        final ShardManifest manifest = getManifest();
+        assertEquals(testData.getCategories(), manifest.getCategories());
+        assertEquals(testData.getCategories(), List.copyOf(manifest.getData().keySet()));
+        assertEquals(List.of(exampleCategories.get(0)), List.copyOf(manifest.getHistory().keySet()));
+
+        Files.delete(Paths.get(testFilepath));
+        dataHandler.reload();
+
+        assertEquals(testData.getData(), dataHandler.getData());
+        assertEquals(testData.getHistory(), dataHandler.getHistory());
+        assertEquals(testData.getNextId(), dataHandler.getNextId());
+    }
+
+    @Test
+    public void reload_CategoriesInterleaved_OrderKept() throws Exception {
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        Collections.shuffle(items);
+        dataHandler.setData(items);
+        dataHandler.save();
+
+        // Only two shards are written this time, the rest have to keep their place around them
+        final Item item = Item.builder().id(dataHandler.getNextId()).category(exampleCategories.get(1))
+            .title(testTitle).added(LocalDate.now()).build();
+        final List<Item> expected = new ArrayList<>(dataHandler.getData());
+        expected.remove(0);
+        expected.add(item);
+        dataHandler.setData(expected);
+        dataHandler.record(LogRecord.builder().type(RecordType.SAVE_ITEM).item(item).build());
+        dataHandler.record(LogRecord.builder().type(RecordType.REMOVE_ITEM).id(items.get(0).getId())
+            .category(items.get(0).getCategory()).build());
+        dataHandler.save();
+
+        dataHandler.reload();
+        assertEquals(expected, dataHandler.getData());
+    }
+
+    @Test
+    public void save_HistoryCategoriesInterleaved_OrderKeptInShards() throws Exception {
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        final List<Item> completedItems = SnapshotList.edit(dataHandler.getHistory());
+        for (String category : List.of(exampleCategories.get(1), exampleCategories.get(2), exampleCategories.get(1),
+            exampleCategories.get(3))) {
+            final Item toComplete = items.stream()
+                .filter(i -> i.getCategory().equals(category)).findFirst().orElseThrow();
+            final Item completed = toComplete.toBuilder().completed(LocalDate.now()).build();
+            items.remove(toComplete);
+            completedItems.add(completed);
+            dataHandler.record(LogRecord.builder().type(RecordType.COMPLETE_ITEM).item(completed).build());
+        }
+        dataHandler.setData(items);
+        dataHandler.setHistory(completedItems);
+        dataHandler.save();
+
+        // However mixed up the categories are, the manifest only ever has one entry for each of them
+        final ShardManifest manifest = getManifest();
+        assertNull(manifest.getDataOrder());
+        assertNull(manifest.getHistoryOrder());
+        dataHandler.reload();
+        assertEquals(items, dataHandler.getData());
+        assertEquals(completedItems, dataHandler.getHistory());
+    }
+
+    @Test
+    public void save_ItemAddedToOneCategory_OnlyThatShardWritten() throws Exception {
+        final Map<String, Long> modified = getShardTimes();
+        final Item item = Item.builder().id(dataHandler.getNextId()).category(exampleCategories.get(1))
+            .title(testTitle).added(LocalDate.now()).build();
+
+        Thread.sleep(10);
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        items.add(item);
+        dataHandler.setData(items);
+        dataHandler.record(LogRecord.builder().type(RecordType.SAVE_ITEM).item(item).build());
+        dataHandler.save();
+
+        final Map<String, Long> changed = getChangedShards(modified);
+        assertEquals(List.of(getManifest().getData().get(exampleCategories.get(1))), List.copyOf(changed.keySet()));
+        dataHandler.reload();
+        assertThat(dataHandler.getData()).contains(item);
+    }
+
+    @Test
+    public void save_ItemCompleted_OnlyItsCategoryShardsWritten() throws Exception {
+        final Map<String, Long> modified = getShardTimes();
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        final Item toComplete = items.stream()
+            .filter(i -> i.getCategory().equals(exampleCategories.get(0))).findFirst().orElseThrow();
+        final Item completed = toComplete.toBuilder().completed(LocalDate.now()).build();
+
+        Thread.sleep(10);
+        items.remove(toComplete);
+        dataHandler.setData(items);
+        final List<Item> completedItems = SnapshotList.edit(dataHandler.getHistory());
+        completedItems.add(completed);
+        dataHandler.setHistory(completedItems);
+        dataHandler.record(LogRecord.builder().type(RecordType.COMPLETE_ITEM).item(completed).build());
+        dataHandler.save();
+
+        final ShardManifest manifest = getManifest();
+        assertThat(getChangedShards(modified).keySet()).containsExactlyInAnyOrder(
+            manifest.getData().get(exampleCategories.get(0)), manifest.getHistory().get(exampleCategories.get(0)));
+        dataHandler.reload();
+        assertThat(dataHandler.getHistory()).contains(completed);
+        assertThat(dataHandler.getData()).doesNotContain(completed);
+    }
+
+    @Test
+    public void save_CategoryRenamed_NoShardsWritten() throws Exception {
+        final Map<String, Long> modified = getShardTimes();
+        final String shard = getManifest().getData().get(exampleCategories.get(2));
+
+        Thread.sleep(10);
+        final List<String> categories = new ArrayList<>(dataHandler.getCategories());
+        categories.replaceAll(c -> c.equals(exampleCategories.get(2)) ? testCategory : c);
+        dataHandler.setCategories(categories);
+        dataHandler.setData(moveItems(exampleCategories.get(2), testCategory));
+        dataHandler.record(LogRecord.builder().type(RecordType.EDIT_CATEGORY).category(exampleCategories.get(2))
+            .newCategory(testCategory).build());
+        dataHandler.save();
+
+        assertThat(getChangedShards(modified)).isEmpty();
+        assertEquals(shard, getManifest().getData().get(testCategory));
+        final List<Item> expected = dataHandler.getData();
+        dataHandler.reload();
+        assertThat(dataHandler.getData()).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(dataHandler.getData()).noneMatch(i -> i.getCategory().equals(exampleCategories.get(2)));
+    }
+
+    @Test
+    public void save_CategoryRenamedWriteFails_RenamedOnNextWrite() throws Exception {
+        final String shard = getManifest().getData().get(exampleCategories.get(2));
+        final byte[] manifest = Files.readAllBytes(manifestPath);
+
+        final List<String> categories = new ArrayList<>(dataHandler.getCategories());
+        categories.replaceAll(c -> c.equals(exampleCategories.get(2)) ? testCategory : c);
+        dataHandler.setCategories(categories);
+        dataHandler.setData(moveItems(exampleCategories.get(2), testCategory));
+        dataHandler.record(LogRecord.builder().type(RecordType.EDIT_CATEGORY).category(exampleCategories.get(2))
+            .newCategory(testCategory).build());
+
+        // A directory where the manifest should be means it can't be moved into place
+        Files.delete(manifestPath);
+        Files.createDirectories(manifestPath.resolve("blocked"));
+        assertThrows(IOException.class, () -> dataHandler.save());
+        Files.delete(manifestPath.resolve("blocked"));
+        Files.delete(manifestPath);
+        Files.write(manifestPath, manifest);
+
+        dataHandler.save();
+        assertEquals(shard, getManifest().getData().get(testCategory));
+        assertFalse(getManifest().getData().containsKey(exampleCategories.get(2)));
+        final List<Item> expected = dataHandler.getData();
+        dataHandler.reload();
+        assertEquals(expected, dataHandler.getData());
+    }
+
+    @Test
+    public void save_CategoryRemovedAndMigrated_ShardsMerged() throws Exception {
+        final String removedShard = getManifest().getData().get(exampleCategories.get(3));
+        final String mergedShard = getManifest().getData().get(exampleCategories.get(0));
+        final Map<String, Long> modified = getShardTimes();
+
+        Thread.sleep(10);
+        final List<String> categories = new ArrayList<>(dataHandler.getCategories());
+        categories.remove(exampleCategories.get(3));
+        dataHandler.setCategories(categories);
+        dataHandler.setData(moveItems(exampleCategories.get(3), exampleCategories.get(0)));
+        dataHandler.record(LogRecord.builder().type(RecordType.REMOVE_CATEGORY).category(exampleCategories.get(3))
+            .newCategory(exampleCategories.get(0)).build());
+        dataHandler.save();
+
+        assertFalse(Files.exists(shardDirectory.resolve(removedShard)));
+        assertNotEquals(modified.get(mergedShard), getShardTimes().get(mergedShard));
+        dataHandler.reload();
+        assertEquals(6, dataHandler.getData().stream()
+            .filter(i -> i.getCategory().equals(exampleCategories.get(0))).count());
+    }
+
+    /* HELPER FUNCTIONS */
+    protected List<Item> moveItems(final String category, final String newCategory) {
+        return dataHandler.getData().stream()
+            .map(i -> i.getCategory().equals(category) ? i.toBuilder().category(newCategory).build() : i)
+            .collect(Collectors.toList());
+    }
+
+    protected ShardManifest getManifest() throws IOException {
+        return (new ObjectMapper()).readValue(manifestPath.toFile(), ShardManifest.class);
+    }
+
+    protected Map<String, Long> getShardTimes() throws IOException {
+        final Map<String, Long> times = new HashMap<>();
+        try (Stream<Path> paths = Files.list(shardDirectory)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                times.put(path.getFileName().toString(), Files.getLastModifiedTime(path).toMillis());
+            }
+        }
+        return times;
+    }
+
+    protected Map<String, Long> getChangedShards(final Map<String, Long> before) throws IOException {
+        return getShardTimes().entrySet().stream()
+            .filter(e -> !e.getValue().equals(before.get(e.getKey())))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    protected static void deleteShards() throws IOException {
+        Files.deleteIfExists(manifestPath);
+        if (Files.exists(shardDirectory)) {
+            try (Stream<Path> paths = Files.walk(shardDirectory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
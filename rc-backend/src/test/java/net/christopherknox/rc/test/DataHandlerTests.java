@@ -1,7 +1,10 @@
 package net.christopherknox.rc.test;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.model.Data;
 import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
@@ -19,8 +23,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -59,15 +67,17 @@ public class DataHandlerTests extends TestBase {
 
     @Test
     public void init_FileDoesExist_FileLoaded() throws Exception {
-        DataHandler.Data testData = generateTestData();
+        Data testData = generateTestData();
+        final Map<String, LastSet> lastSets = generateLastSets(testData.getData());
         saveTestData(testFilepath, testData);
+        saveTestLastSets(testFilepath, lastSets);
 
         dataHandler.init();
 
         assertEquals(testData.getData(), dataHandler.getData());
         assertEquals(testData.getHistory(), dataHandler.getHistory());
         assertEquals(testData.getCategories(), dataHandler.getCategories());
-        assertEquals(testData.getLastSets(), dataHandler.getLastSets());
+        assertLastSets(lastSets, dataHandler.getLastSets());
         assertEquals(testData.getDefaultSetSize(), dataHandler.getDefaultSetSize());
         assertEquals(testData.getNextId(), dataHandler.getNextId());
     }
@@ -81,15 +91,17 @@ public class DataHandlerTests extends TestBase {
 
     @Test
     public void reload_FileDoesExist_FileLoaded() throws Exception {
-        DataHandler.Data testData = generateTestData();
+        Data testData = generateTestData();
+        final Map<String, LastSet> lastSets = generateLastSets(testData.getData());
         saveTestData(testFilepath, testData);
+        saveTestLastSets(testFilepath, lastSets);
 
         dataHandler.reload();
 
         assertEquals(testData.getData(), dataHandler.getData());
         assertEquals(testData.getHistory(), dataHandler.getHistory());
         assertEquals(testData.getCategories(), dataHandler.getCategories());
-        assertEquals(testData.getLastSets(), dataHandler.getLastSets());
+        assertLastSets(lastSets, dataHandler.getLastSets());
         assertEquals(testData.getDefaultSetSize(), dataHandler.getDefaultSetSize());
         assertEquals(testData.getNextId(), dataHandler.getNextId());
     }
@@ -100,7 +112,7 @@ public class DataHandlerTests extends TestBase {
         final List<Item> items = generateItems(5);
         final List<Item> completed = generateItems(testCategory, true, 2);
         final List<String> categories = generateCategories();
-        final Map<String, List<Item>> lastSets = generateLastSets(items);
+        final Map<String, LastSet> lastSets = generateLastSets(items);
         final Integer defaultSetSize = 5;
         final Integer nextId = dataHandler.getNextId() + 1;
 
@@ -110,13 +122,15 @@ public class DataHandlerTests extends TestBase {
         dataHandler.setLastSets(lastSets);
         dataHandler.setDefaultSetSize(defaultSetSize);
         dataHandler.save();
+        dataHandler.saveLastSets();
 
         assertTrue(Files.exists(Paths.get(testFilepath)));
-        DataHandler.Data testData = getTestData(testFilepath);
+        Data testData = getTestData(testFilepath);
         assertEquals(items, testData.getData());
         assertEquals(completed, testData.getHistory());
         assertEquals(categories, testData.getCategories());
-        assertEquals(lastSets, testData.getLastSets());
+        assertNull(testData.getLastSets());
+        assertLastSets(lastSets, getTestLastSets(testFilepath));
         assertEquals(defaultSetSize, testData.getDefaultSetSize());
         assertEquals(nextId, testData.getNextId());
     }
@@ -127,7 +141,7 @@ public class DataHandlerTests extends TestBase {
         final List<Item> items = generateItems(5);
         final List<Item> completed = generateItems(testCategory, true, 2);
         final List<String> categories = generateCategories();
-        final Map<String, List<Item>> lastSets = generateLastSets(items);
+        final Map<String, LastSet> lastSets = generateLastSets(items);
         final Integer defaultSetSize = 5;
         final Integer nextId = dataHandler.getNextId() + 1;
 
@@ -137,17 +151,78 @@ public class DataHandlerTests extends TestBase {
         dataHandler.setLastSets(lastSets);
         dataHandler.setDefaultSetSize(defaultSetSize);
         dataHandler.save();
+        dataHandler.saveLastSets();
 
         assertTrue(Files.exists(Paths.get(testFilepath)));
-        DataHandler.Data testData = getTestData(testFilepath);
+        Data testData = getTestData(testFilepath);
         assertEquals(items, testData.getData());
         assertEquals(completed, testData.getHistory());
         assertEquals(categories, testData.getCategories());
-        assertEquals(lastSets, testData.getLastSets());
+        assertNull(testData.getLastSets());
+        assertLastSets(lastSets, getTestLastSets(testFilepath));
         assertEquals(defaultSetSize, testData.getDefaultSetSize());
         assertEquals(nextId, testData.getNextId());
     }
 
+    @Test
+    public void reload_FileHasLastSets_LastSetsMovedToOwnFileAsIds() throws Exception {
+        Data testData = generateTestData();
+        testData.setLastSets(groupByCategory(testData.getData()));
+        saveTestData(testFilepath, testData);
+
+        dataHandler.reload();
+
+        assertLastSets(generateLastSets(testData.getData()), dataHandler.getLastSets());
+        assertLastSets(generateLastSets(testData.getData()), getTestLastSets(testFilepath));
+        assertNull(getTestData(testFilepath).getLastSets());
+        assertEquals(testData.getData(), getTestData(testFilepath).getData());
+    }
+
+    @Test
+    public void saveLastSets_LastSetsChanged_OnlyLastSetsFileWritten() throws Exception {
+        saveTestData(testFilepath, generateTestData());
+        dataHandler.reload();
+        final long modified = Files.getLastModifiedTime(Paths.get(testFilepath)).toMillis();
+        final Map<String, LastSet> lastSets = generateLastSets(generateItems(testCategory, 3));
+
+        Thread.sleep(10);
+        dataHandler.setLastSets(lastSets);
+        dataHandler.saveLastSets();
+
+        assertEquals(modified, Files.getLastModifiedTime(Paths.get(testFilepath)).toMillis());
+        assertLastSets(lastSets, getTestLastSets(testFilepath));
+        dataHandler.reload();
+        assertLastSets(lastSets, dataHandler.getLastSets());
+    }
+
+    @Test
+    public void updateLastSets_LastSetChanged_OnlyWrittenOnFlush() throws Exception {
+        saveTestData(testFilepath, generateTestData());
+        dataHandler.reload();
+        dataHandler.setLastSets(new HashMap<>());
+        dataHandler.saveLastSets();
+        final LastSet lastSet = LastSet.builder().ids(new int[] {1, 2, 3}).build();
+
+        dataHandler.updateLastSets(l -> l.put(testCategory, lastSet));
+
+        assertLastSets(Map.of(testCategory, lastSet), dataHandler.getLastSets());
+        assertEquals(new HashMap<>(), getTestLastSets(testFilepath));
+        dataHandler.flush();
+        assertLastSets(Map.of(testCategory, lastSet), getTestLastSets(testFilepath));
+    }
+
+    @Test
+    public void reload_LastSetsFileHasItems_ItemIdsLoaded() throws Exception {
+        final Data testData = generateTestData();
+        saveTestData(testFilepath, testData);
+        (new ObjectMapper()).writeValue(new File(testFilepath.replace(".json", ".lastsets.json")),
+            groupByCategory(testData.getData()));
+
+        dataHandler.reload();
+
+        assertLastSets(generateLastSets(testData.getData()), dataHandler.getLastSets());
+    }
+
     @Test
     public void nextId_CalledMultipleTimes_IdIncrementsOnEachCall() {
         Integer expected = dataHandler.getNextId();
@@ -156,4 +231,26 @@ public class DataHandlerTests extends TestBase {
             assertEquals(expected + i, nextId);
         }
     }
+
+    @Test
+    public void nextId_CalledConcurrently_EveryIdUnique() {
+        final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 1000).parallel().forEach(i -> ids.add(dataHandler.getNextId()));
+        assertEquals(1000, ids.size());
+    }
+
+    @Test
+    public void setData_ListChanged_EarlierVersionUnchanged() {
+        final List<Item> before = dataHandler.getData();
+        final List<Item> expected = List.copyOf(before);
+        final List<Item> items = new ArrayList<>(before);
+        items.add(Item.builder().id(dataHandler.getNextId()).title(testTitle).category(testCategory).build());
+
+        dataHandler.setData(items);
+        assertEquals(expected, before);
+        assertEquals(items, dataHandler.getData());
+        assertThrows(UnsupportedOperationException.class, () -> dataHandler.getData().add(items.get(0)));
+        dataHandler.setData(before);
+    }
+
 }
@@ -0,0 +1,212 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.Priority;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/wal-test.json",
+    "persistence.mode=WAL",
+    "persistence.wal.fsync=ALWAYS",
+    "persistence.wal.checkpoint-records=5"
+})
+public class DataHandlerWalTests extends TestBase {
+
+    @Autowired
+    private DataHandler dataHandler;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    @BeforeEach
+    public void resetTestFiles() throws IOException {
+        saveTestData(testFilepath, generateTestData(3));
+        Files.write(getLogPath(), new byte[0]);
+        dataHandler.reload();
+    }
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("src/test/resources/wal-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/wal-test.lastsets.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/wal-test.json.wal"));
+    }
+
+    @Test
+    public void save_ChangeRecorded_AppendedToLogOnly() throws Exception {
+        addCategory(testCategory);
+        dataHandler.record(LogRecord.builder().type(RecordType.ADD_CATEGORY).category(testCategory).build());
+        dataHandler.save();
+
+        assertThat(getTestData(testFilepath).getCategories()).doesNotContain(testCategory);
+        assertEquals(1, Files.readAllLines(getLogPath()).size());
+    }
+
+    @Test
+    public void reload_ChangesInLog_ReplayedOverSnapshot() throws Exception {
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        final Item saved = Item.builder().id(dataHandler.getNextId()).category(exampleCategories.get(0))
+            .title(testTitle).priority(Priority.HIGH).added(LocalDate.now()).build();
+        items.add(saved);
+        dataHandler.record(LogRecord.builder().type(RecordType.SAVE_ITEM).item(saved).build());
+        final Item completed = items.remove(0).toBuilder().completed(LocalDate.now()).build();
+        final List<Item> completedItems = new ArrayList<>(dataHandler.getHistory());
+        completedItems.add(completed);
+        dataHandler.setHistory(completedItems);
+        dataHandler.record(LogRecord.builder().type(RecordType.COMPLETE_ITEM).item(completed).build());
+        dataHandler.setData(items);
+        dataHandler.save();
+
+        final Item removed = items.remove(0);
+        dataHandler.record(LogRecord.builder().type(RecordType.REMOVE_ITEM).id(removed.getId()).build());
+        final List<String> categories = new ArrayList<>(dataHandler.getCategories());
+        categories.replaceAll(c -> c.equals(exampleCategories.get(1)) ? testCategory : c);
+        dataHandler.setCategories(categories);
+        items.replaceAll(i -> i.getCategory().equals(exampleCategories.get(1))
+            ? i.toBuilder().category(testCategory).build() : i);
+        dataHandler.setData(items);
+        dataHandler.record(LogRecord.builder().type(RecordType.EDIT_CATEGORY).category(exampleCategories.get(1))
+            .newCategory(testCategory).build());
+        dataHandler.save();
+
+        final Data expected = copyData();
+        dataHandler.reload();
+        assertData(expected);
+        assertEquals(expected.getNextId(), dataHandler.getNextId());
+    }
+
+    @Test
+    public void save_CheckpointReached_SnapshotWrittenAndLogEmptied() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            final String category = testCategory + " " + i;
+            addCategory(category);
+            dataHandler.record(LogRecord.builder().type(RecordType.ADD_CATEGORY).category(category).build());
+            dataHandler.save();
+        }
+
+        assertEquals(dataHandler.getCategories(), getTestData(testFilepath).getCategories());
+        assertEquals(0, Files.size(getLogPath()));
+    }
+
+    @Test
+    public void save_NothingRecorded_FullCheckpoint() throws Exception {
+        dataHandler.setDefaultSetSize(7);
+        dataHandler.save();
+
+        assertEquals(7, getTestData(testFilepath).getDefaultSetSize());
+        assertEquals(0, Files.size(getLogPath()));
+    }
+
+    @Test
+    public void reload_UnfinishedLastRecord_IgnoredAndCutOff() throws Exception {
+        addCategory(testCategory);
+        dataHandler.record(LogRecord.builder().type(RecordType.ADD_CATEGORY).category(testCategory).build());
+        dataHandler.save();
+        final long validSize = Files.size(getLogPath());
+        Files.write(getLogPath(), "{\"sequence\":99,\"type\":\"ADD_CAT".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+
+        final Data expected = copyData();
+        dataHandler.reload();
+        assertData(expected);
+        assertEquals(validSize, Files.size(getLogPath()));
+    }
+
+    @Test
+    public void reload_CorruptRecordInMiddle_OnlyThatRecordSkipped() throws Exception {
+        final List<String> categories = List.of(testCategory + " 1", testCategory + " 2", testCategory + " 3");
+        for (String category : categories) {
+            addCategory(category);
+            dataHandler.record(LogRecord.builder().type(RecordType.ADD_CATEGORY).category(category).build());
+            dataHandler.save();
+        }
+        final List<String> lines = new ArrayList<>(Files.readAllLines(getLogPath()));
+        lines.set(1, lines.get(1).replace(categories.get(1), categories.get(1).toUpperCase()));
+        Files.write(getLogPath(), lines);
+        final long size = Files.size(getLogPath());
+
+        dataHandler.reload();
+        assertThat(dataHandler.getCategories()).contains(categories.get(0), categories.get(2))
+            .doesNotContain(categories.get(1), categories.get(1).toUpperCase());
+        assertEquals(size, Files.size(getLogPath()));
+    }
+
+    @Test
+    public void reload_RecordWithoutChecksum_StillReplayed() throws Exception {
+        Files.write(getLogPath(), List.of("{\"sequence\":1,\"type\":\"ADD_CATEGORY\",\"category\":\"" + testCategory
+            + "\"}"));
+
+        dataHandler.reload();
+        assertThat(dataHandler.getCategories()).contains(testCategory);
+    }
+
+    @Test
+    public void reload_RecordsAlreadyCheckpointed_NotAppliedAgain() throws Exception {
+        addCategory(testCategory);
+        dataHandler.record(LogRecord.builder().type(RecordType.ADD_CATEGORY).category(testCategory).build());
+        dataHandler.save();
+        final List<String> staleLog = Files.readAllLines(getLogPath());
+
+        // Checkpoint, then put the old log back as if the process died before the log could be emptied
+        final List<String> categories = new ArrayList<>(dataHandler.getCategories());
+        categories.remove(testCategory);
+        dataHandler.setCategories(categories);
+        dataHandler.checkpoint();
+        Files.write(getLogPath(), staleLog);
+
+        dataHandler.reload();
+        assertThat(dataHandler.getCategories()).doesNotContain(testCategory);
+    }
+
+    /* HELPER FUNCTIONS */
+    protected Path getLogPath() {
+        return Paths.get(testFilepath + ".wal");
+    }
+
+    protected void addCategory(final String category) {
+        final List<String> categories = new ArrayList<>(dataHandler.getCategories());
+        categories.add(category);
+        dataHandler.setCategories(categories);
+    }
+
+    protected Data copyData() {
+        final Data data = new Data();
+        data.setData(new ArrayList<>(dataHandler.getData()));
+        data.setHistory(new ArrayList<>(dataHandler.getHistory()));
+        data.setCategories(new ArrayList<>(dataHandler.getCategories()));
+        data.setNextId(dataHandler.getNextId());
+        return data;
+    }
+
+    protected void assertData(final Data expected) {
+        assertEquals(expected.getData(), dataHandler.getData());
+        assertEquals(expected.getHistory(), dataHandler.getHistory());
+        assertEquals(expected.getCategories(), dataHandler.getCategories());
+        assertTrue(Files.exists(Paths.get(testFilepath)));
+    }
+}
@@ -0,0 +1,108 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.sampler.SamplerCache;
+import net.christopherknox.rc.sampler.WeightedSampler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/watch-test.json",
+    "persistence.watch.enabled=true",
+    "persistence.watch.debounce-ms=50",
+    "sampler.type=FENWICK"
+})
+public class DataHandlerWatchTests extends TestBase {
+
+    @Autowired
+    private DataHandler dataHandler;
+
+    @Autowired
+    private SamplerCache samplerCache;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    @BeforeEach
+    public void resetTestFiles() throws IOException {
+        saveTestData(testFilepath, generateTestData(3));
+        dataHandler.reload();
+    }
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("src/test/resources/watch-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/watch-test.lastsets.json"));
+    }
+
+    @Test
+    public void fileChanged_ItemsChanged_NewVersionOfSameList() throws Exception {
+        final List<Item> items = dataHandler.getData();
+        final List<Item> before = List.copyOf(items);
+        final Data testData = getTestData(testFilepath);
+        testData.getData().remove(0);
+        testData.getData().get(0).setTitle("Changed " + testTitle);
+        testData.getData().add(Item.builder().id(100).title(testTitle).category(exampleCategories.get(0)).build());
+
+        saveTestData(testFilepath, testData);
+
+        waitFor(() -> dataHandler.getData().size() == testData.getData().size()
+            && dataHandler.getData().stream().anyMatch(i -> i.getId() == 100));
+        assertEquals(before, items);
+        assertSame(SnapshotList.lineage(items), SnapshotList.lineage(dataHandler.getData()));
+        assertEquals(testData.getData(), dataHandler.getData());
+    }
+
+    @Test
+    public void fileChanged_ItemAdded_SamplerUpdatedNotRebuilt() throws Exception {
+        final String category = exampleCategories.get(0);
+        final WeightedSampler sampler = samplerCache.getSampler(dataHandler.getData(), category);
+        final Data testData = getTestData(testFilepath);
+        testData.getData().add(Item.builder().id(100).title(testTitle).category(category).build());
+
+        saveTestData(testFilepath, testData);
+
+        waitFor(() -> sampler.getItem(100) != null);
+        assertSame(sampler, samplerCache.getSampler(dataHandler.getData(), category));
+        assertNotNull(sampler.getItem(100));
+    }
+
+    @Test
+    public void fileChanged_FileNotReadable_DataKept() throws Exception {
+        final List<Item> items = List.copyOf(dataHandler.getData());
+
+        Files.writeString(Paths.get(testFilepath), "{ not json");
+        Thread.sleep(500);
+
+        assertEquals(items, dataHandler.getData());
+    }
+
+    /* HELPER FUNCTIONS */
+    protected static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean(), "Timed out waiting for change to be picked up");
+    }
+}
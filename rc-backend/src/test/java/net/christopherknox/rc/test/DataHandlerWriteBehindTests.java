@@ -0,0 +1,174 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.WriteBehindFlusher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/write-behind-test.json",
+    "persistence.mode=WRITE_BEHIND",
+    "persistence.write-behind.interval-ms=60000",
+    "persistence.write-behind.max-pending=3",
+    "persistence.watch.enabled=true",
+    "persistence.watch.debounce-ms=50"
+})
+public class DataHandlerWriteBehindTests extends TestBase {
+
+    @Autowired
+    private DataHandler dataHandler;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    @BeforeEach
+    public void resetTestFiles() throws IOException {
+        saveTestData(testFilepath, generateTestData(3));
+        dataHandler.reload();
+        dataHandler.flush();
+    }
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("src/test/resources/write-behind-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/write-behind-test.lastsets.json"));
+    }
+
+    @Test
+    public void save_BeforeFlush_FileNotWrittenYet() throws Exception {
+        final Integer defaultSetSize = dataHandler.getDefaultSetSize();
+        dataHandler.setDefaultSetSize(defaultSetSize + 1);
+        dataHandler.save();
+        assertEquals(defaultSetSize, getTestData(testFilepath).getDefaultSetSize());
+
+        dataHandler.flush();
+        assertEquals(defaultSetSize + 1, getTestData(testFilepath).getDefaultSetSize());
+    }
+
+    @Test
+    public void save_MaxPendingReached_WrittenWithoutWaiting() throws Exception {
+        final Integer defaultSetSize = dataHandler.getDefaultSetSize();
+        for (int i = 1; i <= 3; i++) {
+            dataHandler.setDefaultSetSize(defaultSetSize + i);
+            dataHandler.save();
+        }
+
+        for (int i = 0; i < 100 && getTestData(testFilepath).getDefaultSetSize().equals(defaultSetSize); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(defaultSetSize + 3, getTestData(testFilepath).getDefaultSetSize());
+    }
+
+    @Test
+    public void flush_DuringChange_WaitsForWholeChange() throws Exception {
+        final Item item = dataHandler.getData().get(0);
+        final CompletableFuture<Void> flushed;
+        synchronized (dataHandler) {
+            final List<Item> data = new ArrayList<>(dataHandler.getData());
+            data.remove(item);
+            dataHandler.setData(data);
+            dataHandler.save();
+            flushed = CompletableFuture.runAsync(() -> {
+                try {
+                    dataHandler.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(flushed.isDone());
+
+            final List<Item> history = new ArrayList<>(dataHandler.getHistory());
+            history.add(item);
+            dataHandler.setHistory(history);
+        }
+
+        flushed.get();
+        final Data saved = getTestData(testFilepath);
+        assertThat(saved.getData()).doesNotContain(item);
+        assertThat(saved.getHistory()).contains(item);
+    }
+
+    @Test
+    public void fileChanged_ChangesNotFlushed_ChangesKept() throws Exception {
+        final List<Item> items = new ArrayList<>(dataHandler.getData());
+        final Item changed = items.get(0).toBuilder().title("Changed " + testTitle).build();
+        items.set(0, changed);
+        dataHandler.setData(items);
+        dataHandler.save();
+
+        final Data testData = getTestData(testFilepath);
+        final Item added = Item.builder().id(100).title(testTitle).category(exampleCategories.get(0)).build();
+        testData.getData().add(added);
+        saveTestData(testFilepath, testData);
+
+        DataHandlerWatchTests.waitFor(() -> dataHandler.getData().contains(added));
+        assertThat(dataHandler.getData()).contains(changed);
+        dataHandler.flush();
+        assertThat(getTestData(testFilepath).getData()).contains(changed, added);
+    }
+
+    @Test
+    public void flusher_BurstOfChanges_WrittenOnce() throws Exception {
+        final AtomicInteger writes = new AtomicInteger();
+        final WriteBehindFlusher flusher = new WriteBehindFlusher(writes::incrementAndGet, 60000, 100);
+        for (int i = 0; i < 10; i++) {
+            flusher.changed();
+        }
+        assertEquals(10, flusher.getPendingChanges());
+
+        flusher.flush();
+        flusher.flush();
+        assertEquals(1, writes.get());
+        assertEquals(0, flusher.getPendingChanges());
+        flusher.close();
+    }
+
+    @Test
+    public void flusher_ClosedWithPendingChanges_Written() throws Exception {
+        final AtomicInteger writes = new AtomicInteger();
+        final WriteBehindFlusher flusher = new WriteBehindFlusher(writes::incrementAndGet, 60000, 100);
+        flusher.changed();
+        flusher.close();
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    public void flusher_WriteFails_ChangesKeptForNextFlush() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final WriteBehindFlusher flusher = new WriteBehindFlusher(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("Test");
+            }
+        }, 60000, 100);
+        flusher.changed();
+
+        assertThrows(IOException.class, flusher::flush);
+        assertThat(flusher.getPendingChanges()).isEqualTo(1);
+        flusher.flush();
+        assertEquals(0, flusher.getPendingChanges());
+        flusher.close();
+    }
+}
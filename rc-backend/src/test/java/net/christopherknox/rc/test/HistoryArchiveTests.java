@@ -0,0 +1,280 @@
+package net.christopherknox.rc.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.HistoryArchive;
+import net.christopherknox.rc.persistence.IndexedById;
+import net.christopherknox.rc.persistence.IndexedByTitle;
+import net.christopherknox.rc.persistence.SnapshotSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistoryArchiveTests extends TestBase {
+
+    private static final Path testDirectory = Paths.get("src/test/resources/history-archive-test");
+    private static final LocalDate cutoff = LocalDate.of(2021, 6, 15);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @AfterEach
+    public void deleteTestFiles() throws IOException {
+        if (Files.exists(testDirectory)) {
+            try (Stream<Path> paths = Files.walk(testDirectory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void archive_ItemsFromFinishedMonths_MovedOutOfHistory() throws Exception {
+        final List<Item> history = generateHistory();
+        final List<Item> expected = new ArrayList<>(history);
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+
+        final int archived = archive.archive(history, cutoff);
+
+        assertEquals(9, archived);
+        assertEquals(3, history.size());
+        assertTrue(history.stream().allMatch(i -> !i.getCompleted().isBefore(LocalDate.of(2021, 6, 1))));
+        assertEquals(9, archive.size());
+        assertEquals(expected, archive.view(history));
+    }
+
+    @Test
+    public void archive_Reopened_ArchivedItemsReadBack() throws Exception {
+        final List<Item> history = generateHistory();
+        final List<Item> expected = new ArrayList<>(history);
+        new HistoryArchive(testDirectory, mapper).archive(history, cutoff);
+
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+
+        assertEquals(expected, archive.view(history));
+        assertEquals(expected.size(), archive.view(history).stream().count());
+    }
+
+    @Test
+    public void archive_MoreItemsForSealedMonth_SealedSegmentNotRewritten() throws Exception {
+        final List<Item> history = generateHistory();
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+        archive.archive(history, cutoff);
+        final Path sealed = testDirectory.resolve("history-2021-03.json.gz");
+        final byte[] sealedBytes = Files.readAllBytes(sealed);
+        final Item late = completedItem(100, LocalDate.of(2021, 3, 10));
+        history.add(late);
+
+        archive.archive(history, cutoff);
+
+        assertArrayEquals(sealedBytes, Files.readAllBytes(sealed));
+        assertTrue(Files.exists(testDirectory.resolve("history-2021-03-2.json.gz")));
+        assertThat(archive.view(history)).contains(late);
+        assertThat(history).doesNotContain(late);
+    }
+
+    @Test
+    public void archive_ArchivedBeforeHistorySaved_ItemsNotArchivedTwice() throws Exception {
+        final List<Item> history = generateHistory();
+        final List<Item> unsaved = new ArrayList<>(history);
+        new HistoryArchive(testDirectory, mapper).archive(history, cutoff);
+
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+        archive.archive(unsaved, cutoff);
+
+        assertEquals(history, unsaved);
+        assertEquals(9, archive.size());
+        assertEquals(12, archive.view(unsaved).size());
+    }
+
+    @Test
+    public void snapshot_ItemsChangedAfter_SnapshotUnchanged() throws Exception {
+        final List<Item> history = generateHistory();
+        final List<Item> expected = new ArrayList<>(history);
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+        archive.archive(history, cutoff);
+        final List<Item> view = archive.view(history);
+
+        final List<Item> snapshot = ((SnapshotSource) view).snapshot();
+        view.remove(1);
+        view.remove(view.size() - 1);
+        view.add(completedItem(100, LocalDate.of(2021, 6, 10)));
+
+        assertEquals(expected, snapshot);
+        assertEquals(expected, new ArrayList<>(snapshot));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+    }
+
+    @Test
+    public void remove_ArchivedItem_StaysRemovedAfterReopen() throws Exception {
+        final List<Item> history = generateHistory();
+        final Item removed = history.get(2);
+        new HistoryArchive(testDirectory, mapper).archive(history, cutoff);
+
+        final HistoryArchive removedFrom = new HistoryArchive(testDirectory, mapper);
+        assertTrue(removedFrom.view(history).remove(removed));
+        assertEquals(9, new HistoryArchive(testDirectory, mapper).size());
+        removedFrom.save(false);
+
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+        assertEquals(8, archive.size());
+        assertThat(archive.view(history)).hasSize(11).doesNotContain(removed);
+    }
+
+    @Test
+    public void archive_ItemUnmarkedAndArchivedAgain_OnlyNewCopyShown() throws Exception {
+        final List<Item> history = generateHistory();
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+        archive.archive(history, cutoff);
+        final List<Item> view = archive.view(history);
+        final Item unmarked = view.get(1);
+        view.remove(unmarked);
+
+        // Completed again in June, which gets archived once July is over
+        final Item completed = unmarked.toBuilder().completed(LocalDate.of(2021, 6, 20)).build();
+        view.add(completed);
+        final List<Item> live = new ArrayList<>(HistoryArchive.live(view));
+        archive.archive(live, LocalDate.of(2021, 8, 15));
+        archive.save(false);
+
+        for (HistoryArchive opened : List.of(archive, new HistoryArchive(testDirectory, mapper))) {
+            final List<Item> reopened = opened.view(live);
+            final List<Item> iterated = new ArrayList<>();
+            reopened.forEach(iterated::add);
+            assertEquals(12, opened.size());
+            assertEquals(iterated.size(), reopened.size());
+            assertEquals(iterated.get(iterated.size() - 1), reopened.get(reopened.size() - 1));
+            assertEquals(1, iterated.stream().filter(i -> i.getId().equals(unmarked.getId())).count());
+            assertEquals(completed, reopened.get(((IndexedById) reopened).indexOfId(unmarked.getId())));
+            assertEquals(List.of(completed),
+                ((IndexedByTitle) reopened).findByTitle(t -> t.equals(unmarked.getTitle())));
+        }
+    }
+
+    @Test
+    public void view_ItemAddedAndRemoved_OnlyLiveHistoryChanged() throws Exception {
+        final List<Item> history = generateHistory();
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+        archive.archive(history, cutoff);
+        final List<Item> view = archive.view(history);
+        final Item added = completedItem(100, cutoff);
+
+        view.add(added);
+        view.remove(history.get(0));
+
+        assertEquals(9, archive.size());
+        assertEquals(3, history.size());
+        assertEquals(added, view.get(view.size() - 1));
+        assertEquals(history, HistoryArchive.live(view));
+    }
+
+    @Test
+    public void view_CategoryFiltered_ArchivedAndLiveItemsIncluded() throws Exception {
+        final List<Item> history = generateHistory();
+        final List<Item> expected = history.stream()
+            .filter(i -> i.getCategory().equals(exampleCategories.get(1))).collect(Collectors.toList());
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+        archive.archive(history, cutoff);
+
+        final List<Item> filtered = archive.view(history).stream()
+            .filter(i -> i.getCategory().equals(exampleCategories.get(1))).collect(Collectors.toList());
+
+        assertEquals(expected, filtered);
+    }
+
+    @Test
+    public void view_GetByIndex_SameAsIterating() throws Exception {
+        final List<Item> history = generateHistory();
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+        archive.archive(history, cutoff);
+        final List<Item> view = archive.view(history);
+        view.remove(view.get(4));
+
+        final List<Item> expected = new ArrayList<>(view);
+        assertEquals(11, expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), view.get(i));
+        }
+    }
+
+    @Test
+    public void view_FoundByIdAndTitle_IndexedWithoutReading() throws Exception {
+        final List<Item> history = generateHistory();
+        final List<Item> expected = new ArrayList<>(history);
+        new HistoryArchive(testDirectory, mapper).archive(history, cutoff);
+        final List<Item> view = new HistoryArchive(testDirectory, mapper).view(history);
+
+        assertEquals(2, ((IndexedById) view).indexOfId(expected.get(2).getId()));
+        assertEquals(10, ((IndexedById) view).indexOfId(expected.get(10).getId()));
+        assertEquals(-1, ((IndexedById) view).indexOfId(-1));
+        assertEquals(List.of(expected.get(4), expected.get(11)), ((IndexedByTitle) view)
+            .findByTitle(t -> t.equals(expected.get(4).getTitle()) || t.equals(expected.get(11).getTitle())));
+    }
+
+    @Test
+    public void open_IndexWithoutIdsAndTitles_Reindexed() throws Exception {
+        final List<Item> history = generateHistory();
+        final List<Item> expected = new ArrayList<>(history);
+        new HistoryArchive(testDirectory, mapper).archive(history, cutoff);
+        final Path index = testDirectory.resolve("index.json");
+        final List<HistoryArchive.Segment> segments =
+            List.of(mapper.readValue(index.toFile(), HistoryArchive.Segment[].class));
+        segments.forEach(s -> {
+            s.setIds(null);
+            s.setTitles(null);
+        });
+        mapper.writeValue(index.toFile(), segments);
+
+        final List<Item> view = new HistoryArchive(testDirectory, mapper).view(history);
+        assertEquals(5, ((IndexedById) view).indexOfId(expected.get(5).getId()));
+        assertThat(List.of(mapper.readValue(index.toFile(), HistoryArchive.Segment[].class)))
+            .allMatch(s -> s.getIds().size() == s.getCount() && s.getTitles().size() == s.getCount());
+    }
+
+    @Test
+    public void open_RemovedIdsFromBefore_RemovedByPlace() throws Exception {
+        final List<Item> history = generateHistory();
+        final Item removed = history.get(2);
+        new HistoryArchive(testDirectory, mapper).archive(history, cutoff);
+        Files.write(testDirectory.resolve("removed.json"), mapper.writeValueAsBytes(List.of(removed.getId())));
+
+        final HistoryArchive archive = new HistoryArchive(testDirectory, mapper);
+
+        assertEquals(8, archive.size());
+        assertThat(archive.view(history)).doesNotContain(removed);
+        assertTrue(mapper.readTree(testDirectory.resolve("removed.json").toFile()).isObject());
+    }
+
+    /* HELPER FUNCTIONS */
+    protected static List<Item> generateHistory() {
+        // Three items completed in each month from March to June
+        final List<Item> history = generateItems(null, true, 3);
+        for (int i = 0; i < history.size(); i++) {
+            history.get(i).setCompleted(LocalDate.of(2021, 3 + i / 3, 1 + i));
+        }
+        return history;
+    }
+
+    protected static Item completedItem(final int id, final LocalDate completed) {
+        final Item item = generateItems(exampleCategories.get(0), true, 1).get(0);
+        item.setId(id);
+        item.setCompleted(completed);
+        return item;
+    }
+}
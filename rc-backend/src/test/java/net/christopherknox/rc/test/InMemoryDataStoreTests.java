@@ -0,0 +1,73 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataStore;
+import net.christopherknox.rc.InMemoryDataStore;
+import net.christopherknox.rc.ItemManager;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Item;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/memory-store-test.json"
+})
+public class InMemoryDataStoreTests extends TestBase {
+
+    @Autowired
+    private DataStore dataStore;
+
+    @Autowired
+    private ItemManager itemManager;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    @Test
+    public void init_MemoryProfile_InMemoryStoreUsed() {
+        assertThat(dataStore).isInstanceOf(InMemoryDataStore.class);
+    }
+
+    @Test
+    public void saveItem_ItemSaved_ListedWithoutFileWritten() throws Exception {
+        dataStore.setCategories(new ArrayList<>(exampleCategories));
+        final Item item = Item.builder().title(testTitle).category(exampleCategories.get(0)).build();
+
+        assertNull(itemManager.saveItem(item, false).getError());
+        dataStore.reload();
+
+        final List<Item> items = itemManager.getFullList(exampleCategories.get(0)).getItems();
+        assertEquals(1, items.stream().filter(i -> i.getTitle().equals(testTitle)).count());
+        assertFalse(Files.exists(Paths.get(testFilepath)));
+    }
+
+    @Test
+    public void update_EditedListChangedAfter_PublishedVersionUnchanged() {
+        dataStore.setCategories(new ArrayList<>(exampleCategories));
+        final List<String> edited = SnapshotList.edit(dataStore.getCategories());
+        edited.add(testTitle);
+
+        dataStore.update(d -> d.setCategories(edited));
+        final List<String> published = dataStore.getCategories();
+        edited.remove(0);
+        edited.add(testCategory);
+
+        assertThat(published).isInstanceOf(SnapshotList.class).endsWith(testTitle).hasSize(exampleCategories.size() + 1);
+        assertEquals(exampleCategories.get(0), published.get(0));
+    }
+}
@@ -3,14 +3,22 @@ package net.christopherknox.rc.test;
 import net.christopherknox.rc.Constants;
 import net.christopherknox.rc.DataHandler;
 import net.christopherknox.rc.ItemManager;
+import net.christopherknox.rc.model.Data;
 import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
 import net.christopherknox.rc.model.Priority;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
+import net.christopherknox.rc.request.RandomSetRequest;
 import net.christopherknox.rc.response.BaseResponse;
 import net.christopherknox.rc.response.ItemListResponse;
+import net.christopherknox.rc.response.RandomSetsResponse;
 import org.assertj.core.util.Maps;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -22,14 +30,21 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +57,65 @@ public class ItemManagerTests extends TestBase {
     @MockBean
     private DataHandler dataHandler;
 
+    @BeforeEach
+    public void resolveStore() {
+        // Mocks don't run default methods, so the handler has to be told it is the store its calls end up in, and its
+        // snapshot is put together from whatever each test has stubbed the separate lists as
+        when(dataHandler.current()).thenReturn(dataHandler);
+        when(dataHandler.getSnapshot()).thenAnswer(i -> {
+            final Data snapshot = new Data();
+            snapshot.setData(dataHandler.getData());
+            snapshot.setCategories(dataHandler.getCategories());
+            snapshot.setDefaultSetSize(dataHandler.getDefaultSetSize());
+            snapshot.setNextId(dataHandler.getNextId());
+            return snapshot;
+        });
+
+        // Last sets are changed the way the stores change them, so tests can check what they were set to
+        doAnswer(i -> {
+            final Map<String, LastSet> lastSets = new HashMap<>(dataHandler.getLastSets());
+            i.<Consumer<Map<String, LastSet>>>getArgument(0).accept(lastSets);
+            dataHandler.setLastSets(lastSets);
+            return null;
+        }).when(dataHandler).updateLastSets(any());
+
+        // Changes made in one go are handed on to the setters for each list, so tests can check what they were set to
+        doAnswer(i -> {
+            i.<Consumer<Data>>getArgument(0).accept(new Data() {
+                @Override
+                public List<Item> getData() {
+                    return dataHandler.getData();
+                }
+
+                @Override
+                public void setData(final List<Item> data) {
+                    dataHandler.setData(data);
+                }
+
+                @Override
+                public List<Item> getHistory() {
+                    return dataHandler.getHistory();
+                }
+
+                @Override
+                public void setHistory(final List<Item> history) {
+                    dataHandler.setHistory(history);
+                }
+
+                @Override
+                public List<String> getCategories() {
+                    return dataHandler.getCategories();
+                }
+
+                @Override
+                public void setCategories(final List<String> categories) {
+                    dataHandler.setCategories(categories);
+                }
+            });
+            return null;
+        }).when(dataHandler).update(any());
+    }
+
     /* GET RANDOM SET */
     @ParameterizedTest
     @MethodSource("generateCategoryArguments")
@@ -56,9 +130,10 @@ public class ItemManagerTests extends TestBase {
         when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
 
         final ItemListResponse response = itemManager.getRandomSet(category, true);
-        final Map<String, List<Item>> expectedLastSets = generateLastSets(response.getItems());
-        verify(dataHandler).setLastSets(expectedLastSets);
-        verify(dataHandler).save();
+        final Map<String, LastSet> expectedLastSets = generateLastSets(response.getItems());
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
+        verify(dataHandler, never()).save();
         assertEquals(setSize, response.getItems().size());
         assertThat(expected).containsAll(response.getItems());
         assertNull(response.getError());
@@ -76,9 +151,9 @@ public class ItemManagerTests extends TestBase {
         when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
 
         final ItemListResponse response = itemManager.getRandomSet(category, true);
-        final Map<String, List<Item>> expectedLastSets = generateLastSets(response.getItems());
-        verify(dataHandler).setLastSets(expectedLastSets);
-        verify(dataHandler).save();
+        final Map<String, LastSet> expectedLastSets = generateLastSets(response.getItems());
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         assertEquals(setSize, response.getItems().size());
         assertThat(expected).containsExactlyInAnyOrderElementsOf(response.getItems());
         assertNull(response.getError());
@@ -97,9 +172,9 @@ public class ItemManagerTests extends TestBase {
         when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
 
         final ItemListResponse response = itemManager.getRandomSet(category, true);
-        final Map<String, List<Item>> expectedLastSets = generateLastSets(response.getItems());
-        verify(dataHandler).setLastSets(expectedLastSets);
-        verify(dataHandler).save();
+        final Map<String, LastSet> expectedLastSets = generateLastSets(response.getItems());
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         assertEquals(categorySize, response.getItems().size());
         assertThat(expected).containsExactlyInAnyOrderElementsOf(response.getItems());
         assertNull(response.getError());
@@ -120,9 +195,9 @@ public class ItemManagerTests extends TestBase {
         when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
 
         final ItemListResponse response = itemManager.getRandomSet(category, true);
-        final Map<String, List<Item>> expectedLastSets = Maps.newHashMap(category, new ArrayList<>());
-        verify(dataHandler).setLastSets(expectedLastSets);
-        verify(dataHandler).save();
+        final Map<String, LastSet> expectedLastSets = Maps.newHashMap(category, LastSet.builder().ids(new int[0]).build());
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         assertEquals(0, response.getItems().size());
         assertNull(response.getError());
     }
@@ -136,15 +211,15 @@ public class ItemManagerTests extends TestBase {
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
         when(dataHandler.getData()).thenReturn(generateItems(categorySize));
-        final Map<String, List<Item>> mockedLastSets =
+        final Map<String, LastSet> mockedLastSets =
             generateLastSets(generateItems(category, categorySize).subList(0, setSize));
         when(dataHandler.getLastSets()).thenReturn(mockedLastSets);
         when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
 
         final ItemListResponse response = itemManager.getRandomSet(category, true);
-        final Map<String, List<Item>> expectedLastSets = generateLastSets(response.getItems());
-        verify(dataHandler).setLastSets(expectedLastSets);
-        verify(dataHandler).save();
+        final Map<String, LastSet> expectedLastSets = generateLastSets(response.getItems());
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         assertEquals(setSize, response.getItems().size());
         assertThat(expected).containsExactlyInAnyOrderElementsOf(response.getItems());
         assertNull(response.getError());
@@ -160,15 +235,15 @@ public class ItemManagerTests extends TestBase {
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
         when(dataHandler.getData()).thenReturn(generateItems(categorySize));
-        final Map<String, List<Item>> mockedLastSets =
+        final Map<String, LastSet> mockedLastSets =
             generateLastSets(generateItems(category, categorySize).subList(0, setSize - 1));
         when(dataHandler.getLastSets()).thenReturn(mockedLastSets);
         when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
 
         final ItemListResponse response = itemManager.getRandomSet(category, true);
-        final Map<String, List<Item>> expectedLastSets = generateLastSets(response.getItems());
-        verify(dataHandler).setLastSets(expectedLastSets);
-        verify(dataHandler).save();
+        final Map<String, LastSet> expectedLastSets = generateLastSets(response.getItems());
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         assertEquals(setSize, response.getItems().size());
         assertThat(response.getItems()).containsAll(expectedLastSet);
         assertThat(expected).containsAll(response.getItems());
@@ -190,20 +265,130 @@ public class ItemManagerTests extends TestBase {
         final List<Item> mockedItems =
             generateItems(categorySize).stream().filter(i -> i.getId() % 2 != 0).collect(Collectors.toList());
         when(dataHandler.getData()).thenReturn(mockedItems);
-        final Map<String, List<Item>> mockedLastSets = Maps.newHashMap(category, notExpectedLastSet);
+        final Map<String, LastSet> mockedLastSets = generateLastSets(notExpectedLastSet);
         when(dataHandler.getLastSets()).thenReturn(mockedLastSets);
         when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
 
         final ItemListResponse response = itemManager.getRandomSet(category, true);
-        final Map<String, List<Item>> expectedLastSets = generateLastSets(response.getItems());
-        verify(dataHandler).setLastSets(expectedLastSets);
-        verify(dataHandler).save();
+        final Map<String, LastSet> expectedLastSets = generateLastSets(response.getItems());
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         assertEquals(setSize, response.getItems().size());
         assertThat(response.getItems()).noneMatch(notExpectedLastSet::contains);
         assertThat(expected).containsAll(response.getItems());
         assertNull(response.getError());
     }
 
+    @ParameterizedTest
+    @MethodSource("generateCategoryArguments")
+    public void getRandomSet_LastSetItemsEditedSinceSet_ReturnsEditedLastSet(final String category) throws Exception {
+        final Integer setSize = (new Random()).nextInt(4) + 2;
+        final int categorySize = 10;
+        final List<Item> mockedItems = generateItems(categorySize);
+        final List<Item> expected = mockedItems.stream()
+            .filter(i -> i.getCategory().equals(category)).collect(Collectors.toList()).subList(0, setSize);
+        for (Item item : expected) {
+            item.setTitle(item.getTitle() + " (Edited)");
+            item.setPriority(Priority.HIGH);
+        }
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(mockedItems);
+        final Map<String, LastSet> mockedLastSets =
+            generateLastSets(generateItems(category, categorySize).subList(0, setSize));
+        when(dataHandler.getLastSets()).thenReturn(mockedLastSets);
+        when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
+
+        final ItemListResponse response = itemManager.getRandomSet(category, true);
+        verify(dataHandler).setLastSets(eqLastSets(generateLastSets(expected)));
+        verify(dataHandler, never()).saveLastSets();
+        assertThat(response.getItems()).containsExactlyInAnyOrderElementsOf(expected);
+        assertNull(response.getError());
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateCategoryArguments")
+    public void getRandomSet_SeedGiven_ReturnsSameSetAsSeededDraw(final String category) {
+        final int categorySize = 10;
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(generateItems(categorySize));
+        when(dataHandler.getLastSets()).thenReturn(new HashMap<>());
+        when(dataHandler.getDefaultSetSize()).thenReturn(3);
+
+        final ItemListResponse first = itemManager.getRandomSet(category, false);
+        final ItemListResponse replayed =
+            itemManager.getRandomSet(category, false, first.getSeed(), first.getVersion());
+        assertNotNull(first.getSeed());
+        assertEquals(first.getItems(), replayed.getItems());
+        assertEquals(first.getSeed(), replayed.getSeed());
+        assertEquals(first.getVersion(), replayed.getVersion());
+        assertNull(replayed.getError());
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateCategoryArguments")
+    public void getRandomSet_SeedVersionChanged_ReturnsError(final String category) {
+        final int categorySize = 10;
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(generateItems(categorySize));
+        when(dataHandler.getLastSets()).thenReturn(new HashMap<>());
+        when(dataHandler.getDefaultSetSize()).thenReturn(3);
+
+        final ItemListResponse first = itemManager.getRandomSet(category, false);
+        final ItemListResponse response =
+            itemManager.getRandomSet(category, false, first.getSeed(), first.getVersion() + 1);
+        assertNull(response.getItems());
+        assertEquals(Constants.ERROR_VERSION_CHANGED + first.getVersion(), response.getError());
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateCategoryArguments")
+    public void getRandomSet_LastSetSeedStillMatches_ReturnsSameSetFromSeed(final String category) {
+        final int categorySize = 10;
+        final Map<String, LastSet> mockedLastSets = new HashMap<>();
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(generateItems(categorySize));
+        when(dataHandler.getLastSets()).thenReturn(mockedLastSets);
+        when(dataHandler.getDefaultSetSize()).thenReturn(3);
+
+        final ItemListResponse first = itemManager.getRandomSet(category, false);
+        final Map<String, LastSet> savedLastSets = getSavedLastSets();
+        assertEquals(first.getSeed(), savedLastSets.get(category).getSeed());
+        assertEquals(first.getVersion(), savedLastSets.get(category).getVersion());
+        assertNull(mockedLastSets.get(category));
+
+        when(dataHandler.getLastSets()).thenReturn(savedLastSets);
+        final ItemListResponse response = itemManager.getRandomSet(category, true);
+        assertEquals(first.getItems(), response.getItems());
+        assertEquals(first.getSeed(), response.getSeed());
+        assertNull(response.getError());
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateCategoryArguments")
+    public void getRandomSet_LastSetSeedOutOfDate_ReturnsLastSetItemsWithoutSeed(final String category) {
+        final Integer setSize = (new Random()).nextInt(4) + 2;
+        final int categorySize = 10;
+        final List<Item> expected = generateItems(category, categorySize).subList(0, setSize);
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(generateItems(categorySize));
+        final Map<String, LastSet> mockedLastSets = generateLastSets(expected);
+        mockedLastSets.get(category).setSeed((new Random()).nextLong());
+        mockedLastSets.get(category).setVersion(0L);
+        when(dataHandler.getLastSets()).thenReturn(mockedLastSets);
+        when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
+
+        final ItemListResponse response = itemManager.getRandomSet(category, true);
+        assertThat(response.getItems()).containsExactlyInAnyOrderElementsOf(expected);
+        assertNull(response.getSeed());
+        assertNull(getSavedLastSets().get(category).getSeed());
+        assertNull(response.getError());
+    }
+
     @ParameterizedTest
     @MethodSource("generateCategoryArguments")
     public void getRandomSet_LastSetItemsStillPresentNoFlag_ReturnsRandomSubset(final String category) throws Exception {
@@ -213,20 +398,40 @@ public class ItemManagerTests extends TestBase {
 
         when(dataHandler.getCategories()).thenReturn(generateCategories());
         when(dataHandler.getData()).thenReturn(generateItems(categorySize));
-        final Map<String, List<Item>> mockedLastSets =
+        final Map<String, LastSet> mockedLastSets =
             generateLastSets(generateItems(category, categorySize).subList(0, setSize));
         when(dataHandler.getLastSets()).thenReturn(mockedLastSets);
         when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
 
         final ItemListResponse response = itemManager.getRandomSet(category, false);
-        final Map<String, List<Item>> expectedLastSets = generateLastSets(response.getItems());
-        verify(dataHandler).setLastSets(expectedLastSets);
-        verify(dataHandler).save();
+        final Map<String, LastSet> expectedLastSets = generateLastSets(response.getItems());
+        verify(dataHandler).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
         assertEquals(setSize, response.getItems().size());
         assertThat(expected).containsAll(response.getItems());
         assertNull(response.getError());
     }
 
+    @ParameterizedTest
+    @MethodSource("generateCategoryArguments")
+    public void getRandomSet_ItemMarkedCompletedAfterSet_ItemNotInNextSet(final String category) throws Exception {
+        final int categorySize = 2;
+        final Item marked = generateItems(category, categorySize).get(0);
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(generateItems(categorySize));
+        when(dataHandler.getHistory()).thenReturn(new ArrayList<>());
+        when(dataHandler.getLastSets()).thenReturn(new HashMap<>());
+        when(dataHandler.getDefaultSetSize()).thenReturn(categorySize);
+
+        itemManager.getRandomSet(category, false);
+        itemManager.markCompleted(marked.getId(), false);
+        final ItemListResponse response = itemManager.getRandomSet(category, false);
+        assertEquals(categorySize - 1, response.getItems().size());
+        assertThat(response.getItems()).noneMatch(i -> i.getId().equals(marked.getId()));
+        assertNull(response.getError());
+    }
+
     @ParameterizedTest
     @MethodSource("generateCategoryArguments")
     public void getRandomSet_CategoryDoesNotExist_ReturnsError(final String category) {
@@ -251,6 +456,83 @@ public class ItemManagerTests extends TestBase {
         assertEquals("Could not get random set for: " + category + ", check logs: Test", response.getError());
     }
 
+    /* GET RANDOM SETS */
+    @Test
+    public void getRandomSets_AllCategories_ReturnsSetPerCategorySavedOnce() throws Exception {
+        final Integer setSize = (new Random()).nextInt(4) + 2;
+        final int categorySize = 10;
+        final List<RandomSetRequest> sets = generateCategories().stream()
+            .map(c -> RandomSetRequest.builder().category(c).build()).collect(Collectors.toList());
+        sets.get(0).setSetSize(1);
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(generateItems(categorySize));
+        when(dataHandler.getLastSets()).thenReturn(new HashMap<>());
+        when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
+
+        final RandomSetsResponse response = itemManager.getRandomSets(sets, true);
+        assertNull(response.getError());
+        assertThat(response.getSets()).containsOnlyKeys(exampleCategories);
+        final Map<String, LastSet> expectedLastSets = new HashMap<>();
+        for (RandomSetRequest set : sets) {
+            final ItemListResponse categoryResponse = response.getSets().get(set.getCategory());
+            assertNull(categoryResponse.getError());
+            assertEquals(set.getSetSize() != null ? set.getSetSize() : setSize, categoryResponse.getItems().size());
+            assertThat(generateItems(set.getCategory(), categorySize)).containsAll(categoryResponse.getItems());
+            expectedLastSets.putAll(generateLastSets(categoryResponse.getItems()));
+        }
+        verify(dataHandler, times(1)).setLastSets(eqLastSets(expectedLastSets));
+        verify(dataHandler, never()).saveLastSets();
+    }
+
+    @Test
+    public void getRandomSets_OneCategoryDoesNotExist_ReturnsErrorForThatCategory() throws Exception {
+        final Integer setSize = (new Random()).nextInt(4) + 2;
+        final String category = getRandomCategory();
+        final List<RandomSetRequest> sets = List.of(RandomSetRequest.builder().category(category).build(),
+            RandomSetRequest.builder().category(testCategory).build());
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(generateItems(10));
+        when(dataHandler.getLastSets()).thenReturn(new HashMap<>());
+        when(dataHandler.getDefaultSetSize()).thenReturn(setSize);
+
+        final RandomSetsResponse response = itemManager.getRandomSets(sets, true);
+        assertNull(response.getError());
+        assertEquals(setSize, response.getSets().get(category).getItems().size());
+        assertNull(response.getSets().get(testCategory).getItems());
+        assertEquals(Constants.ERROR_CATEGORY_NOT_FOUND + testCategory, response.getSets().get(testCategory).getError());
+        verify(dataHandler).setLastSets(eqLastSets(generateLastSets(response.getSets().get(category).getItems())));
+        verify(dataHandler, never()).saveLastSets();
+    }
+
+    @Test
+    public void getRandomSets_NoCategoriesExist_NothingSaved() throws Exception {
+        final List<RandomSetRequest> sets = List.of(RandomSetRequest.builder().category(testCategory).build());
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(generateItems());
+        when(dataHandler.getLastSets()).thenReturn(new HashMap<>());
+        when(dataHandler.getDefaultSetSize()).thenReturn(3);
+
+        final RandomSetsResponse response = itemManager.getRandomSets(sets, true);
+        assertEquals(Constants.ERROR_CATEGORY_NOT_FOUND + testCategory, response.getSets().get(testCategory).getError());
+        verify(dataHandler, never()).setLastSets(anyMap());
+        verify(dataHandler, never()).saveLastSets();
+    }
+
+    @Test
+    public void getRandomSets_DataError_ReturnsError() {
+        final List<RandomSetRequest> sets = List.of(RandomSetRequest.builder().category(getRandomCategory()).build());
+
+        when(dataHandler.getData()).thenThrow(new NullPointerException("Test"));
+
+        final RandomSetsResponse response = itemManager.getRandomSets(sets, true);
+        assertNull(response.getSets());
+        assertEquals("Could not get random sets, check logs: Test", response.getError());
+    }
+
+
     /* GET FULL LIST */
     @Test
     public void getFullList_GetAllExistingItems_ReturnsFullList() {
@@ -448,6 +730,7 @@ public class ItemManagerTests extends TestBase {
         item.setAdded(LocalDate.now());
         assertNull(response.getError());
         verify(dataHandler).setData(expected);
+        verify(dataHandler).record(LogRecord.builder().type(RecordType.SAVE_ITEM).item(item).build());
         verify(dataHandler).save();
     }
 
@@ -470,6 +753,24 @@ public class ItemManagerTests extends TestBase {
         verify(dataHandler).save();
     }
 
+    @Test
+    public void saveItem_ItemMovedToOtherCategory_OldCategoryRecorded() throws Exception {
+        final List<Item> items = generateItems();
+        final Item item = Item.builder().id(items.get(0).getId()).category(exampleCategories.get(1))
+            .title(items.get(0).getTitle()).priority(items.get(0).getPriority()).build();
+        final Item expected = Item.builder().id(item.getId()).category(item.getCategory()).title(item.getTitle())
+            .priority(item.getPriority()).added(items.get(0).getAdded()).build();
+
+        when(dataHandler.getCategories()).thenReturn(generateCategories());
+        when(dataHandler.getData()).thenReturn(items);
+        when(dataHandler.getHistory()).thenReturn(new ArrayList<>());
+
+        final BaseResponse response = itemManager.saveItem(item, false);
+        assertNull(response.getError());
+        verify(dataHandler).record(LogRecord.builder().type(RecordType.SAVE_ITEM).item(expected)
+            .category(exampleCategories.get(0)).build());
+    }
+
     @Test
     public void saveItem_SaveExistingItemNoChanges_ListUnchanged() throws Exception {
         final List<Item> expected = generateItems();
@@ -608,7 +909,7 @@ public class ItemManagerTests extends TestBase {
     public void removeItem_RemoveExistingItem_ListUpdated() throws Exception {
         final List<Item> expected = generateItems();
         final int id = (new Random()).nextInt(expected.size()) + 1;
-        expected.remove(id - 1);
+        final Item removed = expected.remove(id - 1);
 
         when(dataHandler.getData()).thenReturn(generateItems());
         when(dataHandler.getHistory()).thenReturn(new ArrayList<>());
@@ -617,6 +918,8 @@ public class ItemManagerTests extends TestBase {
         assertNull(response.getError());
         verify(dataHandler).setData(expected);
         verify(dataHandler, never()).setHistory(anyList());
+        verify(dataHandler).record(LogRecord.builder().type(RecordType.REMOVE_ITEM).id(id)
+            .category(removed.getCategory()).build());
         verify(dataHandler).save();
     }
 
@@ -743,4 +1046,12 @@ public class ItemManagerTests extends TestBase {
         final BaseResponse response = itemManager.markCompleted(id, false);
         assertEquals("Could not mark/unmark item: " + title + ", check logs: Test", response.getError());
     }
+
+    /* HELPER FUNCTIONS */
+    @SuppressWarnings("unchecked")
+    private Map<String, LastSet> getSavedLastSets() {
+        final ArgumentCaptor<Map<String, LastSet>> lastSets = ArgumentCaptor.forClass(Map.class);
+        verify(dataHandler, atLeastOnce()).setLastSets(lastSets.capture());
+        return lastSets.getValue();
+    }
 }
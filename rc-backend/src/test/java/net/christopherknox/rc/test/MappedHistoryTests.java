@@ -0,0 +1,226 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.persistence.MappedHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedHistoryTests extends TestBase {
+
+    private static final Path testDirectory = Paths.get("src/test/resources/mapped-history-test");
+    private static final int segmentBytes = 64 * 1024;
+
+    @AfterEach
+    public void deleteTestFiles() throws IOException {
+        if (Files.exists(testDirectory)) {
+            try (Stream<Path> paths = Files.walk(testDirectory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void add_ItemsAdded_ReadBackAfterReopen() throws Exception {
+        final List<Item> items = generateItems(true);
+        MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+
+        history.addAll(items);
+        assertEquals(items, history);
+        history.close();
+
+        history = new MappedHistory(testDirectory, segmentBytes);
+        assertEquals(items, history);
+    }
+
+    @Test
+    public void add_ItemWithEmptyFields_EmptyFieldsKept() throws Exception {
+        final Item item = Item.builder().id(7).title("Ünïcödé " + testTitle).build();
+        final MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+
+        history.add(item);
+        history.add(new Item());
+        history.close();
+
+        assertEquals(List.of(item, new Item()), new MappedHistory(testDirectory, segmentBytes));
+    }
+
+    @Test
+    public void add_SegmentFull_NewSegmentStarted() throws Exception {
+        final List<Item> items = generateItems(exampleCategories.get(0), true, 50);
+        MappedHistory history = new MappedHistory(testDirectory, 512);
+
+        history.addAll(items);
+        history.close();
+
+        assertTrue(Files.exists(testDirectory.resolve("segment-00001.dat")));
+        assertEquals(items, new MappedHistory(testDirectory, 512));
+    }
+
+    @Test
+    public void add_NotAtEnd_ThrowsException() throws Exception {
+        final MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+        history.addAll(generateItems(exampleCategories.get(0), true, 2));
+
+        assertThrows(UnsupportedOperationException.class, () -> history.add(0, new Item()));
+    }
+
+    @Test
+    public void remove_ItemRemoved_GoneAfterReopen() throws Exception {
+        final List<Item> items = new ArrayList<>(generateItems(exampleCategories.get(0), true, 5));
+        MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+        history.addAll(items);
+
+        history.remove(items.get(2));
+        history.removeIf(i -> i.getId().equals(items.get(0).getId()));
+        history.close();
+
+        items.remove(2);
+        items.remove(0);
+        assertEquals(items, new MappedHistory(testDirectory, segmentBytes));
+    }
+
+    @Test
+    public void set_ItemReplaced_ReplacementReadBack() throws Exception {
+        final List<Item> items = generateItems(exampleCategories.get(0), true, 3);
+        final MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+        history.addAll(items);
+        final Item replacement = Item.builder().id(items.get(1).getId()).title(testTitle).category(exampleCategories.get(0))
+            .completed(items.get(1).getCompleted()).build();
+
+        history.set(1, replacement);
+        history.close();
+
+        assertThat(new MappedHistory(testDirectory, segmentBytes))
+            .containsExactlyInAnyOrder(items.get(0), replacement, items.get(2));
+    }
+
+    @Test
+    public void indexOfId_ItemsChanged_ReturnsCurrentIndex() throws Exception {
+        final List<Item> items = generateItems(exampleCategories.get(0), true, 5);
+        MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+        history.addAll(items);
+        history.close();
+
+        history = new MappedHistory(testDirectory, segmentBytes);
+        assertEquals(3, history.indexOfId(items.get(3).getId()));
+        assertEquals(-1, history.indexOfId(-1));
+
+        history.remove(1);
+        final Item replacement = items.get(3).toBuilder().title(testTitle).build();
+        history.set(2, replacement);
+        assertEquals(-1, history.indexOfId(items.get(1).getId()));
+        assertEquals(2, history.indexOfId(replacement.getId()));
+        assertEquals(2, history.indexOf(replacement));
+        assertEquals(-1, history.indexOf(items.get(3)));
+
+        history.clear();
+        assertEquals(-1, history.indexOfId(items.get(0).getId()));
+    }
+
+    @Test
+    public void indexOfId_ManyItemsRemovedAndAdded_MatchesList() throws Exception {
+        final List<Item> items = generateItems(exampleCategories.get(0), true, 3000);
+        final MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+        history.addAll(items.subList(0, 1500));
+        for (int i = 1499; i >= 0; i -= 2) {
+            history.remove(i);
+        }
+        history.addAll(items.subList(1500, 3000));
+
+        final List<Item> expected = new ArrayList<>(items);
+        for (int i = 1499; i >= 0; i -= 2) {
+            expected.remove(i);
+        }
+        assertEquals(expected, history);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, history.indexOfId(expected.get(i).getId()));
+        }
+        assertEquals(-1, history.indexOfId(items.get(1).getId()));
+        history.close();
+    }
+
+    @Test
+    public void snapshot_ItemsChangedAfter_SnapshotUnchanged() throws Exception {
+        final List<Item> items = generateItems(exampleCategories.get(0), true, 5);
+        final MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+        history.addAll(items);
+
+        final List<Item> snapshot = history.snapshot();
+        history.remove(1);
+        history.set(0, items.get(0).toBuilder().title(testTitle).build());
+        history.addAll(generateItems(exampleCategories.get(0), true, 3));
+
+        assertEquals(items, snapshot);
+        assertEquals(7, history.size());
+        history.close();
+    }
+
+    @Test
+    public void clear_ItemsAddedAfter_OnlyNewItemsAfterReopen() throws Exception {
+        final List<Item> items = generateItems(exampleCategories.get(0), true, 3);
+        MappedHistory history = new MappedHistory(testDirectory, 512);
+        history.addAll(generateItems(exampleCategories.get(0), true, 20));
+
+        history.clear();
+        history.addAll(items);
+        history.close();
+
+        assertEquals(items, new MappedHistory(testDirectory, 512));
+    }
+
+    @Test
+    public void open_LastRecordCorrupt_IgnoredAndWrittenOver() throws Exception {
+        final List<Item> items = generateItems(exampleCategories.get(0), true, 3);
+        MappedHistory history = new MappedHistory(testDirectory, segmentBytes);
+        history.addAll(items);
+        history.add(Item.builder().id(99).title(testTitle).build());
+        history.close();
+
+        // Flip a byte in the last title, as if the write never finished
+        try (RandomAccessFile file = new RandomAccessFile(testDirectory.resolve("segment-00000.dat").toFile(), "rw")) {
+            final long position = findLast(file, testTitle.getBytes());
+            file.seek(position);
+            file.write('#');
+        }
+
+        history = new MappedHistory(testDirectory, segmentBytes);
+        assertEquals(items, history);
+        final Item added = Item.builder().id(100).title(testTitle).build();
+        history.add(added);
+        history.close();
+        assertThat(new MappedHistory(testDirectory, segmentBytes)).endsWith(added);
+    }
+
+    /* HELPER FUNCTIONS */
+    protected static long findLast(final RandomAccessFile file, final byte[] bytes) throws IOException {
+        final byte[] contents = new byte[(int) file.length()];
+        file.readFully(contents);
+        for (int i = contents.length - bytes.length; i >= 0; i--) {
+            boolean match = true;
+            for (int j = 0; j < bytes.length && match; j++) {
+                match = contents[i + j] == bytes[j];
+            }
+            if (match) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Bytes not found");
+    }
+}
@@ -8,14 +8,17 @@ import net.christopherknox.rc.model.Item;
 import net.christopherknox.rc.model.Priority;
 import net.christopherknox.rc.request.AddCategoryRequest;
 import net.christopherknox.rc.request.EditCategoryRequest;
+import net.christopherknox.rc.request.GetRandomSetsRequest;
 import net.christopherknox.rc.request.InvalidRequest;
 import net.christopherknox.rc.request.MarkCompletedRequest;
+import net.christopherknox.rc.request.RandomSetRequest;
 import net.christopherknox.rc.request.RemoveCategoryRequest;
 import net.christopherknox.rc.request.RemoveItemRequest;
 import net.christopherknox.rc.request.SaveItemRequest;
 import net.christopherknox.rc.response.BaseResponse;
 import net.christopherknox.rc.response.CategoryListResponse;
 import net.christopherknox.rc.response.ItemListResponse;
+import net.christopherknox.rc.response.RandomSetsResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -27,11 +30,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -76,6 +86,23 @@ public class RandoCubeControllerTests extends TestBase {
             .andExpect(content().string(equalTo("java.io.IOException: Test")));
     }
 
+    @Test
+    public void flush_ServiceIsRunning_ReceiveFlushSuccessMessage() throws Exception {
+        mockMvc.perform(get(Constants.FLUSH_ENDPOINT))
+            .andExpect(status().isOk())
+            .andExpect(content().string(equalTo(Constants.FLUSH_MESSAGE)));
+        verify(dataHandler).flush();
+    }
+
+    @Test
+    public void flush_DataError_ReturnsErrorString() throws Exception {
+        doThrow(new IOException("Test")).when(dataHandler).flush();
+
+        mockMvc.perform(get(Constants.FLUSH_ENDPOINT))
+            .andExpect(status().isOk())
+            .andExpect(content().string(equalTo("java.io.IOException: Test")));
+    }
+
 
     /* GET CATEGORIES */
     @Test
@@ -225,7 +252,7 @@ public class RandoCubeControllerTests extends TestBase {
     public void getRandomSet_ValidCategoryAndUseLast_ReturnsValidSet(final String category, final boolean useLast) throws Exception {
         final ItemListResponse response = generateItemListResponse(category, null);
 
-        when(itemManager.getRandomSet(category, useLast)).thenReturn(response);
+        when(itemManager.getRandomSet(category, useLast, null, null)).thenReturn(response);
 
         mockMvc.perform(get(Constants.GET_RANDOM_SET_ENDPOINT).queryParam("category", category)
                 .queryParam("useLast", Boolean.toString(useLast)))
@@ -238,13 +265,41 @@ public class RandoCubeControllerTests extends TestBase {
     public void getRandomSet_ValidCategory_ReturnsValidSet(final String category) throws Exception {
         final ItemListResponse response = generateItemListResponse(category, null);
 
-        when(itemManager.getRandomSet(category, true)).thenReturn(response);
+        when(itemManager.getRandomSet(category, true, null, null)).thenReturn(response);
 
         mockMvc.perform(get(Constants.GET_RANDOM_SET_ENDPOINT).queryParam("category", category))
             .andExpect(status().isOk())
             .andExpect(content().json(toJson(response)));
     }
 
+    @ParameterizedTest
+    @MethodSource("generateCategoryArguments")
+    public void getRandomSet_SeedGiven_PassesSeedThrough(final String category) throws Exception {
+        final long seed = (new Random()).nextLong();
+        final ItemListResponse response = generateItemListResponse(category, null);
+        response.setSeed(seed);
+        response.setVersion(seed + 1);
+
+        when(itemManager.getRandomSet(category, true, seed, seed + 1)).thenReturn(response);
+
+        mockMvc.perform(get(Constants.GET_RANDOM_SET_ENDPOINT).queryParam("category", category)
+                .queryParam("seed", Long.toString(seed)).queryParam("version", Long.toString(seed + 1)))
+            .andExpect(status().isOk())
+            .andExpect(content().json(toJson(response)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateCategoryArguments")
+    public void getRandomSet_SeedWithoutVersion_ReturnsErrorResponse(final String category) throws Exception {
+        final ItemListResponse response = ItemListResponse.builder().error(Constants.ERROR_VERSION_REQUIRED).build();
+
+        mockMvc.perform(get(Constants.GET_RANDOM_SET_ENDPOINT).queryParam("category", category)
+                .queryParam("seed", Long.toString((new Random()).nextLong())))
+            .andExpect(status().isOk())
+            .andExpect(content().json(toJson(response)));
+        verify(itemManager, never()).getRandomSet(any(), anyBoolean(), any(), any());
+    }
+
     @Test
     public void getRandomSet_MissingCategory_ReturnsBadRequestError() throws Exception {
         mockMvc.perform(get(Constants.GET_RANDOM_SET_ENDPOINT))
@@ -252,6 +307,76 @@ public class RandoCubeControllerTests extends TestBase {
     }
 
 
+    /* GET RANDOM SETS */
+    @ParameterizedTest
+    @MethodSource("generateUseLast")
+    public void getRandomSets_ValidCategories_ReturnsValidSets(final Boolean useLast) throws Exception {
+        final List<RandomSetRequest> sets = generateCategories().stream()
+            .map(c -> RandomSetRequest.builder().category(c).build()).collect(Collectors.toList());
+        final GetRandomSetsRequest request = GetRandomSetsRequest.builder().sets(sets).useLast(useLast).build();
+        final Map<String, ItemListResponse> responses = new LinkedHashMap<>();
+        generateCategories().forEach(c -> responses.put(c, generateItemListResponse(c, null)));
+        final RandomSetsResponse response = RandomSetsResponse.builder().sets(responses).build();
+
+        when(itemManager.getRandomSets(sets, useLast != null ? useLast : true)).thenReturn(response);
+
+        mockMvc.perform(post(Constants.GET_RANDOM_SETS_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(toJson(request)))
+            .andExpect(status().isOk())
+            .andExpect(content().json(toJson(response)));
+    }
+
+    @Test
+    public void getRandomSets_MissingSets_ReturnsErrorResponse() throws Exception {
+        final InvalidRequest request = new InvalidRequest();
+        final RandomSetsResponse response = RandomSetsResponse.builder().error(Constants.ERROR_SETS_REQUIRED).build();
+
+        mockMvc.perform(post(Constants.GET_RANDOM_SETS_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(toJson(request)))
+            .andExpect(status().isOk())
+            .andExpect(content().json(toJson(response)));
+    }
+
+    @Test
+    public void getRandomSets_EmptyCategory_ReturnsErrorResponse() throws Exception {
+        final GetRandomSetsRequest request = GetRandomSetsRequest.builder()
+            .sets(List.of(RandomSetRequest.builder().category(getRandomCategory()).build(),
+                RandomSetRequest.builder().category("").build()))
+            .build();
+        final RandomSetsResponse response = RandomSetsResponse.builder().error(Constants.ERROR_CATEGORY_REQUIRED).build();
+
+        mockMvc.perform(post(Constants.GET_RANDOM_SETS_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(toJson(request)))
+            .andExpect(status().isOk())
+            .andExpect(content().json(toJson(response)));
+    }
+
+    @Test
+    public void getRandomSets_InvalidSetSize_ReturnsErrorResponse() throws Exception {
+        final GetRandomSetsRequest request = GetRandomSetsRequest.builder()
+            .sets(List.of(RandomSetRequest.builder().category(getRandomCategory()).setSize(0).build()))
+            .build();
+        final RandomSetsResponse response =
+            RandomSetsResponse.builder().error(Constants.ERROR_SET_SIZE_INVALID + 0).build();
+
+        mockMvc.perform(post(Constants.GET_RANDOM_SETS_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(toJson(request)))
+            .andExpect(status().isOk())
+            .andExpect(content().json(toJson(response)));
+    }
+
+    @Test
+    public void getRandomSets_DuplicateCategory_ReturnsErrorResponse() throws Exception {
+        final String category = getRandomCategory();
+        final GetRandomSetsRequest request = GetRandomSetsRequest.builder()
+            .sets(List.of(RandomSetRequest.builder().category(category).build(),
+                RandomSetRequest.builder().category(category.toUpperCase()).build()))
+            .build();
+        final RandomSetsResponse response = RandomSetsResponse.builder()
+            .error(Constants.ERROR_SET_CATEGORY_DUPLICATE + category.toUpperCase()).build();
+
+        mockMvc.perform(post(Constants.GET_RANDOM_SETS_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content(toJson(request)))
+            .andExpect(status().isOk())
+            .andExpect(content().json(toJson(response)));
+        verify(itemManager, never()).getRandomSets(any(), anyBoolean());
+    }
+
     /* GET FULL LIST */
     @ParameterizedTest
     @MethodSource("generateCategoryArguments")
@@ -464,6 +589,10 @@ public class RandoCubeControllerTests extends TestBase {
         return generateCategories().stream().flatMap(c -> Stream.of(Arguments.of(c, false), Arguments.of(c, true)));
     }
 
+    private static Stream<Arguments> generateUseLast() {
+        return Stream.of(Arguments.of((Boolean) null), Arguments.of(false), Arguments.of(true));
+    }
+
     private static Stream<Arguments> generateMissingCategories() {
         return Stream.of(
             Arguments.of(null, testCategory, Constants.ERROR_CATEGORY_NOT_FOUND + "null"),
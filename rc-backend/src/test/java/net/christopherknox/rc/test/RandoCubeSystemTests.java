@@ -2,8 +2,10 @@ package net.christopherknox.rc.test;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.christopherknox.rc.Constants;
-import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.DataStore;
+import net.christopherknox.rc.model.Data;
 import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
 import net.christopherknox.rc.model.Priority;
 import net.christopherknox.rc.request.AddCategoryRequest;
 import net.christopherknox.rc.request.EditCategoryRequest;
@@ -27,7 +29,7 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.util.MultiValueMapAdapter;
 
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -50,13 +52,16 @@ public class RandoCubeSystemTests extends TestBase {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private DataStore dataStore;
+
     @Value("${data.filepath}")
     private String testFilepath;
 
     @Test
     public void categoryManagement_FullWorkflow_AllChangesAppliedToSaveFile() throws Exception {
         // First create the test file and reload it into the system
-        DataHandler.Data testData = generateTestData();
+        Data testData = generateTestData();
         saveTestData(testFilepath, testData);
         mockMvc.perform(get(Constants.RELOAD_ENDPOINT))
             .andExpect(status().isOk())
@@ -76,7 +81,7 @@ public class RandoCubeSystemTests extends TestBase {
         getCategoriesResponse = getCategories();
         assertEquals(testData.getCategories(), getCategoriesResponse.getCategories());
 
-        DataHandler.Data savedData = getTestData(testFilepath);
+        Data savedData = getTestData(testFilepath);
         assertEquals(testData.getCategories(), savedData.getCategories());
 
         // Test case 3: Edit a category, verify get categories returns change and existing items are changed and it is
@@ -149,9 +154,8 @@ public class RandoCubeSystemTests extends TestBase {
     @Test
     public void getRandomSet_FullWorkflow_ReturnsSetAndSetIsCachedToSaveFile() throws Exception {
         // First create the test file and reload it into the system
-        DataHandler.Data testData = generateTestData(6);
+        Data testData = generateTestData(6);
         // We override a couple things here to make test cases more consistent
-        testData.setLastSets(new HashMap<>());
         testData.setDefaultSetSize(3);
         saveTestData(testFilepath, testData);
         mockMvc.perform(get(Constants.RELOAD_ENDPOINT))
@@ -163,29 +167,26 @@ public class RandoCubeSystemTests extends TestBase {
         ItemListResponse getRandomSetResponse = getRandomSet(category, true);
         assertThat(getRandomSetResponse.getItems()).allMatch(i -> i.getCategory().equals(category));
 
-        testData.getLastSets().put(category, getRandomSetResponse.getItems());
-        DataHandler.Data savedData = getTestData(testFilepath);
-        assertEquals(testData.getLastSets(), savedData.getLastSets());
+        List<Item> lastSet = getRandomSetResponse.getItems();
+        assertLastSets(generateLastSets(lastSet), getSavedLastSets());
 
         // Test case 2: Get random set with flag false and cache, set is random and saved to file
         getRandomSetResponse = getRandomSet(category, false);
         assertThat(getRandomSetResponse.getItems()).allMatch(i -> i.getCategory().equals(category));
 
-        testData.getLastSets().put(category, getRandomSetResponse.getItems());
-        savedData = getTestData(testFilepath);
-        assertEquals(testData.getLastSets(), savedData.getLastSets());
+        lastSet = getRandomSetResponse.getItems();
+        assertLastSets(generateLastSets(lastSet), getSavedLastSets());
 
         // Test case 3: Get random set with flag true and cache, set is same as previous and saved to file
         getRandomSetResponse = getRandomSet(category, true);
-        assertEquals(testData.getLastSets().get(category), getRandomSetResponse.getItems());
+        assertEquals(lastSet, getRandomSetResponse.getItems());
 
-        testData.getLastSets().put(category, getRandomSetResponse.getItems());
-        savedData = getTestData(testFilepath);
-        assertEquals(testData.getLastSets(), savedData.getLastSets());
+        lastSet = getRandomSetResponse.getItems();
+        assertLastSets(generateLastSets(lastSet), getSavedLastSets());
 
         // Test case 4: Get random set with flag true and cache after item is removed, set contains remaining cache
         // items and set is saved to file
-        List<Item> expectedItems = testData.getLastSets().get(category);
+        List<Item> expectedItems = new ArrayList<>(lastSet);
         Item toRemove = expectedItems.remove(0);
         RemoveItemRequest removeItemRequest = RemoveItemRequest.builder().id(toRemove.getId()).build();
         MvcResult mvcResult = doPost(Constants.REMOVE_ITEM_ENDPOINT, removeItemRequest);
@@ -195,13 +196,12 @@ public class RandoCubeSystemTests extends TestBase {
         getRandomSetResponse = getRandomSet(category, true);
         assertThat(getRandomSetResponse.getItems()).containsAll(expectedItems);
 
-        testData.getLastSets().put(category, getRandomSetResponse.getItems());
-        savedData = getTestData(testFilepath);
-        assertEquals(testData.getLastSets(), savedData.getLastSets());
+        lastSet = getRandomSetResponse.getItems();
+        assertLastSets(generateLastSets(lastSet), getSavedLastSets());
 
         // Test case 5: Get random set with flag true and cache after item is marked complete, set contains remaining
         // cache items and set is saved to file
-        expectedItems = testData.getLastSets().get(category);
+        expectedItems = new ArrayList<>(lastSet);
         Item toMark = expectedItems.remove(0);
         MarkCompletedRequest markCompletedRequest = MarkCompletedRequest.builder().id(toMark.getId()).build();
         mvcResult = doPost(Constants.MARK_COMPLETED_ENDPOINT, markCompletedRequest);
@@ -211,15 +211,14 @@ public class RandoCubeSystemTests extends TestBase {
         getRandomSetResponse = getRandomSet(category, true);
         assertThat(getRandomSetResponse.getItems()).containsAll(expectedItems);
 
-        testData.getLastSets().put(category, getRandomSetResponse.getItems());
-        savedData = getTestData(testFilepath);
-        assertEquals(testData.getLastSets(), savedData.getLastSets());
+        lastSet = getRandomSetResponse.getItems();
+        assertLastSets(generateLastSets(lastSet), getSavedLastSets());
     }
 
     @Test
     public void itemManagement_FullWorkflow_AllChangesAppliedToSaveFile() throws Exception {
         // First create the test file and reload it into the system
-        DataHandler.Data testData = generateTestData();
+        Data testData = generateTestData();
         // Move over one random item to the history
         Item toMark = testData.getData().remove((new Random()).nextInt(testData.getData().size()));
         toMark.setCompleted(LocalDate.now());
@@ -246,7 +245,7 @@ public class RandoCubeSystemTests extends TestBase {
         ItemListResponse getFullListResponse = getFullList();
         assertEquals(testData.getData(), getFullListResponse.getItems());
 
-        DataHandler.Data savedData = getTestData(testFilepath);
+        Data savedData = getTestData(testFilepath);
         assertEquals(testData.getData(), savedData.getData());
         assertEquals(testData.getNextId(), savedData.getNextId());
 
@@ -299,7 +298,7 @@ public class RandoCubeSystemTests extends TestBase {
     @Test
     public void markComplete_FullWorkflow_AllChangesAppliedToSaveFile() throws Exception {
         // First create the test file and reload it into the system
-        DataHandler.Data testData = generateTestData(10);
+        Data testData = generateTestData(10);
         saveTestData(testFilepath, testData);
         mockMvc.perform(get(Constants.RELOAD_ENDPOINT))
             .andExpect(status().isOk())
@@ -325,7 +324,7 @@ public class RandoCubeSystemTests extends TestBase {
             ItemListResponse getCompletedListResponse = getCompletedList();
             assertEquals(testData.getHistory(), getCompletedListResponse.getItems());
 
-            DataHandler.Data savedData = getTestData(testFilepath);
+            Data savedData = getTestData(testFilepath);
             assertEquals(testData.getData(), savedData.getData());
             assertEquals(testData.getHistory(), savedData.getHistory());
         }
@@ -348,7 +347,7 @@ public class RandoCubeSystemTests extends TestBase {
         ItemListResponse getCompletedListResponse = getCompletedList();
         assertEquals(testData.getHistory(), getCompletedListResponse.getItems());
 
-        DataHandler.Data savedData = getTestData(testFilepath);
+        Data savedData = getTestData(testFilepath);
         assertEquals(testData.getData(), savedData.getData());
         assertEquals(testData.getHistory(), savedData.getHistory());
     }
@@ -373,6 +372,12 @@ public class RandoCubeSystemTests extends TestBase {
         return getResponse(doGet(Constants.GET_RANDOM_SET_ENDPOINT, params), ItemListResponse.class);
     }
 
+    private Map<String, LastSet> getSavedLastSets() throws Exception {
+        // Last sets are written out in the background, so anything not yet written is flushed first
+        dataStore.flush();
+        return getTestLastSets(testFilepath);
+    }
+
     private MvcResult doGet(final String endpoint) throws Exception {
         return mockMvc.perform(get(endpoint)).andExpect(status().isOk()).andReturn();
     }
@@ -0,0 +1,601 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.SnapshotList;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.Priority;
+import net.christopherknox.rc.sampler.AgingPolicy;
+import net.christopherknox.rc.sampler.AliasSampler;
+import net.christopherknox.rc.sampler.CategorySampler;
+import net.christopherknox.rc.sampler.CategoryWeights;
+import net.christopherknox.rc.sampler.FenwickSampler;
+import net.christopherknox.rc.sampler.RandomProvider;
+import net.christopherknox.rc.sampler.RandomType;
+import net.christopherknox.rc.sampler.SamplerCache;
+import net.christopherknox.rc.sampler.SamplerType;
+import net.christopherknox.rc.sampler.SetPool;
+import net.christopherknox.rc.sampler.StreamingSampler;
+import net.christopherknox.rc.sampler.Weigher;
+import net.christopherknox.rc.sampler.WeightedSampler;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SamplerTests extends TestBase {
+
+    private static final int DRAWS = 100000;
+
+    /* ALIAS SAMPLER */
+    @Test
+    public void aliasSampler_NoItems_SizeZero() {
+        final AliasSampler sampler = new AliasSampler(new ArrayList<>());
+        assertEquals(0, sampler.size());
+        assertEquals(new ArrayList<>(), sampler.getItems());
+    }
+
+    @Test
+    public void aliasSampler_SingleItem_AlwaysReturnsItem() {
+        final List<Item> items = generateItems(getRandomCategory(), 1);
+        final AliasSampler sampler = new AliasSampler(items);
+        final Random rand = new Random();
+        for (int i = 0; i < 100; i++) {
+            assertSame(items.get(0), sampler.next(rand));
+        }
+    }
+
+    @Test
+    public void aliasSampler_MixedPriorities_DrawsProportionalToWeight() {
+        final List<Item> items = generateWeightedItems();
+        final Map<Item, Integer> counts = draw(new AliasSampler(items));
+        assertProportional(items, counts);
+    }
+
+    @Test
+    public void aliasSampler_ItemsChangedAfterBuild_SamplerUnchanged() {
+        final List<Item> items = generateItems(getRandomCategory(), 5);
+        final AliasSampler sampler = new AliasSampler(items);
+        items.remove(0);
+        assertEquals(5, sampler.size());
+    }
+
+
+    /* FENWICK SAMPLER */
+    @Test
+    public void fenwickSampler_MixedPriorities_DrawsProportionalToWeight() {
+        final List<Item> items = generateWeightedItems();
+        final Map<Item, Integer> counts = draw(new FenwickSampler(items));
+        assertProportional(items, counts);
+    }
+
+    @Test
+    public void fenwickSampler_ItemsAdded_DrawsProportionalToWeight() {
+        final List<Item> items = generateWeightedItems();
+        final FenwickSampler sampler = new FenwickSampler(new ArrayList<>());
+        items.forEach(sampler::add);
+        assertEquals(items.size(), sampler.size());
+        assertProportional(items, draw(sampler));
+    }
+
+    @Test
+    public void fenwickSampler_ItemRemoved_NeverDrawn() {
+        final List<Item> items = generateWeightedItems();
+        final FenwickSampler sampler = new FenwickSampler(items);
+        final Item removed = items.remove(0);
+        sampler.remove(removed);
+        assertEquals(items.size(), sampler.size());
+        final Map<Item, Integer> counts = draw(sampler);
+        assertThat(counts).doesNotContainKey(removed);
+        assertProportional(items, counts);
+    }
+
+    @Test
+    public void fenwickSampler_ItemReweighted_DrawsProportionalToNewWeight() {
+        final List<Item> items = generateWeightedItems();
+        final FenwickSampler sampler = new FenwickSampler(items);
+        items.forEach(i -> {
+            i.setPriority(i.getPriority() == Priority.HIGH ? Priority.LOW : Priority.HIGH);
+            sampler.update(i);
+        });
+        assertProportional(items, draw(sampler));
+    }
+
+    @Test
+    public void fenwickSampler_GrowsPastCapacity_DrawsProportionalToWeight() {
+        final List<Item> items = generateItems(getRandomCategory(), 100);
+        final FenwickSampler sampler = new FenwickSampler(items.subList(0, 1));
+        items.subList(1, items.size()).forEach(sampler::add);
+        items.get(0).setPriority(Priority.HIGH);
+        sampler.update(items.get(0));
+        assertEquals(items.size(), sampler.size());
+        final Map<Item, Integer> counts = draw(sampler);
+        assertThat(counts.get(items.get(0))).isGreaterThan(counts.get(items.get(1)));
+    }
+
+    /* STREAMING SAMPLER */
+    @Test
+    public void streamingSampler_MixedPriorities_DrawsProportionalToWeight() {
+        final List<Item> items = generateWeightedItems();
+        final Map<Item, Integer> counts = draw(new StreamingSampler(items));
+        assertProportional(items, counts);
+    }
+
+    @Test
+    public void streamingSampler_SampleOne_DrawsProportionalToWeight() {
+        final List<Item> items = generateWeightedItems();
+        final StreamingSampler sampler = new StreamingSampler(items);
+        final Map<Item, Integer> counts = new HashMap<>();
+        final Random rand = new Random();
+        for (int i = 0; i < DRAWS; i++) {
+            counts.merge(sampler.sample(1, new HashSet<>(), rand).get(0), 1, Integer::sum);
+        }
+        assertProportional(items, counts);
+    }
+
+    @Test
+    public void streamingSampler_SampleWholeCategory_ReturnsEveryItemOnce() {
+        final List<Item> items = generateWeightedItems();
+        final List<Item> sample = new StreamingSampler(items).sample(items.size(), new HashSet<>(), new Random());
+        assertThat(sample).containsExactlyInAnyOrderElementsOf(items);
+    }
+
+    @Test
+    public void streamingSampler_SampleWithExcluded_ExcludedNotReturned() {
+        final List<Item> items = generateWeightedItems();
+        final Set<Item> exclude = new HashSet<>(items.subList(0, 2));
+        final List<Item> sample =
+            new StreamingSampler(items).sample(items.size() - exclude.size(), exclude, new Random());
+        assertThat(sample).containsExactlyInAnyOrderElementsOf(items.subList(2, items.size()));
+    }
+
+    @Test
+    public void streamingSampler_SampleMoreThanAvailable_ReturnsAllAvailable() {
+        final List<Item> items = generateWeightedItems();
+        final List<Item> sample = new StreamingSampler(items).sample(items.size() + 5, new HashSet<>(), new Random());
+        assertEquals(items.size(), sample.size());
+    }
+
+    /* RANDOM PROVIDER */
+    @Test
+    public void randomProvider_ThreadLocal_ReturnsThreadLocalRandom() {
+        final RandomProvider provider = new RandomProvider(RandomType.THREAD_LOCAL, 0);
+        assertSame(ThreadLocalRandom.current(), provider.get());
+    }
+
+    @Test
+    public void randomProvider_Splittable_SameGeneratorPerThread() throws Exception {
+        final RandomProvider provider = new RandomProvider(RandomType.SPLITTABLE, 0);
+        final Random current = provider.get();
+        assertSame(current, provider.get());
+        assertNotSame(current, CompletableFuture.supplyAsync(provider::get).get());
+    }
+
+    @Test
+    public void randomProvider_SeededSameSeed_SameSequence() {
+        final long seed = (new Random()).nextLong();
+        final RandomProvider first = new RandomProvider(RandomType.SEEDED, seed);
+        final RandomProvider second = new RandomProvider(RandomType.SEEDED, seed);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(drawInts(first.get()), drawInts(second.get()));
+        }
+    }
+
+    @Test
+    public void randomProvider_SeededReset_ReplaysSequence() {
+        final long seed = (new Random()).nextLong();
+        final RandomProvider provider = new RandomProvider(RandomType.SEEDED, seed);
+        final List<Integer> first = drawInts(provider.get());
+        final List<Integer> second = drawInts(provider.get());
+        assertNotEquals(first, second);
+
+        provider.reset(seed);
+        assertEquals(first, drawInts(provider.get()));
+        assertEquals(second, drawInts(provider.get()));
+    }
+
+    @Test
+    public void randomProvider_FromSeed_SameGeneratorReplaysSeed() {
+        final long seed = (new Random()).nextLong();
+        final RandomProvider provider = new RandomProvider(RandomType.THREAD_LOCAL, 0);
+        final Random rand = provider.get(seed);
+        final List<Integer> first = drawInts(rand);
+        assertSame(rand, provider.get(seed));
+        assertEquals(first, drawInts(rand));
+    }
+
+    /* SET POOL */
+    @Test
+    public void setPool_Disabled_NothingPooled() {
+        final SetPool pool = new SetPool(mock(DataHandler.class), generateSamplerCache(SamplerType.ALIAS),
+            new RandomProvider(RandomType.THREAD_LOCAL, 0), 0);
+        pool.refill(getRandomCategory(), 3);
+        assertTrue(pool.poll(getRandomCategory(), 3).isEmpty());
+    }
+
+    @Test
+    public void setPool_Refilled_ReturnsPooledSets() throws Exception {
+        final String category = getRandomCategory();
+        final DataHandler dataHandler = mock(DataHandler.class);
+        when(dataHandler.getData()).thenReturn(generateItems(10));
+        final SamplerCache samplerCache = generateSamplerCache(SamplerType.ALIAS);
+        final RandomProvider randomProvider = new RandomProvider(RandomType.THREAD_LOCAL, 0);
+        final SetPool pool = new SetPool(dataHandler, samplerCache, randomProvider, 3);
+
+        pool.refill(category, 3).get();
+        final Optional<SetPool.PooledSet> pooled = pool.poll(category, 3);
+        assertTrue(pooled.isPresent());
+        final List<Item> items = pooled.get().getItems();
+        assertEquals(3, items.size());
+        assertEquals(3, new HashSet<>(items).size());
+        assertThat(generateItems(category, 10)).containsAll(items);
+        assertEquals(items, samplerCache.getSampler(dataHandler.getData(), category)
+            .sample(3, new HashSet<>(), randomProvider.get(pooled.get().getSeed())));
+        pool.shutdown();
+    }
+
+    @Test
+    public void setPool_CategoryChangedAfterRefill_PooledSetsDiscarded() throws Exception {
+        final String category = getRandomCategory();
+        final List<Item> items = generateItems(10);
+        final DataHandler dataHandler = mock(DataHandler.class);
+        when(dataHandler.getData()).thenReturn(items);
+        final SamplerCache samplerCache = generateSamplerCache(SamplerType.FENWICK);
+        final SetPool pool = new SetPool(dataHandler, samplerCache, new RandomProvider(RandomType.THREAD_LOCAL, 0), 3);
+
+        pool.refill(category, 3).get();
+        assertTrue(pool.poll(category, 3).isPresent());
+        final Item removed = generateItems(category, 10).get(0);
+        items.remove(removed);
+        samplerCache.itemRemoved(removed);
+        assertTrue(pool.poll(category, 3).isEmpty());
+        pool.shutdown();
+    }
+
+    @Test
+    public void setPool_ItemRemovedDuringRefill_RemovedItemNeverPooled() throws Exception {
+        final String category = getRandomCategory();
+        final List<Item> items = generateItems(category, 400);
+        final DataHandler dataHandler = mock(DataHandler.class);
+        when(dataHandler.getData()).thenReturn(items);
+        final SamplerCache samplerCache = generateSamplerCache(SamplerType.FENWICK);
+        final SetPool pool = new SetPool(dataHandler, samplerCache, new RandomProvider(RandomType.THREAD_LOCAL, 0), 50);
+        samplerCache.getSampler(items, category);
+
+        final Set<Item> removed = new HashSet<>();
+        for (Item item : items.subList(0, 300)) {
+            final CompletableFuture<Void> refill = pool.refill(category, 5);
+            removed.add(item);
+            samplerCache.itemRemoved(item);
+            refill.get();
+            Optional<SetPool.PooledSet> pooled;
+            while ((pooled = pool.poll(category, 5)).isPresent()) {
+                assertThat(pooled.get().getItems()).doesNotContainAnyElementsOf(removed);
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void setPool_DifferentSetSize_PooledSetsDiscarded() throws Exception {
+        final String category = getRandomCategory();
+        final DataHandler dataHandler = mock(DataHandler.class);
+        when(dataHandler.getData()).thenReturn(generateItems(10));
+        final SetPool pool = new SetPool(dataHandler, generateSamplerCache(SamplerType.ALIAS),
+            new RandomProvider(RandomType.THREAD_LOCAL, 0), 3);
+
+        pool.refill(category, 3).get();
+        assertTrue(pool.poll(category, 3).isPresent());
+        assertTrue(pool.poll(category, 4).isEmpty());
+        pool.shutdown();
+    }
+
+    /* DATA VERSION */
+    @Test
+    public void getDataVersion_SameItemsNewCache_SameVersion() {
+        final String category = getRandomCategory();
+        final long version = generateSamplerCache(SamplerType.ALIAS).getDataVersion(generateItems(10), category);
+        assertEquals(version, generateSamplerCache(SamplerType.ALIAS).getDataVersion(generateItems(10), category));
+    }
+
+    @Test
+    public void getDataVersion_ItemReprioritized_VersionChanges() {
+        final String category = getRandomCategory();
+        final List<Item> items = generateItems(10);
+        final SamplerCache samplerCache = generateSamplerCache(SamplerType.FENWICK);
+        final long version = samplerCache.getDataVersion(items, category);
+
+        final Item item = items.stream().filter(i -> i.getCategory().equals(category)).findFirst().orElseThrow();
+        item.setPriority(item.getPriority() == Priority.HIGH ? Priority.LOW : Priority.HIGH);
+        samplerCache.itemUpdated(category, item);
+        assertNotEquals(version, samplerCache.getDataVersion(items, category));
+    }
+
+    @Test
+    public void getDataVersion_UnchangedSamplerRebuilt_SameVersion() {
+        final String category = getRandomCategory();
+        final List<Item> items = generateItems(10);
+        final long version = generateSamplerCache(SamplerType.FENWICK).getDataVersion(items, category);
+        assertEquals(version, generateSamplerCache(SamplerType.FENWICK).getDataVersion(items, category));
+    }
+
+    @Test
+    public void getDataVersion_SamplerChangedInPlaceThenRebuilt_VersionChanges() {
+        final String category = getRandomCategory();
+        final List<Item> items = generateItems(10);
+        final SamplerCache samplerCache = generateSamplerCache(SamplerType.FENWICK);
+        samplerCache.getDataVersion(items, category);
+
+        final Item item = items.stream().filter(i -> i.getCategory().equals(category)).findFirst().orElseThrow();
+        items.remove(item);
+        samplerCache.itemRemoved(item);
+        final long version = samplerCache.getDataVersion(items, category);
+        assertNotEquals(version, generateSamplerCache(SamplerType.FENWICK).getDataVersion(items, category));
+    }
+
+    /* SNAPSHOTS */
+    @Test
+    public void getSampler_NewVersionOfSameList_SamplerKept() {
+        final SamplerCache samplerCache = generateSamplerCache(SamplerType.FENWICK);
+        final List<Item> items = SnapshotList.of(generateItems(10));
+        final WeightedSampler sampler = samplerCache.getSampler(items, null);
+
+        final List<Item> changed = SnapshotList.edit(items);
+        final Item removed = changed.remove(0);
+        samplerCache.itemRemoved(removed);
+        assertSame(sampler, samplerCache.getSampler(SnapshotList.next(items, changed), null));
+        assertNull(sampler.getItem(removed.getId()));
+        assertEquals(generateItems(10), items);
+    }
+
+    @Test
+    public void getSampler_ListReplaced_SamplerRebuilt() {
+        final SamplerCache samplerCache = generateSamplerCache(SamplerType.ALIAS);
+        final List<Item> items = SnapshotList.of(generateItems(10));
+        final WeightedSampler sampler = samplerCache.getSampler(items, null);
+
+        assertNotSame(sampler, samplerCache.getSampler(SnapshotList.of(items), null));
+    }
+
+    /* ITEM LOOKUP */
+    @Test
+    public void getItem_EverySamplerType_FindsLiveItemById() {
+        final List<Item> items = generateWeightedItems();
+        final List<WeightedSampler> samplers = List.of(new AliasSampler(items), new FenwickSampler(items),
+            new StreamingSampler(items), new CategorySampler(items, new CategoryWeights(true, Map.of(), 1)));
+        for (WeightedSampler sampler : samplers) {
+            for (Item item : items) {
+                assertSame(item, sampler.getItem(item.getId()));
+            }
+            assertNull(sampler.getItem(items.size() * exampleCategories.size() + 1));
+        }
+    }
+
+    @Test
+    public void getItem_DynamicSamplerChanged_ReturnsCurrentItem() {
+        final List<Item> items = generateWeightedItems();
+        final FenwickSampler sampler = new FenwickSampler(items);
+        final Item edited = moveItem(items.get(2), items.get(2).getCategory());
+        edited.setTitle(edited.getTitle() + " (Edited)");
+        sampler.update(edited);
+        sampler.remove(items.get(0));
+        assertSame(edited, sampler.getItem(edited.getId()));
+        assertNull(sampler.getItem(items.get(0).getId()));
+        assertSame(items.get(5), sampler.getItem(items.get(5).getId()));
+    }
+
+    /* AGING POLICY */
+    @Test
+    public void agingPolicy_Disabled_UsesPriorityWeights() {
+        final AgingPolicy policy = new AgingPolicy(false, 0.01, 4.0);
+        final Item item = generateItems(getRandomCategory(), 1).get(0);
+        item.setAdded(LocalDate.now().minusDays(300));
+        assertSame(Weigher.PRIORITY, policy.getWeigher(LocalDate.now()));
+        assertEquals(item.getPriority().getWeight(), policy.getWeigher(LocalDate.now()).weigh(item));
+    }
+
+    @Test
+    public void agingPolicy_OlderItems_BoostGrowsUntilCap() {
+        final AgingPolicy policy = new AgingPolicy(true, 0.01, 4.0);
+        final LocalDate today = LocalDate.now();
+        final Item item = generateItems(getRandomCategory(), 1).get(0);
+        assertEquals(1.0, policy.getBoost(item, today));
+        item.setAdded(today.minusDays(100));
+        assertEquals(2.0, policy.getBoost(item, today), 0.0001);
+        item.setAdded(today.minusDays(1000));
+        assertEquals(4.0, policy.getBoost(item, today));
+        item.setAdded(null);
+        assertEquals(1.0, policy.getBoost(item, today));
+    }
+
+    @Test
+    public void aliasSampler_AgedWeights_OldItemsDrawnMoreOften() {
+        final AgingPolicy policy = new AgingPolicy(true, 0.01, 4.0);
+        final Weigher weigher = policy.getWeigher(LocalDate.now());
+        final List<Item> items = generateWeightedItems();
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setAdded(LocalDate.now().minusDays(i * 60L));
+        }
+        assertThat(weigher.weigh(items.get(5))).isGreaterThan(weigher.weigh(items.get(2)));
+        assertProportional(items, draw(new AliasSampler(items, weigher)), weigher);
+    }
+
+    @Test
+    public void fenwickSampler_AgedWeights_DrawsProportionalToAgedWeight() {
+        final AgingPolicy policy = new AgingPolicy(true, 0.02, 3.0);
+        final Weigher weigher = policy.getWeigher(LocalDate.now());
+        final List<Item> items = generateWeightedItems();
+        final FenwickSampler sampler = new FenwickSampler(new ArrayList<>(), weigher);
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setAdded(LocalDate.now().minusDays(i * 25L));
+            sampler.add(items.get(i));
+        }
+        assertProportional(items, draw(sampler), weigher);
+    }
+
+    /* CATEGORY SAMPLER */
+    @Test
+    public void categorySampler_WeightedCategories_DrawsCategoriesByWeight() {
+        final CategorySampler sampler = new CategorySampler(generateItems(20), generateCategoryWeights());
+        final Map<String, Integer> counts = drawCategories(sampler);
+        assertCategoryShare(counts, exampleCategories.get(0), 4.0 / 7);
+        assertCategoryShare(counts, exampleCategories.get(1), 2.0 / 7);
+        assertCategoryShare(counts, exampleCategories.get(2), 1.0 / 7);
+    }
+
+    @Test
+    public void categorySampler_ZeroWeightCategory_NeverDrawn() {
+        final CategorySampler sampler = new CategorySampler(generateItems(20), generateCategoryWeights());
+        assertEquals(60, sampler.size());
+        assertThat(sampler.getItems()).doesNotContainAnyElementsOf(generateItems(exampleCategories.get(3), 20));
+        assertThat(drawCategories(sampler)).doesNotContainKey(exampleCategories.get(3));
+    }
+
+    @Test
+    public void categorySampler_CategoryWithFewItems_StillDrawnByWeight() {
+        final List<Item> items = generateItems(exampleCategories.get(0), 1);
+        items.addAll(generateItems(exampleCategories.get(1), 500));
+        final CategorySampler sampler = new CategorySampler(items, generateCategoryWeights());
+        assertCategoryShare(drawCategories(sampler), exampleCategories.get(0), 4.0 / 6);
+    }
+
+    @Test
+    public void categorySampler_InsideCategory_DrawsProportionalToPriority() {
+        final List<Item> items = generateWeightedItems();
+        final CategorySampler sampler = new CategorySampler(items, new CategoryWeights(true, Map.of(), 1));
+        assertProportional(items, draw(sampler));
+    }
+
+    @Test
+    public void categorySampler_LastItemRemovedAndReadded_CategoryDrawnAgain() {
+        final List<Item> items = generateItems(exampleCategories.get(0), 1);
+        items.addAll(generateItems(exampleCategories.get(1), 5));
+        final CategorySampler sampler = new CategorySampler(items, generateCategoryWeights());
+
+        sampler.remove(items.get(0));
+        assertEquals(5, sampler.size());
+        assertThat(drawCategories(sampler)).containsOnlyKeys(exampleCategories.get(1));
+
+        sampler.add(items.get(0));
+        assertEquals(6, sampler.size());
+        assertCategoryShare(drawCategories(sampler), exampleCategories.get(0), 4.0 / 6);
+    }
+
+    @Test
+    public void categorySampler_ItemMovedCategory_DrawnFromNewCategory() {
+        final List<Item> items = generateItems(exampleCategories.get(0), 1);
+        items.addAll(generateItems(exampleCategories.get(1), 5));
+        final CategorySampler sampler = new CategorySampler(items, generateCategoryWeights());
+
+        final Item moved = moveItem(items.get(0), exampleCategories.get(3));
+        sampler.update(moved);
+        assertEquals(5, sampler.size());
+        assertThat(sampler.getItems()).doesNotContain(items.get(0), moved);
+
+        final Item movedBack = moveItem(moved, exampleCategories.get(2));
+        sampler.update(movedBack);
+        assertEquals(6, sampler.size());
+        assertCategoryShare(drawCategories(sampler), exampleCategories.get(2), 1.0 / 3);
+    }
+
+    @Test
+    public void samplerCache_CategoryWeightsEnabled_WholeListUsesCategorySampler() {
+        final List<Item> items = generateItems(10);
+        final SamplerCache samplerCache = new SamplerCache(SamplerType.ALIAS, new AgingPolicy(false, 0, 1),
+            generateCategoryWeights());
+        assertTrue(samplerCache.getSampler(items, null) instanceof CategorySampler);
+        assertTrue(samplerCache.getSampler(items, exampleCategories.get(0)) instanceof AliasSampler);
+
+        final Item added = generateItems(exampleCategories.get(0), 11).get(10);
+        items.add(added);
+        samplerCache.itemAdded(added);
+        assertThat(samplerCache.getSampler(items, null).getItems()).contains(added);
+    }
+
+    /* HELPER FUNCTIONS */
+    protected static List<Item> generateWeightedItems() {
+        final List<Item> items = generateItems(getRandomCategory(), 6);
+        final Priority[] priorities = Priority.values();
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setPriority(priorities[i % priorities.length]);
+        }
+        return items;
+    }
+
+    protected static Map<Item, Integer> draw(final WeightedSampler sampler) {
+        final Map<Item, Integer> counts = new HashMap<>();
+        final Random rand = new Random();
+        for (int i = 0; i < DRAWS; i++) {
+            counts.merge(sampler.next(rand), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    protected static List<Integer> drawInts(final Random rand) {
+        return IntStream.range(0, 10).map(i -> rand.nextInt(1000)).boxed().collect(Collectors.toList());
+    }
+
+    protected static SamplerCache generateSamplerCache(final SamplerType samplerType) {
+        return new SamplerCache(samplerType, new AgingPolicy(false, 0, 1), new CategoryWeights(false, Map.of(), 1));
+    }
+
+    protected static CategoryWeights generateCategoryWeights() {
+        return new CategoryWeights(true, Map.of(exampleCategories.get(0), 4, exampleCategories.get(1), 2,
+            exampleCategories.get(3), 0), 1);
+    }
+
+    protected static Item moveItem(final Item item, final String category) {
+        return Item.builder()
+            .id(item.getId())
+            .title(item.getTitle())
+            .category(category)
+            .priority(item.getPriority())
+            .added(item.getAdded())
+            .build();
+    }
+
+    protected static Map<String, Integer> drawCategories(final WeightedSampler sampler) {
+        final Map<String, Integer> counts = new HashMap<>();
+        draw(sampler).forEach((item, count) -> counts.merge(item.getCategory(), count, Integer::sum));
+        return counts;
+    }
+
+    protected static void assertCategoryShare(final Map<String, Integer> counts, final String category,
+        final double share) {
+        final double expected = DRAWS * share;
+        assertThat((double) counts.getOrDefault(category, 0)).isBetween(expected * 0.9, expected * 1.1);
+    }
+
+    protected static void assertProportional(final List<Item> items, final Map<Item, Integer> counts) {
+        assertProportional(items, counts, Weigher.PRIORITY);
+    }
+
+    protected static void assertProportional(final List<Item> items, final Map<Item, Integer> counts,
+        final Weigher weigher) {
+        final int totalWeight = items.stream().mapToInt(weigher::weigh).sum();
+        for (Item item : items) {
+            final double expected = (double) DRAWS * weigher.weigh(item) / totalWeight;
+            assertThat((double) counts.getOrDefault(item, 0)).isBetween(expected * 0.9, expected * 1.1);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataStore;
+import net.christopherknox.rc.SqlDataStore;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.persistence.LogRecord;
+import net.christopherknox.rc.persistence.RecordType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("sql")
+@TestPropertySource(locations = "/test.properties", properties = {
+    "data.filepath=src/test/resources/sql-store-test.json"
+})
+public class SqlDataStoreTests extends TestBase {
+
+    @Autowired
+    private DataStore dataStore;
+
+    @Value("${data.filepath}")
+    private String testFilepath;
+
+    @BeforeEach
+    public void resetDatabase() throws IOException {
+        Files.deleteIfExists(Paths.get(testFilepath));
+        dataStore.setData(new ArrayList<>());
+        dataStore.setHistory(new ArrayList<>());
+        dataStore.setCategories(new ArrayList<>());
+        dataStore.save();
+        dataStore.reload();
+    }
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("src/test/resources/sql-store-test.json"));
+        Files.deleteIfExists(Paths.get("src/test/resources/sql-store-test.mv.db"));
+        Files.deleteIfExists(Paths.get("src/test/resources/sql-store-test.trace.db"));
+    }
+
+    @Test
+    public void init_SqlProfile_SqlStoreUsed() {
+        assertThat(dataStore).isInstanceOf(SqlDataStore.class);
+    }
+
+    @Test
+    public void save_NothingRecorded_EverythingReadBack() throws Exception {
+        final Data testData = generateTestData();
+        testData.setHistory(generateItems(exampleCategories.get(0), true, 1));
+        testData.getHistory().get(0).setId(1000);
+        saveToStore(testData);
+        final Integer nextId = dataStore.getNextId();
+        dataStore.save();
+
+        dataStore.reload();
+
+        assertEquals(testData.getData(), dataStore.getData());
+        assertEquals(testData.getHistory(), dataStore.getHistory());
+        assertEquals(testData.getCategories(), dataStore.getCategories());
+        assertEquals(testData.getDefaultSetSize(), dataStore.getDefaultSetSize());
+        assertEquals(nextId + 1, dataStore.getNextId());
+    }
+
+    @Test
+    public void save_ItemChangeRecorded_OnlyRecordedRowWritten() throws Exception {
+        saveToStore(generateTestData(3));
+        final List<Item> items = new ArrayList<>(dataStore.getData());
+        final Item recorded = items.get(0).toBuilder().title("Recorded " + testTitle).build();
+        final Item unrecorded = items.get(1).toBuilder().title("Unrecorded " + testTitle).build();
+        final String title = items.get(1).getTitle();
+
+        items.set(0, recorded);
+        items.set(1, unrecorded);
+        dataStore.setData(items);
+        dataStore.record(LogRecord.builder().type(RecordType.SAVE_ITEM).item(recorded).build());
+        dataStore.save();
+        dataStore.reload();
+
+        assertEquals("Recorded " + testTitle, dataStore.getData().get(0).getTitle());
+        assertEquals(title, dataStore.getData().get(1).getTitle());
+    }
+
+    @Test
+    public void save_NewItemRecorded_AddedToEnd() throws Exception {
+        saveToStore(generateTestData(3));
+        final Item item = Item.builder().id(500).title(testTitle).category(exampleCategories.get(0)).build();
+
+        final List<Item> items = new ArrayList<>(dataStore.getData());
+        items.add(item);
+        dataStore.setData(items);
+        dataStore.record(LogRecord.builder().type(RecordType.SAVE_ITEM).item(item).build());
+        dataStore.save();
+        final List<Item> expected = new ArrayList<>(dataStore.getData());
+        dataStore.reload();
+
+        assertEquals(expected, dataStore.getData());
+    }
+
+    @Test
+    public void save_CompletionRecorded_MovedToHistory() throws Exception {
+        saveToStore(generateTestData(3));
+        final List<Item> items = new ArrayList<>(dataStore.getData());
+        final Item completed = items.remove(0).toBuilder().completed(LocalDate.now()).build();
+
+        dataStore.setData(items);
+        dataStore.setHistory(List.of(completed));
+        dataStore.record(LogRecord.builder().type(RecordType.COMPLETE_ITEM).item(completed).build());
+        dataStore.save();
+        final List<Item> expected = new ArrayList<>(dataStore.getData());
+        dataStore.reload();
+
+        assertEquals(List.of(completed), dataStore.getHistory());
+        assertEquals(expected, dataStore.getData());
+    }
+
+    @Test
+    public void save_CategoryRemovalRecorded_ItemsInCategoryRemoved() throws Exception {
+        saveToStore(generateTestData(3));
+        final String category = exampleCategories.get(1);
+
+        final List<String> categories = new ArrayList<>(dataStore.getCategories());
+        categories.remove(category);
+        dataStore.setCategories(categories);
+        dataStore.setData(dataStore.getData().stream()
+            .filter(i -> !i.getCategory().equals(category)).collect(Collectors.toList()));
+        dataStore.record(LogRecord.builder().type(RecordType.REMOVE_CATEGORY).category(category).build());
+        dataStore.save();
+        final List<Item> expected = new ArrayList<>(dataStore.getData());
+        dataStore.reload();
+
+        assertEquals(expected, dataStore.getData());
+        assertThat(dataStore.getCategories()).doesNotContain(category);
+    }
+
+    @Test
+    public void saveLastSets_LastSetsSaved_ReadBack() throws Exception {
+        final Map<String, LastSet> lastSets = generateLastSets();
+        lastSets.get(exampleCategories.get(0)).setSeed(42L);
+
+        dataStore.setLastSets(lastSets);
+        dataStore.saveLastSets();
+        dataStore.reload();
+
+        assertLastSets(lastSets, dataStore.getLastSets());
+        assertEquals(42L, dataStore.getLastSets().get(exampleCategories.get(0)).getSeed());
+    }
+
+    @Test
+    public void reload_DatabaseEmptyAndSaveFileExists_SaveFileImported() throws Exception {
+        final Data testData = generateTestData();
+        saveTestData(testFilepath, testData);
+
+        dataStore.reload();
+
+        assertEquals(testData.getData(), dataStore.getData());
+        assertEquals(testData.getCategories(), dataStore.getCategories());
+        dataStore.reload();
+        assertEquals(testData.getData(), dataStore.getData());
+    }
+
+    @Test
+    public void flush_DuringSaves_SavesAllReadBack() throws Exception {
+        saveToStore(generateTestData(3));
+        final List<Item> items = new ArrayList<>(dataStore.getData());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            final Future<?> flushes = executor.submit(() -> {
+                for (int i = 0; i < 20; i++) {
+                    dataStore.flush();
+                }
+                return null;
+            });
+            for (int i = 0; i < 20; i++) {
+                final Item item = Item.builder().id(500 + i).title(testTitle + i).category(exampleCategories.get(0))
+                    .build();
+                items.add(item);
+                dataStore.setData(new ArrayList<>(items));
+                dataStore.record(LogRecord.builder().type(RecordType.SAVE_ITEM).item(item).build());
+                dataStore.save();
+            }
+            flushes.get();
+        } finally {
+            executor.shutdown();
+        }
+        dataStore.reload();
+
+        assertEquals(items, dataStore.getData());
+    }
+
+    /* HELPER FUNCTIONS */
+    protected void saveToStore(final Data testData) throws IOException {
+        dataStore.setData(new ArrayList<>(testData.getData()));
+        dataStore.setHistory(new ArrayList<>(testData.getHistory()));
+        dataStore.setCategories(new ArrayList<>(testData.getCategories()));
+        dataStore.setDefaultSetSize(testData.getDefaultSetSize());
+        dataStore.save();
+    }
+}
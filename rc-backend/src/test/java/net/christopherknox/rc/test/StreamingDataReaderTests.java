@@ -0,0 +1,99 @@
+package net.christopherknox.rc.test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.persistence.StreamingDataReader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StreamingDataReaderTests extends TestBase {
+
+    private static final String testFilepath = "src/test/resources/streaming-test.json";
+
+    private final StreamingDataReader reader = new StreamingDataReader(new ObjectMapper());
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        Files.deleteIfExists(Paths.get(testFilepath));
+    }
+
+    @Test
+    public void read_SavedData_SameAsFullRead() throws Exception {
+        final Data testData = generateTestData();
+        testData.setHistory(generateItems(testCategory, true, 5));
+        testData.setLogSequence(42L);
+        saveTestData(testFilepath, testData);
+
+        final Data data = reader.read(new File(testFilepath), (bytesRead, totalBytes) -> {});
+
+        final Data expected = getTestData(testFilepath);
+        assertEquals(expected.getData(), data.getData());
+        assertEquals(expected.getHistory(), data.getHistory());
+        assertEquals(expected.getCategories(), data.getCategories());
+        assertNull(data.getLastSets());
+        assertEquals(expected.getDefaultSetSize(), data.getDefaultSetSize());
+        assertEquals(expected.getNextId(), data.getNextId());
+        assertEquals(expected.getLogSequence(), data.getLogSequence());
+    }
+
+    @Test
+    public void read_LargeFile_ProgressReportedInOrderUpToWholeFile() throws Exception {
+        final Data testData = generateTestData(1000);
+        saveTestData(testFilepath, testData);
+        final long fileSize = new File(testFilepath).length();
+        final List<Long> progress = new ArrayList<>();
+
+        reader.read(new File(testFilepath), (bytesRead, totalBytes) -> {
+            assertEquals(fileSize, totalBytes);
+            progress.add(bytesRead);
+        });
+
+        assertThat(progress.size()).isGreaterThan(10);
+        assertThat(progress).isSorted();
+        assertEquals(fileSize, progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void read_OlderFileWithLastSets_LastSetsRead() throws Exception {
+        final Data testData = generateTestData();
+        testData.setLastSets(groupByCategory(testData.getData()));
+        saveTestData(testFilepath, testData);
+
+        final Data data = reader.read(new File(testFilepath), (bytesRead, totalBytes) -> {});
+
+        assertEquals(testData.getLastSets(), data.getLastSets());
+    }
+
+    @Test
+    public void read_UnknownField_FieldSkipped() throws Exception {
+        Files.writeString(Paths.get(testFilepath),
+            "{\"unknown\":{\"nested\":[1,2,3]},\"categories\":[\"" + testCategory + "\"],\"nextId\":7}");
+
+        final Data data = reader.read(new File(testFilepath), (bytesRead, totalBytes) -> {});
+
+        assertEquals(List.of(testCategory), data.getCategories());
+        assertEquals(7, data.getNextId());
+        assertEquals(new ArrayList<>(), data.getData());
+    }
+
+    @Test
+    public void read_NotAnObject_ThrowsException() throws Exception {
+        Files.writeString(Paths.get(testFilepath), "[]");
+
+        assertThrows(JsonParseException.class,
+            () -> reader.read(new File(testFilepath), (bytesRead, totalBytes) -> {}));
+    }
+}
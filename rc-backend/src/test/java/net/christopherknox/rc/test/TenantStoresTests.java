@@ -0,0 +1,153 @@
+package net.christopherknox.rc.test;
+
+import net.christopherknox.rc.DataStore;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.sampler.AgingPolicy;
+import net.christopherknox.rc.sampler.CategoryWeights;
+import net.christopherknox.rc.sampler.RandomProvider;
+import net.christopherknox.rc.sampler.RandomType;
+import net.christopherknox.rc.sampler.SamplerCache;
+import net.christopherknox.rc.sampler.SamplerType;
+import net.christopherknox.rc.sampler.SetPool;
+import net.christopherknox.rc.sampler.StoreSamplers;
+import net.christopherknox.rc.tenant.TenantContext;
+import net.christopherknox.rc.tenant.TenantDataStore;
+import net.christopherknox.rc.tenant.TenantEvictedEvent;
+import net.christopherknox.rc.tenant.TenantStore;
+import net.christopherknox.rc.tenant.TenantStores;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TenantStoresTests extends TestBase {
+
+    private static final Path testDirectory = Paths.get("src/test/resources/tenant-stores-test");
+
+    private final List<Object> events = new ArrayList<>();
+
+    @AfterEach
+    public void deleteTestFiles() throws IOException {
+        if (Files.exists(testDirectory)) {
+            try (Stream<Path> paths = Files.walk(testDirectory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void get_SameTenant_SameStore() throws Exception {
+        final TenantStores stores = new TenantStores(testDirectory.toString(), 10, 1000, 60000, events::add);
+
+        assertSame(stores.get("a"), stores.get("a"));
+        assertNotSame(stores.get("a"), stores.get("b"));
+    }
+
+    @Test
+    public void get_OverLoadedCount_LeastRecentlyUsedEvicted() throws Exception {
+        final TenantStores stores = new TenantStores(testDirectory.toString(), 2, 1000, 60000, events::add);
+        final TenantStore a = stores.get("a");
+        final TenantStore b = stores.get("b");
+
+        stores.get("a");
+        stores.get("c");
+
+        assertEquals(2, stores.getLoadedCount());
+        assertEquals(List.of(b), events.stream().map(e -> ((TenantEvictedEvent) e).getStore())
+            .collect(Collectors.toList()));
+        assertSame(a, stores.get("a"));
+        assertNotSame(b, stores.get("b"));
+    }
+
+    @Test
+    public void get_LeastRecentlyUsedInUse_NextOneEvicted() throws Exception {
+        final TenantStores stores = new TenantStores(testDirectory.toString(), 2, 1000, 60000, events::add);
+        final TenantStore a = stores.get("a");
+        final TenantStore b = stores.get("b");
+        stores.acquire("a");
+
+        stores.get("c");
+        stores.release("a");
+
+        assertEquals(2, stores.getLoadedCount());
+        assertEquals(List.of(b), events.stream().map(e -> ((TenantEvictedEvent) e).getStore())
+            .collect(Collectors.toList()));
+        assertSame(a, stores.get("a"));
+    }
+
+    @Test
+    public void get_OverItemBudget_EvictedTenantSavedAndReadBack() throws Exception {
+        final TenantStores stores = new TenantStores(testDirectory.toString(), 10, 5, 60000, events::add);
+        final TenantStore a = stores.get("a");
+        a.setData(generateItems(2));
+        a.setCategories(generateCategories());
+        stores.get("a");
+
+        stores.get("b");
+
+        assertEquals(1, stores.getLoadedCount());
+        assertEquals(0, stores.getLoadedItems());
+        final TenantStore reloaded = stores.get("a");
+        assertNotSame(a, reloaded);
+        assertEquals(generateItems(2), reloaded.getData());
+        assertEquals(generateCategories(), reloaded.getCategories());
+    }
+
+    @Test
+    public void storeSamplers_TwoTenants_OwnSamplersAndPoolRefilledFromOwnStore() throws Exception {
+        final String category = exampleCategories.get(0);
+        final TenantStores stores = new TenantStores(testDirectory.toString(), 10, 1000, 60000, events::add);
+        final DataStore dataStore = new TenantDataStore(stores);
+        final SamplerCache samplerCache = new SamplerCache(SamplerType.ALIAS, new AgingPolicy(false, 0, 1),
+            new CategoryWeights(false, Map.of(), 1));
+        final SetPool setPool = new SetPool(dataStore, samplerCache, new RandomProvider(RandomType.THREAD_LOCAL, 0), 3);
+        final StoreSamplers samplers = new StoreSamplers(dataStore, samplerCache, setPool);
+        stores.get("a").setData(generateItems(category, 5));
+        stores.get("b").setData(generateItems(category, 5).stream()
+            .map(i -> i.toBuilder().id(i.getId() + 100).build()).collect(Collectors.toList()));
+
+        try {
+            TenantContext.set("a");
+            final SamplerCache tenantSamplerCache = samplers.getSamplerCache(dataStore);
+            final SetPool tenantSetPool = samplers.getSetPool(dataStore);
+            // The refill runs on a thread without a tenant, so it has to go to the store it was made for
+            tenantSetPool.refill(category, 2).get();
+            final List<Item> pooled = tenantSetPool.poll(category, 2).orElseThrow().getItems();
+            assertThat(stores.get("a").getData()).containsAll(pooled);
+
+            TenantContext.set("b");
+            assertNotSame(tenantSamplerCache, samplers.getSamplerCache(dataStore));
+            assertNotSame(tenantSetPool, samplers.getSetPool(dataStore));
+            assertThat(samplers.getSamplerCache(dataStore).getSampler(dataStore.getData(), category).getItems())
+                .allMatch(i -> i.getId() > 100);
+        } finally {
+            TenantContext.clear();
+            setPool.shutdown();
+        }
+    }
+
+    @Test
+    public void get_InvalidTenant_ThrowsException() {
+        final TenantStores stores = new TenantStores(testDirectory.toString(), 10, 1000, 60000, events::add);
+
+        assertThrows(IllegalArgumentException.class, () -> stores.get("../a"));
+        assertThrows(IllegalArgumentException.class, () -> stores.get(""));
+    }
+}
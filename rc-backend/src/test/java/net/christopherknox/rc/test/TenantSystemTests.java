@@ -0,0 +1,112 @@
+package net.christopherknox.rc.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.christopherknox.rc.Constants;
+import net.christopherknox.rc.request.AddCategoryRequest;
+import net.christopherknox.rc.response.BaseResponse;
+import net.christopherknox.rc.response.CategoryListResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.forwardedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("tenant")
+@TestPropertySource(locations = "/test.properties", properties = {
+    "tenant.directory=src/test/resources/tenant-system-test"
+})
+public class TenantSystemTests extends TestBase {
+
+    private static final Path testDirectory = Paths.get("src/test/resources/tenant-system-test");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterAll
+    public static void deleteTestFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(testDirectory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void addCategory_TenantHeader_OnlyThatTenantChanged() throws Exception {
+        final AddCategoryRequest request = AddCategoryRequest.builder().category(testCategory).build();
+
+        final MvcResult result = mockMvc.perform(post(Constants.ADD_CATEGORY_ENDPOINT).header("X-Tenant", "first")
+            .contentType(MediaType.APPLICATION_JSON).content(toJson(request))).andExpect(status().isOk()).andReturn();
+
+        assertNull(getResponse(result, BaseResponse.class).getError());
+        assertEquals(List.of(testCategory), getCategories("first").getCategories());
+        assertEquals(List.of(), getCategories("second").getCategories());
+        assertTrue(Files.exists(testDirectory.resolve("first.json")));
+    }
+
+    @Test
+    public void getCategories_TenantInPath_ForwardedWithoutPrefix() throws Exception {
+        mockMvc.perform(get("/tenants/third" + Constants.GET_CATEGORIES_ENDPOINT))
+            .andExpect(status().isOk())
+            .andExpect(forwardedUrl(Constants.GET_CATEGORIES_ENDPOINT));
+    }
+
+    @Test
+    public void getCategories_InvalidTenant_BadRequest() throws Exception {
+        mockMvc.perform(get(Constants.GET_CATEGORIES_ENDPOINT).header("X-Tenant", "../outside"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getCategories_NoTenant_ErrorReturned() throws Exception {
+        final MvcResult result = mockMvc.perform(get(Constants.GET_CATEGORIES_ENDPOINT))
+            .andExpect(status().isOk()).andReturn();
+
+        assertNotNull(getResponse(result, CategoryListResponse.class).getError());
+    }
+
+    @Test
+    public void addCategory_NoTenant_ErrorReturned() throws Exception {
+        final AddCategoryRequest request = AddCategoryRequest.builder().category(testCategory).build();
+
+        final MvcResult result = mockMvc.perform(post(Constants.ADD_CATEGORY_ENDPOINT)
+            .contentType(MediaType.APPLICATION_JSON).content(toJson(request))).andExpect(status().isOk()).andReturn();
+
+        assertNotNull(getResponse(result, BaseResponse.class).getError());
+    }
+
+    /* HELPER FUNCTIONS */
+    protected CategoryListResponse getCategories(final String tenant) throws Exception {
+        final MvcResult result = mockMvc.perform(get(Constants.GET_CATEGORIES_ENDPOINT).header("X-Tenant", tenant))
+            .andExpect(status().isOk()).andReturn();
+        return getResponse(result, CategoryListResponse.class);
+    }
+
+    protected <T> T getResponse(final MvcResult result, final Class<T> type) throws Exception {
+        return (new ObjectMapper()).readValue(result.getResponse().getContentAsString(), type);
+    }
+}
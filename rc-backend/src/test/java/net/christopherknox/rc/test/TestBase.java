@@ -1,8 +1,10 @@
 package net.christopherknox.rc.test;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.model.Data;
 import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
 import net.christopherknox.rc.model.Priority;
 import org.assertj.core.util.Lists;
 import org.junit.jupiter.params.provider.Arguments;
@@ -11,6 +13,7 @@ import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,7 +21,9 @@ import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.argThat;
 
 public abstract class TestBase {
     protected static final List<String> exampleCategories = List.of("Books", "Board Games", "Video Games", "Movies/TV");
@@ -83,47 +88,92 @@ public abstract class TestBase {
         return items;
     }
 
-    protected static Map<String, List<Item>> generateLastSets() {
+    protected static Map<String, LastSet> generateLastSets() {
         return generateLastSets(null);
     }
 
-    protected static Map<String, List<Item>> generateLastSets(final List<Item> items) {
-        Map<String, List<Item>> lastSets = new HashMap<>();
+    protected static Map<String, LastSet> generateLastSets(final List<Item> items) {
+        Map<String, LastSet> lastSets = new HashMap<>();
+        groupByCategory(items).forEach((category, categoryItems) -> lastSets.put(category,
+            LastSet.builder().ids(categoryItems.stream().mapToInt(Item::getId).toArray()).build()));
+        return lastSets;
+    }
+
+    protected static Map<String, List<Item>> groupByCategory(final List<Item> items) {
+        Map<String, List<Item>> groups = new HashMap<>();
         List<Item> itemsToProcess = items;
         if (itemsToProcess == null) {
             itemsToProcess = generateItems(null);
         }
-        itemsToProcess.forEach(i -> lastSets.computeIfAbsent(i.getCategory(), k -> new ArrayList<>()).add(i));
-        return lastSets;
+        itemsToProcess.forEach(i -> groups.computeIfAbsent(i.getCategory(), k -> new ArrayList<>()).add(i));
+        return groups;
+    }
+
+    protected static Map<String, List<Integer>> toIdLists(final Map<String, LastSet> lastSets) {
+        Map<String, List<Integer>> idLists = new HashMap<>();
+        lastSets.forEach((category, lastSet) ->
+            idLists.put(category, Arrays.stream(lastSet.getIds()).boxed().collect(Collectors.toList())));
+        return idLists;
     }
 
-    protected DataHandler.Data generateTestData() {
+    protected static void assertLastSets(final Map<String, LastSet> expected, final Map<String, LastSet> actual) {
+        assertEquals(toIdLists(expected), toIdLists(actual));
+    }
+
+    protected static Map<String, LastSet> eqLastSets(final Map<String, LastSet> expected) {
+        return argThat(actual -> toIdLists(expected).equals(toIdLists(actual)));
+    }
+
+    protected Data generateTestData() {
         Random rand = new Random();
         return generateTestData(rand.nextInt(10) + 1);
     }
 
-    protected DataHandler.Data generateTestData(final int categorySize) {
+    protected Data generateTestData(final int categorySize) {
         Random rand = new Random();
-        DataHandler.Data testData = new DataHandler.Data();
+        Data testData = new Data();
         testData.setData(generateItems(categorySize));
         testData.setHistory(new ArrayList<>());
         testData.setCategories(generateCategories());
-        testData.setLastSets(generateLastSets(testData.getData()));
         testData.setDefaultSetSize(rand.nextInt(4) + 2);
         testData.setNextId(rand.nextInt(1000) + testData.getData().size());
         return testData;
     }
 
-    protected void saveTestData(final String filepath, final DataHandler.Data testData) throws IOException {
+    protected void saveTestData(final String filepath, final Data testData) throws IOException {
         File testfile = new File(filepath);
         ObjectMapper mapper = new ObjectMapper();
         mapper.writeValue(testfile, testData);
     }
 
-    protected DataHandler.Data getTestData(final String filepath) throws IOException {
+    protected Data getTestData(final String filepath) throws IOException {
         File testfile = new File(filepath);
         ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(testfile, DataHandler.Data.class);
+        return mapper.readValue(testfile, Data.class);
+    }
+
+    protected void saveTestLastSets(final String filepath, final Map<String, LastSet> lastSets) throws IOException {
+        File testfile = new File(filepath.replaceAll("\\.json$", "") + ".lastsets.json");
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writeValue(testfile, lastSets);
+    }
+
+    protected Map<String, LastSet> getTestLastSets(final String filepath) throws IOException {
+        File testfile = new File(filepath.replaceAll("\\.json$", "") + ".lastsets.json");
+        ObjectMapper mapper = new ObjectMapper();
+        return mapper.readValue(testfile, new TypeReference<>() {});
+    }
+
+    protected void saveTestHistory(final String filepath, final List<Item> history) throws IOException {
+        File testfile = new File(filepath.replaceAll("\\.json$", "") + ".history.json");
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writeValue(testfile, history);
+    }
+
+    protected List<Item> getTestHistory(final String filepath) throws IOException {
+        File testfile = new File(filepath.replaceAll("\\.json$", "") + ".history.json");
+        ObjectMapper mapper = new ObjectMapper();
+        return mapper.readValue(testfile, new TypeReference<>() {});
     }
 
     protected String toJson(final Object response) {
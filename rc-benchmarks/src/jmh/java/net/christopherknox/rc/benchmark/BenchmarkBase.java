@@ -0,0 +1,127 @@
+package net.christopherknox.rc.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.christopherknox.rc.DataHandler;
+import net.christopherknox.rc.RandoCubeApplication;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.LastSet;
+import net.christopherknox.rc.model.Priority;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class BenchmarkBase {
+
+    protected static final int CATEGORY_COUNT = 10;
+    protected static final int SET_SIZE = 3;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    protected int size;
+
+    protected ConfigurableApplicationContext context;
+    protected DataHandler dataHandler;
+    protected List<String> categories;
+    private File dataFile;
+    private File lastSetsFile;
+
+    @Setup(Level.Trial)
+    public void startContext() throws IOException {
+        // Write out a generated save file first so the app loads it the same way it would load a real one
+        dataFile = File.createTempFile("rc-benchmark-" + size + "-", ".json");
+        lastSetsFile = new File(dataFile.getAbsolutePath().replaceAll("\\.json$", "") + ".lastsets.json");
+        final Data data = generateData(size);
+        new ObjectMapper().writeValue(dataFile, data);
+        new ObjectMapper().writeValue(lastSetsFile, generateLastSets(data.getData()));
+        final List<String> args = new ArrayList<>(List.of("--data.filepath=" + dataFile.getAbsolutePath(),
+            "--logging.level.root=WARN"));
+        args.addAll(getProperties());
+        context = new SpringApplicationBuilder(RandoCubeApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(args.toArray(new String[0]));
+        dataHandler = context.getBean(DataHandler.class);
+        categories = new ArrayList<>(dataHandler.getCategories());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() throws IOException {
+        context.close();
+        Files.deleteIfExists(dataFile.toPath());
+        Files.deleteIfExists(lastSetsFile.toPath());
+    }
+
+    protected List<String> getProperties() {
+        return List.of();
+    }
+
+    protected static Data generateData(final int size) {
+        final List<String> categories = IntStream.range(0, CATEGORY_COUNT)
+            .mapToObj(c -> "Category " + c).collect(Collectors.toList());
+        final int historySize = size / 4;
+        final List<Item> items = new ArrayList<>();
+        final List<Item> history = new ArrayList<>();
+        for (int i = 1; i <= size + historySize; i++) {
+            final Item item = Item.builder()
+                .id(i)
+                .title("Benchmark Item " + i)
+                .category(categories.get(i % CATEGORY_COUNT))
+                .priority(Priority.values()[i % Priority.values().length])
+                .added(LocalDate.now().minusDays(i % 1000))
+                .build();
+            if (i <= size) {
+                items.add(item);
+            } else {
+                item.setCompleted(LocalDate.now());
+                history.add(item);
+            }
+        }
+
+        final Data data = new Data();
+        data.setData(items);
+        data.setHistory(history);
+        data.setCategories(categories);
+        data.setDefaultSetSize(SET_SIZE);
+        data.setNextId(size + historySize + 1);
+        return data;
+    }
+
+    protected static Map<String, LastSet> generateLastSets(final List<Item> items) {
+        final Map<String, LastSet> lastSets = new HashMap<>();
+        for (int c = 0; c < CATEGORY_COUNT; c++) {
+            final String category = "Category " + c;
+            lastSets.put(category, LastSet.builder().ids(items.stream().filter(i -> i.getCategory().equals(category))
+                .limit(SET_SIZE).mapToInt(Item::getId).toArray()).build());
+        }
+        return lastSets;
+    }
+}
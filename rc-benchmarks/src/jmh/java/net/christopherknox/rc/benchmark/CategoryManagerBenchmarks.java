@@ -0,0 +1,50 @@
+package net.christopherknox.rc.benchmark;
+
+import net.christopherknox.rc.CategoryManager;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.response.BaseResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class CategoryManagerBenchmarks extends BenchmarkBase {
+
+    private static final String RENAMED = "Renamed Category";
+
+    private CategoryManager categoryManager;
+    private List<Item> items;
+
+    @Setup(Level.Trial)
+    public void getBeans() {
+        categoryManager = context.getBean(CategoryManager.class);
+        items = new ArrayList<>(dataHandler.getData());
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreCategories() {
+        // Editing or removing a category publishes new lists, so put back the ones from before each call
+        dataHandler.setCategories(new ArrayList<>(categories));
+        dataHandler.setData(new ArrayList<>(items));
+    }
+
+    @Benchmark
+    public BaseResponse editCategory() {
+        return categoryManager.editCategory(categories.get(0), RENAMED);
+    }
+
+    @Benchmark
+    public BaseResponse removeCategory() {
+        return categoryManager.removeCategory(categories.get(0), null);
+    }
+
+    @Benchmark
+    public BaseResponse removeCategoryWithMigrate() {
+        return categoryManager.removeCategory(categories.get(0), categories.get(1));
+    }
+}
@@ -0,0 +1,21 @@
+package net.christopherknox.rc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+@State(Scope.Benchmark)
+public class DataHandlerBenchmarks extends BenchmarkBase {
+
+    @Benchmark
+    public void save() throws IOException {
+        dataHandler.save();
+    }
+
+    @Benchmark
+    public void reload() throws IOException {
+        dataHandler.reload();
+    }
+}
@@ -0,0 +1,85 @@
+package net.christopherknox.rc.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.christopherknox.rc.model.Data;
+import net.christopherknox.rc.persistence.BinarySnapshotCodec;
+import net.christopherknox.rc.persistence.StreamingDataReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Compares the old whole-file bind against the streaming reader and the binary snapshot, for both loading and saving,
+// run with -prof gc to see the allocation side too
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataLoaderBenchmarks {
+
+    @Param({"10000", "100000", "1000000"})
+    protected int size;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final StreamingDataReader reader = new StreamingDataReader(mapper);
+    private final BinarySnapshotCodec codec = new BinarySnapshotCodec();
+    private Data data;
+    private File dataFile;
+    private File binaryFile;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        data = BenchmarkBase.generateData(size);
+        dataFile = File.createTempFile("rc-loader-benchmark-" + size + "-", ".json");
+        mapper.writeValue(dataFile, data);
+        binaryFile = File.createTempFile("rc-loader-benchmark-" + size + "-", ".bin");
+        Files.write(binaryFile.toPath(), codec.write(data));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(dataFile.toPath());
+        Files.deleteIfExists(binaryFile.toPath());
+    }
+
+    @Benchmark
+    public Data bindWholeFile() throws IOException {
+        return mapper.readValue(dataFile, Data.class);
+    }
+
+    @Benchmark
+    public Data streamingReader() throws IOException {
+        return reader.read(dataFile, (bytesRead, totalBytes) -> {});
+    }
+
+    @Benchmark
+    public Data binaryReader() throws IOException {
+        return codec.read(binaryFile, (bytesRead, totalBytes) -> {});
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return mapper.writeValueAsBytes(data);
+    }
+
+    @Benchmark
+    public byte[] writeBinary() throws IOException {
+        return codec.write(data);
+    }
+}
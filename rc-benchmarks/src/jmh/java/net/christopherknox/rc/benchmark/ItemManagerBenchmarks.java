@@ -0,0 +1,57 @@
+package net.christopherknox.rc.benchmark;
+
+import net.christopherknox.rc.ItemManager;
+import net.christopherknox.rc.model.Item;
+import net.christopherknox.rc.model.Priority;
+import net.christopherknox.rc.response.BaseResponse;
+import net.christopherknox.rc.response.ItemListResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class ItemManagerBenchmarks extends BenchmarkBase {
+
+    private ItemManager itemManager;
+    private Item duplicateItem;
+
+    @Setup(Level.Trial)
+    public void getBeans() {
+        itemManager = context.getBean(ItemManager.class);
+
+        // A new item with the same title as the last one in the list, so the whole list is checked before it's rejected
+        final Item last = dataHandler.getData().get(dataHandler.getData().size() - 1);
+        duplicateItem = Item.builder()
+            .title(last.getTitle())
+            .category(last.getCategory())
+            .priority(Priority.HIGH)
+            .build();
+    }
+
+    @Benchmark
+    public ItemListResponse getRandomSet() {
+        return itemManager.getRandomSet(categories.get(0), false);
+    }
+
+    @Benchmark
+    public ItemListResponse getRandomSetUseLast() {
+        return itemManager.getRandomSet(categories.get(0), true);
+    }
+
+    @Benchmark
+    public ItemListResponse getFullList() {
+        return itemManager.getFullList(categories.get(0));
+    }
+
+    @Benchmark
+    public ItemListResponse getFullListAllCategories() {
+        return itemManager.getFullList(null);
+    }
+
+    @Benchmark
+    public BaseResponse saveItemDuplicateTitle() {
+        return itemManager.saveItem(duplicateItem, false);
+    }
+}
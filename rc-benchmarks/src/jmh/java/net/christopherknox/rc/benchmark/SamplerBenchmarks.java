@@ -0,0 +1,66 @@
+package net.christopherknox.rc.benchmark;
+
+import net.christopherknox.rc.ItemManager;
+import net.christopherknox.rc.response.ItemListResponse;
+import net.christopherknox.rc.sampler.SamplerCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class SamplerBenchmarks extends BenchmarkBase {
+
+    @Param({"ALIAS", "FENWICK"})
+    private String samplerType;
+
+    private ItemManager itemManager;
+    private SamplerCache samplerCache;
+
+    @Override
+    protected List<String> getProperties() {
+        // Aged weights change every day, and whole list draws go through the category weighted sampler
+        return List.of("--sampler.type=" + samplerType, "--sampler.aging.enabled=true",
+            "--sampler.category.enabled=true");
+    }
+
+    @Setup(Level.Trial)
+    public void getBeans() {
+        itemManager = context.getBean(ItemManager.class);
+        samplerCache = context.getBean(SamplerCache.class);
+    }
+
+    @Benchmark
+    public ItemListResponse getRandomSet() {
+        return itemManager.getRandomSet(categories.get(0), false);
+    }
+
+    @Benchmark
+    public ItemListResponse getRandomSetAllCategories() {
+        return itemManager.getRandomSet(null, false);
+    }
+
+    @Benchmark
+    public ItemListResponse getRandomSetAfterDayRollover(final DayRollover rollover) {
+        return itemManager.getRandomSet(categories.get(0), false);
+    }
+
+    @Benchmark
+    public ItemListResponse getRandomSetAllCategoriesAfterDayRollover(final DayRollover rollover) {
+        return itemManager.getRandomSet(null, false);
+    }
+
+    @State(Scope.Thread)
+    public static class DayRollover {
+
+        @Setup(Level.Invocation)
+        public void rollOver(final SamplerBenchmarks benchmarks) {
+            // The first request of a new day throws every aged sampler away, so the call after it pays for the rebuild
+            benchmarks.samplerCache.invalidateAll();
+        }
+    }
+}
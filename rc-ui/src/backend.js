@@ -54,6 +54,21 @@ export async function getRandomSet(category, useLast, handleResult, handleError)
     });
 }
 
+export async function getRandomSets(sets, useLast, handleResult, handleError) {
+  var request = {'sets': sets, 'useLast': useLast};
+  return fetch(baseUrl + '/getRandomSets', {
+    method: 'POST',
+    headers: {
+      'Content-Type': 'application/json'
+    },
+    body: JSON.stringify(request)
+  }).then(response => response.json())
+    .then(result => {
+      handleResult(result.sets);
+      handleError(result.error);
+    });
+}
+
 export async function getFullList(category, handleResult, handleError) {
   return fetch(baseUrl + '/getFullList?category=' + category)
     .then(response => response.json())